@@ -0,0 +1,112 @@
+package org.example.benchmarks;
+
+import org.example.callback.CallbackAction;
+import org.example.callback.CallbackCodec;
+import org.example.callback.CallbackData;
+import org.example.models.TaskStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Разбор callback data: прежняя цепочка startsWith/replace/split против {@link CallbackCodec}.
+ * Аллокации смотреть с {@code -prof gc} (gc.alloc.rate.norm - байт на операцию).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CallbackCodecBenchmark {
+
+    @Param({"complete", "status", "page"})
+    public String kind;
+
+    private String legacyData;
+    private String encodedData;
+
+    @Setup
+    public void setUp() {
+        switch (kind) {
+            case "complete":
+                legacyData = "complete_1234567";
+                encodedData = CallbackCodec.encode(CallbackAction.COMPLETE, 1234567);
+                break;
+            case "status":
+                legacyData = "status_1234567_BACKLOG";
+                encodedData = CallbackCodec.encode(CallbackAction.SET_STATUS, 1234567, TaskStatus.BACKLOG);
+                break;
+            default:
+                legacyData = "page_next_1760000000123456:1234567";
+                encodedData = CallbackCodec.encode(CallbackAction.PAGE_NEXT, 1234567, 1760000000123456L);
+        }
+    }
+
+    @Benchmark
+    public void legacyParse(Blackhole bh) {
+        legacyDispatch(legacyData, bh);
+    }
+
+    @Benchmark
+    public void codecDecode(Blackhole bh) {
+        CallbackData data = CallbackCodec.decode(encodedData);
+        bh.consume(data.getAction());
+        bh.consume(data.getId());
+        bh.consume(data.getArg());
+    }
+
+    @Benchmark
+    public String codecEncode() {
+        return CallbackCodec.encode(CallbackAction.PAGE_NEXT, 1234567, 1760000000123456L);
+    }
+
+    /**
+     * Копия разбора из TelegramBot.handleCallbackQuery до перехода на кодек (без вызова обработчиков).
+     */
+    private static void legacyDispatch(String callbackData, Blackhole bh) {
+        if (callbackData.startsWith("complete_")) {
+            bh.consume(Long.parseLong(callbackData.replace("complete_", "")));
+        } else if (callbackData.startsWith("edit_")) {
+            bh.consume(Long.parseLong(callbackData.replace("edit_", "")));
+        } else if (callbackData.startsWith("status_")) {
+            String[] parts = callbackData.split("_");
+            if (parts.length >= 3) {
+                bh.consume(Long.parseLong(parts[1]));
+                String statusStr = parts[2];
+                if ("IN".equals(statusStr)) {
+                    bh.consume(TaskStatus.IN_PROGRESS);
+                } else if ("BACKLOG".equalsIgnoreCase(statusStr)) {
+                    bh.consume(TaskStatus.BACKLOG);
+                } else if ("DONE".equalsIgnoreCase(statusStr)) {
+                    bh.consume(TaskStatus.DONE);
+                } else {
+                    bh.consume(TaskStatus.valueOf(statusStr.toUpperCase()));
+                }
+            }
+        } else if (callbackData.startsWith("delete_")) {
+            bh.consume(Long.parseLong(callbackData.replace("delete_", "")));
+        } else if (callbackData.startsWith("page_next_")) {
+            String value = callbackData.substring("page_next_".length());
+            int separator = value.indexOf(':');
+            bh.consume(Long.parseLong(value.substring(0, separator)));
+            bh.consume(Long.parseLong(value.substring(separator + 1)));
+        } else if (callbackData.startsWith("page_prev_")) {
+            String value = callbackData.substring("page_prev_".length());
+            int separator = value.indexOf(':');
+            bh.consume(Long.parseLong(value.substring(0, separator)));
+            bh.consume(Long.parseLong(value.substring(separator + 1)));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.benchmarks;
+
+import org.example.time.DeadlineFormatter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Разбор и вывод дедлайна: прежние DATE_PATTERN + SimpleDateFormat, DateTimeFormatter
+ * и ручной разбор {@link DeadlineFormatter}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DeadlineFormatterBenchmark {
+    private static final String INPUT = "25.12.2025 15:30";
+    private static final Pattern DATE_PATTERN = Pattern.compile("\\d{2}\\.\\d{2}\\.\\d{4} \\d{2}:\\d{2}");
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
+
+    private final SimpleDateFormat simpleDateFormat = new SimpleDateFormat("dd.MM.yyyy HH:mm");
+    private final ZoneId zone = ZoneId.of("Europe/Moscow");
+    private final Instant deadline = Instant.parse("2025-12-25T12:30:00Z");
+    private final Date deadlineDate = Date.from(deadline);
+
+    @Benchmark
+    public Date parseSimpleDateFormat() throws ParseException {
+        return DATE_PATTERN.matcher(INPUT).matches() ? simpleDateFormat.parse(INPUT) : null;
+    }
+
+    @Benchmark
+    public Instant parseDateTimeFormatter() {
+        return LocalDateTime.parse(INPUT, FORMATTER).atZone(zone).toInstant();
+    }
+
+    @Benchmark
+    public Instant parseDeadlineFormatter() {
+        return DeadlineFormatter.parse(INPUT, zone);
+    }
+
+    @Benchmark
+    public String formatSimpleDateFormat() {
+        return simpleDateFormat.format(deadlineDate);
+    }
+
+    @Benchmark
+    public String formatDateTimeFormatter() {
+        return FORMATTER.format(deadline.atZone(zone));
+    }
+
+    @Benchmark
+    public String formatDeadlineFormatter() {
+        return DeadlineFormatter.format(deadline, zone);
+    }
+}
@@ -0,0 +1,58 @@
+package org.example.benchmarks;
+
+import org.example.models.Category;
+import org.example.models.Task;
+import org.example.models.TaskStatus;
+
+import java.lang.reflect.Field;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Синтетические задачи, похожие на настоящие: названия разной длины, смесь статусов,
+ * дедлайн у двух задач из трех.
+ */
+final class TaskFixtures {
+    private static final String[] WORDS = {
+            "отчет", "созвон", "ревью", "релиз", "миграция", "документация", "баг", "дизайн", "квартальный", "клиент"
+    };
+
+    private TaskFixtures() {
+    }
+
+    static List<Task> tasks(int count, long seed) {
+        Random random = new Random(seed);
+        Instant now = Instant.parse("2025-12-01T09:00:00Z");
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            StringBuilder name = new StringBuilder();
+            int words = 1 + random.nextInt(4);
+            for (int w = 0; w < words; w++) {
+                if (w > 0) {
+                    name.append(' ');
+                }
+                name.append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            Instant deadline = random.nextInt(3) == 0 ? null : now.plus(random.nextInt(30 * 24), ChronoUnit.HOURS);
+            TaskStatus status = TaskStatus.values()[random.nextInt(TaskStatus.values().length)];
+            Task task = new Task(name.toString(), "описание " + i, 1L, status, deadline, Category.DEVELOPMENT);
+            setId(task, 1_000_000L + i);
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    // id выдает база, сеттера у сущности нет
+    private static void setId(Task task, long id) {
+        try {
+            Field field = Task.class.getDeclaredField("id");
+            field.setAccessible(true);
+            field.set(task, id);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
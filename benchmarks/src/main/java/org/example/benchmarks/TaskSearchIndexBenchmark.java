@@ -0,0 +1,68 @@
+package org.example.benchmarks;
+
+import org.example.models.Task;
+import org.example.search.TaskSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск по разделу одного пользователя из 100, 1000 и 10000 задач.
+ * Словарь у {@link TaskFixtures} маленький, поэтому частые слова совпадают с большой долей задач -
+ * это худший случай для ранжирования; редкое слово - номер из описания, совпадает с одной задачей.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TaskSearchIndexBenchmark {
+    private static final Long USER_ID = 1L;
+    private static final int PAGE_SIZE = 8;
+
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    private TaskSearchIndex index;
+    private String rareQuery;
+
+    @Setup
+    public void setUp() {
+        List<TaskSearchIndex.Document> documents = new ArrayList<>(size);
+        for (Task task : TaskFixtures.tasks(size, 42)) {
+            documents.add(new TaskSearchIndex.Document(
+                    task.getId(), task.getName(), task.getDescription(), task.getTaskStatus()));
+        }
+        index = new TaskSearchIndex(1L << 30);
+        index.load(USER_ID, documents);
+        rareQuery = String.valueOf(size / 2);
+    }
+
+    @Benchmark
+    public TaskSearchIndex.Page searchCommonTerm() {
+        return index.search(USER_ID, "отчеты", 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public TaskSearchIndex.Page searchTwoTerms() {
+        return index.search(USER_ID, "квартального отчета", 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public TaskSearchIndex.Page searchRareTerm() {
+        return index.search(USER_ID, rareQuery, 0, PAGE_SIZE);
+    }
+}
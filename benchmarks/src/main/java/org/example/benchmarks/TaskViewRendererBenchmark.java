@@ -0,0 +1,68 @@
+package org.example.benchmarks;
+
+import org.example.render.TaskFragmentCache;
+import org.example.render.TaskViewRenderer;
+import org.example.services.TaskPage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Текст и клавиатура экрана "Мои задачи" для списков из 10, 100 и 1000 задач.
+ * Варианты *Cached - повторный показ той же страницы, когда все фрагменты уже в кэше;
+ * разницу в аллокациях показывает {@code -prof gc}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TaskViewRendererBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    private TaskPage page;
+    private TaskFragmentCache cache;
+    private final ZoneId zone = ZoneId.of("Europe/Moscow");
+
+    @Setup
+    public void setUp() {
+        page = new TaskPage(TaskFixtures.tasks(size, 42), true, true);
+        cache = new TaskFragmentCache(50_000);
+        TaskViewRenderer.renderTasksPage(page, zone, cache);
+    }
+
+    @Benchmark
+    public String renderText() {
+        return TaskViewRenderer.renderTasksPage(page, zone);
+    }
+
+    @Benchmark
+    public InlineKeyboardMarkup buildKeyboard() {
+        return TaskViewRenderer.tasksKeyboard(page);
+    }
+
+    @Benchmark
+    public String renderTextCached() {
+        return TaskViewRenderer.renderTasksPage(page, zone, cache);
+    }
+
+    @Benchmark
+    public InlineKeyboardMarkup buildKeyboardCached() {
+        return TaskViewRenderer.tasksKeyboard(page, cache, zone);
+    }
+}
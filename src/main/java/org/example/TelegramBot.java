@@ -1,74 +1,207 @@
 package org.example;
 
+import org.example.callback.CallbackAction;
+import org.example.callback.CallbackCodec;
+import org.example.callback.CallbackData;
+import org.example.callback.CallbackRouter;
+import org.example.conversation.Conversation;
+import org.example.conversation.ConversationStateStore;
+import org.example.conversation.UserState;
+import org.example.dispatch.BlockingCallLimits;
+import org.example.dispatch.UpdateDispatcher;
+import org.example.export.TaskExportFormat;
+import org.example.export.TaskExportService;
+import org.example.metrics.BotMetrics;
 import org.example.models.Category;
 import org.example.models.Task;
 import org.example.models.TaskStatus;
+import org.example.models.TaskView;
+import org.example.outbound.OutboundMessageSender;
+import org.example.render.ReplyKeyboards;
+import org.example.render.TaskFragmentCache;
+import org.example.render.TaskViewRenderer;
+import org.example.search.TaskSearchIndex;
+import org.example.search.TaskSearchService;
+import org.example.services.AsyncTaskService;
+import org.example.services.TaskCursor;
+import org.example.services.TaskImportParser;
+import org.example.services.TaskPage;
+import org.example.services.TaskStats;
 import org.example.services.TaskService;
+import org.example.services.UserZoneService;
+import org.example.time.DeadlineFormatter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.telegram.telegrambots.bots.TelegramLongPollingBot;
+import org.telegram.telegrambots.meta.api.methods.ActionType;
 import org.telegram.telegrambots.meta.api.methods.AnswerCallbackQuery;
+import org.telegram.telegrambots.meta.api.methods.GetFile;
+import org.telegram.telegrambots.meta.api.methods.send.SendChatAction;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
 import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
+import org.telegram.telegrambots.meta.api.objects.Document;
+import org.telegram.telegrambots.meta.api.objects.File;
+import org.telegram.telegrambots.meta.api.objects.Message;
 import org.telegram.telegrambots.meta.api.objects.Update;
-import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
-import org.telegram.telegrambots.meta.api.objects.replykeyboard.ReplyKeyboardMarkup;
-import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
-import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.KeyboardRow;
-import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 
-import java.text.SimpleDateFormat;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
 import java.util.*;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 @Component
 public class TelegramBot extends TelegramLongPollingBot {
+    private static final Logger log = LoggerFactory.getLogger(TelegramBot.class);
 
     @Autowired
     private TaskService taskService;
 
-    private final String botToken;
-    private final String botUsername;
+    @Autowired
+    private UpdateDispatcher updateDispatcher;
 
-    // users States + user Data
-    private Map<Long, UserState> userStates = new HashMap<>();
-    private Map<Long, TaskCreationData> taskCreationData = new HashMap<>();
-    private Map<Long, Long> editingTasks = new HashMap<>();
+    @Autowired
+    private ConversationStateStore conversations;
 
+    @Autowired
+    private OutboundMessageSender outboundSender;
 
-    //TODO добавить EDITING_TASK_CATEGORY и соответствующий хендлер
-    private enum UserState {
-        MAIN_MENU,
-        ADDING_TASK_NAME,
-        ADDING_TASK_DESCRIPTION,
-        ADDING_TASK_DEADLINE,
-        EDITING_TASK_NAME,
-        EDITING_TASK_DESCRIPTION,
-        EDITING_TASK_DEADLINE
-    }
+    @Autowired
+    private UserZoneService userZones;
 
-    private static class TaskCreationData {
-        String name;
-        String description;
-        Date deadline;
-        TaskStatus status = TaskStatus.BACKLOG;
-    }
+    @Autowired
+    private BotMetrics botMetrics;
 
-    private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("dd.MM.yyyy HH:mm");
-    private static final Pattern DATE_PATTERN = Pattern.compile("\\d{2}\\.\\d{2}\\.\\d{4} \\d{2}:\\d{2}");
+    @Autowired
+    private TaskExportService taskExportService;
+
+    @Autowired
+    private BlockingCallLimits blockingCalls;
+
+    @Autowired
+    private AsyncTaskService asyncTasks;
+
+    @Autowired
+    private TaskSearchService taskSearch;
+
+    private final String botToken;
+    private final String botUsername;
+    private final TaskFragmentCache fragmentCache;
+
+    private static final Duration UPCOMING_DEADLINES_WINDOW = Duration.ofDays(3);
+    private static final int TASKS_PAGE_SIZE = 5;
+    // в режиме выбора на задачу одна кнопка, поэтому страница длиннее
+    private static final int SELECTION_PAGE_SIZE = 10;
+    private static final long MAX_IMPORT_FILE_BYTES = 1024 * 1024;
+    private static final int SEARCH_PAGE_SIZE = 8;
+    private static final int MAX_SEARCH_QUERY_LENGTH = 200;
+    // если запрос к базе идет дольше, пользователь видит "печатает..."
+    private static final long TYPING_INDICATOR_DELAY_MS = 300;
+
+    private static final Map<String, String> MENU_COMMANDS = Map.of(
+            "📝 Добавить задачу", "add_task",
+            "📋 Мои задачи", "list_tasks",
+            "⏰ Ближайшие дедлайны", "upcoming_deadlines",
+            "✅ Выполненные", "list_done",
+            "🔄 В процессе", "list_in_progress",
+            "📥 Бэклог", "list_backlog",
+            "⚙️ Настройки", "settings",
+            "📊 Статистика", "stats",
+            "❓ Помощь", "help",
+            "🔙 Назад", "back");
+
+    private final CallbackRouter<CallbackQuery> callbackRouter = new CallbackRouter<CallbackQuery>()
+            .on(CallbackAction.INFO, (q, d) -> showTaskInfo(chatId(q), userId(q), d.getId()))
+            .on(CallbackAction.COMPLETE, (q, d) -> completeTask(chatId(q), userId(q), d.getId(), messageId(q)))
+            .on(CallbackAction.EDIT, (q, d) -> startEditingTask(chatId(q), userId(q), d.getId()))
+            .on(CallbackAction.SET_STATUS, this::onSetStatus)
+            .on(CallbackAction.DELETE, (q, d) -> deleteTask(chatId(q), userId(q), d.getId(), messageId(q)))
+            .on(CallbackAction.PAGE_NEXT, (q, d) -> editTasksPageAsync(chatId(q), userId(q), messageId(q),
+                    asyncTasks.getTaskPageAfterAsync(userId(q), TaskCursor.ofMicros(d.getArg(), d.getId()), TASKS_PAGE_SIZE)))
+            .on(CallbackAction.PAGE_PREV, (q, d) -> editTasksPageAsync(chatId(q), userId(q), messageId(q),
+                    asyncTasks.getTaskPageBeforeAsync(userId(q), TaskCursor.ofMicros(d.getArg(), d.getId()), TASKS_PAGE_SIZE)))
+            .on(CallbackAction.BACK_TO_TASKS, (q, d) -> showUserTasks(chatId(q), userId(q)))
+            .on(CallbackAction.BACK_TO_MAIN, (q, d) -> {
+                sendWelcomeMessage(chatId(q));
+                setUserState(userId(q), UserState.MAIN_MENU);
+            })
+            .on(CallbackAction.SEPARATOR, (q, d) -> {
+                sendMessage(chatId(q), "А не надо на сепаратор кликать\uD83D\uDE04");
+                setUserState(userId(q), UserState.MAIN_MENU);
+            })
+            .on(CallbackAction.SELECT_START, (q, d) -> startSelection(chatId(q), userId(q), messageId(q)))
+            .on(CallbackAction.SELECT_TOGGLE, (q, d) -> updateSelection(chatId(q), userId(q), messageId(q),
+                    (userId, c) -> c.toggleSelected(d.getId())))
+            .on(CallbackAction.SELECT_PAGE_NEXT, (q, d) -> updateSelection(chatId(q), userId(q), messageId(q),
+                    (userId, c) -> turnSelectionPage(c, TaskCursor.ofMicros(d.getArg(), d.getId()), false)))
+            .on(CallbackAction.SELECT_PAGE_PREV, (q, d) -> updateSelection(chatId(q), userId(q), messageId(q),
+                    (userId, c) -> turnSelectionPage(c, TaskCursor.ofMicros(d.getArg(), d.getId()), true)))
+            .on(CallbackAction.SELECT_PAGE_ALL, (q, d) -> updateSelection(chatId(q), userId(q), messageId(q),
+                    (userId, c) -> c.selectAll(taskIds(selectionPage(userId, c)))))
+            .on(CallbackAction.SELECT_CANCEL, (q, d) -> {
+                setUserState(userId(q), UserState.MAIN_MENU);
+                editTasksPage(chatId(q), userId(q), messageId(q), taskService.getFirstTaskPage(userId(q), TASKS_PAGE_SIZE));
+            })
+            .on(CallbackAction.BULK_SET_STATUS, (q, d) -> bulkSetStatus(chatId(q), userId(q), messageId(q), d.getStatus()))
+            .on(CallbackAction.BULK_DELETE, (q, d) -> bulkDelete(chatId(q), userId(q), messageId(q)))
+            .on(CallbackAction.SEARCH_PAGE, (q, d) -> turnSearchPage(chatId(q), userId(q), messageId(q),
+                    d.getId(), (int) d.getArg()));
 
     public TelegramBot(
             @Value("${telegram.bot.token}") String botToken,
-            @Value("${telegram.bot.name}") String botUsername) {
+            @Value("${telegram.bot.name}") String botUsername,
+            @Value("${telegram.render.cache-size:50000}") int renderCacheSize) {
         this.botToken = botToken;
         this.botUsername = botUsername;
+        this.fragmentCache = new TaskFragmentCache(renderCacheSize);
     }
 
     @Override
     public void onUpdateReceived(Update update) {
+        Long userId = getUserId(update);
+        if (userId == null) {
+            return;
+        }
+        updateDispatcher.dispatch(userId, () -> handleUpdate(update));
+    }
+
+    /**
+     * Прием апдейта из webhook: не блокирует вызывающий поток.
+     *
+     * @return false, если очередь обработки заполнена и апдейт стоит доставить позже
+     */
+    public boolean offerUpdate(Update update) {
+        Long userId = getUserId(update);
+        if (userId == null) {
+            return true;
+        }
+        return updateDispatcher.tryDispatch(userId, () -> handleUpdate(update));
+    }
+
+    public Long getUserId(Update update) {
+        if (update.hasCallbackQuery()) {
+            return update.getCallbackQuery().getFrom().getId();
+        }
+        if (update.hasMessage() && update.getMessage().getFrom() != null) {
+            return update.getMessage().getFrom().getId();
+        }
+        return null;
+    }
+
+    private void handleUpdate(Update update) {
         if (update.hasCallbackQuery()) {
             handleCallbackQuery(update.getCallbackQuery());
             return;
@@ -79,83 +212,130 @@ public class TelegramBot extends TelegramLongPollingBot {
             Long chatId = update.getMessage().getChatId();
             Long userId = update.getMessage().getFrom().getId();
 
-            if (messageText.equals("/start")) {
-                sendWelcomeMessage(chatId);
-                userStates.put(userId, UserState.MAIN_MENU);
-            } else {
-                handleUserInput(messageText, chatId, userId);
+            long start = System.nanoTime();
+            String command = "unknown";
+            String outcome = BotMetrics.ERROR;
+            try {
+                if (messageText.equals("/start")) {
+                    command = "start";
+                    sendWelcomeMessage(chatId);
+                    setUserState(userId, UserState.MAIN_MENU);
+                } else if (messageText.startsWith("/tz")) {
+                    command = "tz";
+                    changeTimeZone(chatId, userId, messageText.substring("/tz".length()).trim());
+                } else if (messageText.startsWith("/export")) {
+                    command = "export";
+                    exportTasks(chatId, userId, messageText.substring("/export".length()).trim());
+                } else if (messageText.startsWith("/search")) {
+                    command = "search";
+                    searchTasks(chatId, userId, messageText.substring("/search".length()).trim());
+                } else if (messageText.startsWith("/import")) {
+                    command = "import";
+                    startImport(chatId, userId, messageText.substring("/import".length()).trim());
+                } else {
+                    UserState state = getUserState(userId);
+                    command = commandTag(messageText, state);
+                    handleUserInput(messageText, chatId, userId, state);
+                }
+                outcome = BotMetrics.OK;
+            } finally {
+                botMetrics.recordCommand(command, outcome, start);
+            }
+        } else if (update.hasMessage() && update.getMessage().hasDocument()) {
+            long start = System.nanoTime();
+            String outcome = BotMetrics.ERROR;
+            try {
+                handleDocument(update.getMessage());
+                outcome = BotMetrics.OK;
+            } finally {
+                botMetrics.recordCommand("import_file", outcome, start);
             }
         }
     }
 
+    // в главном меню тег - пункт меню, в остальных состояниях - само состояние (ввод названия, дедлайна...)
+    private static String commandTag(String messageText, UserState state) {
+        if (state != UserState.MAIN_MENU && state != UserState.SELECTING_TASKS) {
+            return state.name().toLowerCase(Locale.ROOT);
+        }
+        return MENU_COMMANDS.getOrDefault(messageText, "unknown");
+    }
+
     private void handleCallbackQuery(CallbackQuery callbackQuery) {
         String callbackData = callbackQuery.getData();
         Long chatId = callbackQuery.getMessage().getChatId();
-        Long userId = callbackQuery.getFrom().getId();
-        Integer messageId = callbackQuery.getMessage().getMessageId();
 
+        long start = System.nanoTime();
+        CallbackData data = CallbackCodec.decode(callbackData);
+        String action = data == null ? "unknown" : data.getAction().name().toLowerCase(Locale.ROOT);
+        String outcome = BotMetrics.ERROR;
         try {
-            if (callbackData.startsWith("complete_")) {
-                Long taskId = Long.parseLong(callbackData.replace("complete_", ""));
-                completeTask(chatId, userId, taskId, messageId);
-
-            } else if (callbackData.startsWith("edit_")) {
-                Long taskId = Long.parseLong(callbackData.replace("edit_", ""));
-                startEditingTask(chatId, userId, taskId);
-
-            } else if (callbackData.startsWith("status_")) {
-                String[] parts = callbackData.split("_");
-                if (parts.length >= 3) {
-                    Long taskId = Long.parseLong(parts[1]);
-                    String statusStr = parts[2];
-
-                    TaskStatus newStatus;
-                    try {
-                        if ("IN".equals(statusStr)) {
-                            newStatus = TaskStatus.IN_PROGRESS;
-                        } else if ("BACKLOG".equalsIgnoreCase(statusStr)) {
-                            newStatus = TaskStatus.BACKLOG;
-                        } else if ("DONE".equalsIgnoreCase(statusStr)) {
-                            newStatus = TaskStatus.DONE;
-                        } else {
-                            newStatus = TaskStatus.valueOf(statusStr.toUpperCase());
-                        }
-
-                        changeTaskStatus(chatId, userId, taskId, newStatus, messageId);
-                    } catch (IllegalArgumentException e) {
-                        sendMessage(chatId, "❌ Неизвестный статус: " + statusStr);
-                    }
-                }
-
-            } else if (callbackData.startsWith("delete_")) {
-                Long taskId = Long.parseLong(callbackData.replace("delete_", ""));
-                deleteTask(chatId, userId, taskId, messageId);
-
-            } else if (callbackData.equals("back_to_tasks")) {
-                showUserTasks(chatId, userId);
-
-            } else if (callbackData.equals("back_to_main")) {
-                sendWelcomeMessage(chatId);
-                userStates.put(userId, UserState.MAIN_MENU);
-
-            } else if (callbackData.equals("separator")) {
-                sendMessage(chatId, "А не надо на сепаратор кликать\uD83D\uDE04");
-                userStates.put(userId, UserState.MAIN_MENU);
+            if (!callbackRouter.route(callbackQuery, data)) {
+                log.warn("Unknown callback data: {}", callbackData);
             }
 
             AnswerCallbackQuery answer = new AnswerCallbackQuery();
             answer.setCallbackQueryId(callbackQuery.getId());
-            execute(answer);
+            outboundSender.answer(answer);
+            outcome = BotMetrics.OK;
 
         } catch (Exception e) {
-            e.printStackTrace();
+            handlerFailed("callback", e);
             sendMessage(chatId, "❌ Произошла ошибка при обработке запроса");
+        } finally {
+            botMetrics.recordCallback(action, outcome, start);
         }
     }
 
-    private void handleUserInput(String messageText, Long chatId, Long userId) {
-        UserState currentState = userStates.getOrDefault(userId, UserState.MAIN_MENU);
+    private void handlerFailed(String handler, Throwable e) {
+        log.error("Handler {} failed", handler, e);
+        botMetrics.handlerError(handler);
+    }
+
+    /**
+     * Ответ по результату асинхронного запроса к базе. Поток обработчика не ждет запроса,
+     * но следующий апдейт пользователя начнет обрабатываться только после того, как ответ поставлен
+     * в очередь отправки, поэтому порядок ответов прежний. Ошибки и таймауты - как в синхронных обработчиках.
+     */
+    private <T> void replyAsync(String handler, Long chatId, String errorText,
+                                CompletableFuture<T> query, Consumer<T> reply) {
+        CompletableFuture.delayedExecutor(TYPING_INDICATOR_DELAY_MS, TimeUnit.MILLISECONDS).execute(() -> {
+            if (!query.isDone()) {
+                SendChatAction typing = new SendChatAction();
+                typing.setChatId(chatId.toString());
+                typing.setAction(ActionType.TYPING);
+                outboundSender.send(chatId.toString(), typing);
+            }
+        });
+        updateDispatcher.holdUntil(query.thenAccept(reply).exceptionally(e -> {
+            handlerFailed(handler, e instanceof CompletionException ? e.getCause() : e);
+            sendMessage(chatId, errorText);
+            return null;
+        }));
+    }
+
+    private void onSetStatus(CallbackQuery callbackQuery, CallbackData data) {
+        TaskStatus newStatus = data.getStatus();
+        if (newStatus == null) {
+            sendMessage(chatId(callbackQuery), "❌ Неизвестный статус");
+            return;
+        }
+        changeTaskStatus(chatId(callbackQuery), userId(callbackQuery), data.getId(), newStatus, messageId(callbackQuery));
+    }
 
+    private static Long chatId(CallbackQuery callbackQuery) {
+        return callbackQuery.getMessage().getChatId();
+    }
+
+    private static Long userId(CallbackQuery callbackQuery) {
+        return callbackQuery.getFrom().getId();
+    }
+
+    private static Integer messageId(CallbackQuery callbackQuery) {
+        return callbackQuery.getMessage().getMessageId();
+    }
+
+    private void handleUserInput(String messageText, Long chatId, Long userId, UserState currentState) {
         switch (currentState) {
             case MAIN_MENU:
                 handleMainMenu(messageText, chatId, userId);
@@ -178,9 +358,36 @@ public class TelegramBot extends TelegramLongPollingBot {
             case EDITING_TASK_DEADLINE:
                 handleEditTaskDeadlineInput(messageText, chatId, userId);
                 break;
+            case IMPORTING_TASKS:
+                handleImportInput(messageText, chatId, userId);
+                break;
+            case SELECTING_TASKS:
+                // выбор идет кнопками; текст или пункт меню закрывает режим выбора
+                setUserState(userId, UserState.MAIN_MENU);
+                handleMainMenu(messageText, chatId, userId);
+                break;
         }
     }
 
+    private UserState getUserState(Long userId) {
+        Conversation conversation = conversations.get(userId);
+        return conversation == null ? UserState.MAIN_MENU : conversation.getState();
+    }
+
+    // Главное меню = нет записи в хранилище, данные незавершенных сценариев при этом сбрасываются
+    private void setUserState(Long userId, UserState state) {
+        if (state == UserState.MAIN_MENU) {
+            conversations.remove(userId);
+            return;
+        }
+        Conversation conversation = conversations.get(userId);
+        if (conversation == null) {
+            conversation = new Conversation();
+        }
+        conversation.setState(state);
+        conversations.put(userId, conversation);
+    }
+
     private void handleMainMenu(String messageText, Long chatId, Long userId) {
         switch (messageText) {
             case "📝 Добавить задачу":
@@ -208,7 +415,11 @@ public class TelegramBot extends TelegramLongPollingBot {
                 break;
 
             case "⚙️ Настройки":
-                showSettings(chatId);
+                showSettings(chatId, userId);
+                break;
+
+            case "📊 Статистика":
+                showStats(chatId, userId);
                 break;
 
             case "❓ Помощь":
@@ -217,7 +428,7 @@ public class TelegramBot extends TelegramLongPollingBot {
 
             case "🔙 Назад":
                 sendWelcomeMessage(chatId);
-                userStates.put(userId, UserState.MAIN_MENU);
+                setUserState(userId, UserState.MAIN_MENU);
                 break;
 
             default:
@@ -226,75 +437,70 @@ public class TelegramBot extends TelegramLongPollingBot {
     }
 
     private void startAddingTask(Long chatId, Long userId) {
-        taskCreationData.put(userId, new TaskCreationData());
-        userStates.put(userId, UserState.ADDING_TASK_NAME);
+        Conversation conversation = new Conversation();
+        conversation.setState(UserState.ADDING_TASK_NAME);
+        conversations.put(userId, conversation);
 
         SendMessage message = new SendMessage();
         message.setChatId(chatId.toString());
         message.setText("Введите название задачи:");
-        message.setReplyMarkup(createBackKeyboard());
+        message.setReplyMarkup(ReplyKeyboards.BACK);
 
-        try {
-            execute(message);
-        } catch (TelegramApiException e) {
-            e.printStackTrace();
-        }
+        outboundSender.send(message);
     }
 
     private void handleTaskNameInput(String taskName, Long chatId, Long userId) {
         if (taskName.equals("🔙 Назад")) {
             sendWelcomeMessage(chatId);
-            userStates.put(userId, UserState.MAIN_MENU);
-            taskCreationData.remove(userId);
+            setUserState(userId, UserState.MAIN_MENU);
             return;
         }
 
-        TaskCreationData data = taskCreationData.get(userId);
-        data.name = taskName;
-        userStates.put(userId, UserState.ADDING_TASK_DESCRIPTION);
+        Conversation conversation = conversations.get(userId);
+        conversation.setTaskName(taskName);
+        conversation.setState(UserState.ADDING_TASK_DESCRIPTION);
+        conversations.put(userId, conversation);
 
         sendMessage(chatId, "Теперь введите описание задачи:");
     }
 
     private void handleTaskDescriptionInput(String description, Long chatId, Long userId) {
         if (description.equals("🔙 Назад")) {
-            userStates.put(userId, UserState.ADDING_TASK_NAME);
+            setUserState(userId, UserState.ADDING_TASK_NAME);
             sendMessage(chatId, "Введите название задачи:");
             return;
         }
 
-        TaskCreationData data = taskCreationData.get(userId);
-        data.description = description;
-        userStates.put(userId, UserState.ADDING_TASK_DEADLINE);
+        Conversation conversation = conversations.get(userId);
+        conversation.setTaskDescription(description);
+        conversation.setState(UserState.ADDING_TASK_DEADLINE);
+        conversations.put(userId, conversation);
 
         SendMessage message = new SendMessage();
         message.setChatId(chatId.toString());
         message.setText("Введите дедлайн в формате: ДД.ММ.ГГГГ ЧЧ:MM\nНапример: 25.12.2025 15:30\n\nИли отправьте 'нет' если дедлайн не нужен");
-        message.setReplyMarkup(createBackKeyboard());
+        message.setReplyMarkup(ReplyKeyboards.BACK);
 
-        try {
-            execute(message);
-        } catch (TelegramApiException e) {
-            e.printStackTrace();
-        }
+        outboundSender.send(message);
     }
 
     private void handleTaskDeadlineInput(String deadlineInput, Long chatId, Long userId) {
         if (deadlineInput.equals("🔙 Назад")) {
-            userStates.put(userId, UserState.ADDING_TASK_DESCRIPTION);
+            setUserState(userId, UserState.ADDING_TASK_DESCRIPTION);
             sendMessage(chatId, "Введите описание задачи:");
             return;
         }
 
-        TaskCreationData data = taskCreationData.get(userId);
+        Conversation conversation = conversations.get(userId);
 
         try {
+            Instant deadline = DeadlineFormatter.parse(deadlineInput, userZones.getZone(userId));
             if (deadlineInput.equalsIgnoreCase("нет")) {
-                data.deadline = null;
-            } else if (DATE_PATTERN.matcher(deadlineInput).matches()) {
-                data.deadline = DATE_FORMAT.parse(deadlineInput);
+                conversation.setTaskDeadline(null);
+            } else if (deadline != null) {
+                conversation.setTaskDeadline(deadline);
 
-                if (data.deadline.before(new Date())) {
+                if (conversation.getTaskDeadline().isBefore(Instant.now())) {
                     sendMessage(chatId, "❌ Дата не может быть в прошлом. Введите корректную дату:");
                     return;
                 }
@@ -304,11 +510,11 @@ public class TelegramBot extends TelegramLongPollingBot {
             }
 
             Task task = taskService.createTask(
-                    data.name,
-                    data.description,
+                    conversation.getTaskName(),
+                    conversation.getTaskDescription(),
                     userId,
-                    data.status,
-                    data.deadline,
+                    conversation.getTaskStatus(),
+                    conversation.getTaskDeadline(),
                     Category.ANALYTICS
             );
 
@@ -319,7 +525,7 @@ public class TelegramBot extends TelegramLongPollingBot {
                     "📊 Категория: " + task.getCategory() + "\n";
 
             if (task.getDeadlineTime() != null) {
-                taskInfo += "⏰ Дедлайн: " + DATE_FORMAT.format(task.getDeadlineTime()) + "\n";
+                taskInfo += "⏰ Дедлайн: " + DeadlineFormatter.format(task.getDeadlineTime(), userZones.getZone(userId)) + "\n";
             }
 
             taskInfo += "🆔 ID: " + task.getId();
@@ -327,61 +533,40 @@ public class TelegramBot extends TelegramLongPollingBot {
             SendMessage message = new SendMessage();
             message.setChatId(chatId.toString());
             message.setText(taskInfo);
-            message.setReplyMarkup(createMainKeyboard());
+            message.setReplyMarkup(ReplyKeyboards.MAIN_MENU);
 
-            try {
-                execute(message);
-            } catch (TelegramApiException e) {
-                e.printStackTrace();
-            }
+            outboundSender.send(message);
 
-            userStates.put(userId, UserState.MAIN_MENU);
-            taskCreationData.remove(userId);
+            setUserState(userId, UserState.MAIN_MENU);
 
         } catch (Exception e) {
             sendMessage(chatId, "❌ Ошибка при создании задачи. Попробуйте еще раз.");
-            e.printStackTrace();
+            handlerFailed("createTask", e);
         }
     }
 
     private void completeTask(Long chatId, Long userId, Long taskId, Integer messageId) {
-        try {
-            Task task = taskService.getTaskById(taskId).get(); //TODO заменить get на orElse
-            if (task.getUserOwnerId().equals(userId)) {
-                task.setTaskStatus(TaskStatus.DONE);
-                taskService.updateTask(task);
-
-                EditMessageText editMessage = new EditMessageText();
-                editMessage.setChatId(chatId.toString());
-                editMessage.setMessageId(messageId);
-                editMessage.setText("✅ Задача '" + task.getName() + "' выполнена!");
-                editMessage.setReplyMarkup(createBackToTasksKeyboard());
-                execute(editMessage);
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-            sendMessage(chatId, "❌ Ошибка при выполнении задачи");
-        }
+        replyAsync("completeTask", chatId, "❌ Ошибка при выполнении задачи",
+                asyncTasks.updateTaskStatusAsync(taskId, userId, TaskStatus.DONE), updated -> {
+                    EditMessageText editMessage = new EditMessageText();
+                    editMessage.setChatId(chatId.toString());
+                    editMessage.setMessageId(messageId);
+                    editMessage.setText(updated ? "✅ Задача выполнена!" : "❌ Задача не найдена");
+                    editMessage.setReplyMarkup(TaskViewRenderer.backToTasksKeyboard());
+                    outboundSender.send(editMessage);
+                });
     }
 
     private void changeTaskStatus(Long chatId, Long userId, Long taskId, TaskStatus newStatus, Integer messageId) {
-        try {
-            Task task = taskService.getTaskById(taskId).get();
-            if (task != null && task.getUserOwnerId().equals(userId)) {
-                task.setTaskStatus(newStatus);
-                taskService.updateTask(task);
-
-                EditMessageText editMessage = new EditMessageText();
-                editMessage.setChatId(chatId.toString());
-                editMessage.setMessageId(messageId);
-                editMessage.setText("📊 Статус задачи '" + task.getName() + "' изменен на: " + newStatus);
-                editMessage.setReplyMarkup(createBackToTasksKeyboard());
-                execute(editMessage);
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-            sendMessage(chatId, "❌ Ошибка при изменении статуса");
-        }
+        replyAsync("changeTaskStatus", chatId, "❌ Ошибка при изменении статуса",
+                asyncTasks.updateTaskStatusAsync(taskId, userId, newStatus), updated -> {
+                    EditMessageText editMessage = new EditMessageText();
+                    editMessage.setChatId(chatId.toString());
+                    editMessage.setMessageId(messageId);
+                    editMessage.setText(updated ? "📊 Статус задачи изменен на: " + newStatus : "❌ Задача не найдена");
+                    editMessage.setReplyMarkup(TaskViewRenderer.backToTasksKeyboard());
+                    outboundSender.send(editMessage);
+                });
     }
 
     private void deleteTask(Long chatId, Long userId, Long taskId, Integer messageId) {
@@ -394,136 +579,156 @@ public class TelegramBot extends TelegramLongPollingBot {
                 editMessage.setChatId(chatId.toString());
                 editMessage.setMessageId(messageId);
                 editMessage.setText("🗑️ Задача '" + task.getName() + "' удалена!");
-                editMessage.setReplyMarkup(createBackToTasksKeyboard());
-                execute(editMessage);
+                editMessage.setReplyMarkup(TaskViewRenderer.backToTasksKeyboard());
+                outboundSender.send(editMessage);
             }
         } catch (Exception e) {
-            e.printStackTrace();
+            handlerFailed("deleteTask", e);
             sendMessage(chatId, "❌ Ошибка при удалении задачи");
         }
     }
 
+    private void showTaskInfo(Long chatId, Long userId, Long taskId) {
+        Optional<Task> task = taskService.getTaskById(taskId).filter(t -> t.getUserOwnerId().equals(userId));
+        if (task.isEmpty()) {
+            sendMessage(chatId, "❌ Задача не найдена");
+            return;
+        }
+
+        StringBuilder text = new StringBuilder("📝 ").append(task.get().getName())
+                .append("\n\n📊 Статус: ").append(task.get().getTaskStatus());
+        if (task.get().getDescription() != null && !task.get().getDescription().isEmpty()) {
+            text.append("\n📄 Описание: ").append(task.get().getDescription());
+        }
+        if (task.get().getDeadlineTime() != null) {
+            text.append("\n⏰ Дедлайн: ").append(DeadlineFormatter.format(task.get().getDeadlineTime(), userZones.getZone(userId)));
+        }
+
+        SendMessage message = new SendMessage();
+        message.setChatId(chatId.toString());
+        message.setText(text.toString());
+        message.setReplyMarkup(TaskViewRenderer.backToTasksKeyboard());
+        outboundSender.send(message);
+    }
+
     private void startEditingTask(Long chatId, Long userId, Long taskId) {
-        editingTasks.put(userId, taskId);
-        userStates.put(userId, UserState.EDITING_TASK_NAME);
+        Conversation conversation = new Conversation();
+        conversation.setEditingTaskId(taskId);
+        conversation.setState(UserState.EDITING_TASK_NAME);
+        conversations.put(userId, conversation);
 
         SendMessage message = new SendMessage();
         message.setChatId(chatId.toString());
         message.setText("Введите новое название задачи:");
-        message.setReplyMarkup(createBackKeyboard());
+        message.setReplyMarkup(ReplyKeyboards.BACK);
 
-        try {
-            execute(message);
-        } catch (TelegramApiException e) {
-            e.printStackTrace();
-        }
+        outboundSender.send(message);
     }
 
     private void handleEditTaskNameInput(String newName, Long chatId, Long userId) {
         if (newName.equals("🔙 Назад")) {
             showUserTasks(chatId, userId);
-            userStates.put(userId, UserState.MAIN_MENU);
-            editingTasks.remove(userId);
+            setUserState(userId, UserState.MAIN_MENU);
             return;
         }
 
         try {
-            Long taskId = editingTasks.get(userId);
-            Task task = taskService.getTaskById(taskId).get();
-            if (task != null && task.getUserOwnerId().equals(userId)) {
-                task.setName(newName);
-                taskService.updateTask(task);
-
-                userStates.put(userId, UserState.EDITING_TASK_DESCRIPTION);
+            Long taskId = conversations.get(userId).getEditingTaskId();
+            if (taskService.updateTaskName(taskId, userId, newName)) {
+                setUserState(userId, UserState.EDITING_TASK_DESCRIPTION);
                 sendMessage(chatId, "Название обновлено! Теперь введите новое описание:");
+            } else {
+                handleEditedTaskMissing(chatId, userId);
             }
         } catch (Exception e) {
-            e.printStackTrace();
+            handlerFailed("editTaskName", e);
             sendMessage(chatId, "❌ Ошибка при обновлении названия");
         }
     }
 
     private void handleEditTaskDescriptionInput(String newDescription, Long chatId, Long userId) {
         if (newDescription.equals("🔙 Назад")) {
-            userStates.put(userId, UserState.EDITING_TASK_NAME);
+            setUserState(userId, UserState.EDITING_TASK_NAME);
             sendMessage(chatId, "Введите новое название задачи:");
             return;
         }
 
         try {
-            Long taskId = editingTasks.get(userId);
-            Task task = taskService.getTaskById(taskId).get();
-            if (task.getUserOwnerId().equals(userId)) {
-                task.setDescription(newDescription);
-                taskService.updateTask(task);
-
-                userStates.put(userId, UserState.EDITING_TASK_DEADLINE);
+            Long taskId = conversations.get(userId).getEditingTaskId();
+            if (taskService.updateTaskDescription(taskId, userId, newDescription)) {
+                setUserState(userId, UserState.EDITING_TASK_DEADLINE);
                 sendMessage(chatId, "Описание обновлено! Теперь введите новый дедлайн или 'нет' для удаления:");
+            } else {
+                handleEditedTaskMissing(chatId, userId);
             }
         } catch (Exception e) {
-            e.printStackTrace();
+            handlerFailed("editTaskDescription", e);
             sendMessage(chatId, "❌ Ошибка при обновлении описания");
         }
     }
 
     private void handleEditTaskDeadlineInput(String deadlineInput, Long chatId, Long userId) {
         if (deadlineInput.equals("🔙 Назад")) {
-            userStates.put(userId, UserState.EDITING_TASK_DESCRIPTION);
+            setUserState(userId, UserState.EDITING_TASK_DESCRIPTION);
             sendMessage(chatId, "Введите новое описание задачи:");
             return;
         }
 
         try {
-            Long taskId = editingTasks.get(userId);
-            Task task = taskService.getTaskById(taskId).get();
-            if (task.getUserOwnerId().equals(userId)) {
-                if (deadlineInput.equalsIgnoreCase("нет")) {
-                    task.setDeadlineTime(null);
-                } else if (DATE_PATTERN.matcher(deadlineInput).matches()) {
-                    Date newDeadline = DATE_FORMAT.parse(deadlineInput);
-                    if (newDeadline.before(new Date())) {
-                        sendMessage(chatId, "❌ Дата не может быть в прошлом. Введите корректную дату:");
-                        return;
-                    }
-                    task.setDeadlineTime(newDeadline);
-                } else {
-                    sendMessage(chatId, "❌ Неверный формат даты. Используйте: ДД.ММ.ГГГГ ЧЧ:MM");
+            Long taskId = conversations.get(userId).getEditingTaskId();
+            Instant newDeadline = DeadlineFormatter.parse(deadlineInput, userZones.getZone(userId));
+            if (deadlineInput.equalsIgnoreCase("нет")) {
+                newDeadline = null;
+            } else if (newDeadline != null) {
+                if (newDeadline.isBefore(Instant.now())) {
+                    sendMessage(chatId, "❌ Дата не может быть в прошлом. Введите корректную дату:");
                     return;
                 }
+            } else {
+                sendMessage(chatId, "❌ Неверный формат даты. Используйте: ДД.ММ.ГГГГ ЧЧ:MM");
+                return;
+            }
 
-                taskService.updateTask(task);
+            if (taskService.updateTaskDeadline(taskId, userId, newDeadline)) {
                 sendMessage(chatId, "✅ Задача полностью обновлена!");
                 showUserTasks(chatId, userId);
 
-                userStates.put(userId, UserState.MAIN_MENU);
-                editingTasks.remove(userId);
+                setUserState(userId, UserState.MAIN_MENU);
+            } else {
+                handleEditedTaskMissing(chatId, userId);
             }
         } catch (Exception e) {
-            e.printStackTrace();
+            handlerFailed("editTaskDeadline", e);
             sendMessage(chatId, "❌ Ошибка при обновлении дедлайна");
         }
     }
 
+    // Задачу удалили или она чужая - выходим из редактирования
+    private void handleEditedTaskMissing(Long chatId, Long userId) {
+        setUserState(userId, UserState.MAIN_MENU);
+        sendMessage(chatId, "❌ Задача не найдена");
+        sendWelcomeMessage(chatId);
+    }
+
     private void showUpcomingDeadlines(Long chatId, Long userId) {
-        Date threeDaysLater = new Date(System.currentTimeMillis() + 3 * 24 * 60 * 60 * 1000);
-        List<Task> upcomingTasks = taskService.getTaskListByUser(userId).stream()
-                .filter(task -> task.getDeadlineTime() != null && task.getDeadlineTime().before(threeDaysLater))
-                .sorted(Comparator.comparing(Task::getDeadlineTime))
-                .collect(Collectors.toList());
+        List<TaskView> upcomingTasks = taskService.getUpcomingDeadlines(userId, UPCOMING_DEADLINES_WINDOW);
 
         if (upcomingTasks.isEmpty()) {
             sendMessage(chatId, "🎉 Нет задач с ближайшими дедлайнами!");
             return;
         }
 
+        ZoneId zone = userZones.getZone(userId);
+
         StringBuilder messageText = new StringBuilder("⏰ Ближайшие дедлайны:\n\n");
 
-        for (Task task : upcomingTasks) {
-            long hoursLeft = (task.getDeadlineTime().getTime() - System.currentTimeMillis()) / (60 * 60 * 1000);
-            String timeLeft = hoursLeft < 24 ? "(" + hoursLeft + " часов)" : "(" + (hoursLeft / 24) + " дней)";
+        for (TaskView task : upcomingTasks) {
+            long hoursLeft = (task.getDeadlineTime().toEpochMilli() - System.currentTimeMillis()) / (60 * 60 * 1000);
+            String timeLeft = hoursLeft < 0 ? "(просрочено)"
+                    : hoursLeft < 24 ? "(" + hoursLeft + " часов)" : "(" + (hoursLeft / 24) + " дней)";
 
             messageText.append("• ").append(task.getName())
-                    .append(" - ").append(DATE_FORMAT.format(task.getDeadlineTime()))
+                    .append(" - ").append(DeadlineFormatter.format(task.getDeadlineTime(), zone))
                     .append(" ").append(timeLeft)
                     .append("\n");
         }
@@ -531,57 +736,199 @@ public class TelegramBot extends TelegramLongPollingBot {
         SendMessage message = new SendMessage();
         message.setChatId(chatId.toString());
         message.setText(messageText.toString());
-        message.setReplyMarkup(createMainKeyboard());
+        message.setReplyMarkup(ReplyKeyboards.MAIN_MENU);
 
-        try {
-            execute(message);
-        } catch (TelegramApiException e) {
-            e.printStackTrace();
-        }
+        outboundSender.send(message);
     }
 
     private void showUserTasks(Long chatId, Long userId) {
-        List<Task> tasks = taskService.getTaskListByUser(userId);
+        replyAsync("showUserTasks", chatId, "❌ Не удалось загрузить задачи",
+                asyncTasks.getFirstTaskPageAsync(userId, TASKS_PAGE_SIZE), page -> sendTasksPage(chatId, userId, page));
+    }
 
-        if (tasks.isEmpty()) {
+    private void sendTasksPage(Long chatId, Long userId, TaskPage page) {
+        if (page.isEmpty()) {
             sendMessage(chatId, "📋 У вас пока нет задач");
             return;
         }
 
-        StringBuilder tasksText = new StringBuilder("📋 Ваши задачи:\n\n");
+        ZoneId zone = userZones.getZone(userId);
+        SendMessage message = new SendMessage();
+        message.setChatId(chatId.toString());
+        message.setText(TaskViewRenderer.renderTasksPage(page, zone, fragmentCache));
+        message.setReplyMarkup(TaskViewRenderer.tasksKeyboard(page, fragmentCache, zone));
 
-        for (Task task : tasks) {
-            tasksText.append("• ").append(task.getName())
-                    .append(" [").append(task.getTaskStatus()).append("]");
+        outboundSender.send(message);
+    }
 
-            if (task.getDeadlineTime() != null) {
-                tasksText.append(" - ⏰ ").append(DATE_FORMAT.format(task.getDeadlineTime()));
-            }
+    private void editTasksPageAsync(Long chatId, Long userId, Integer messageId, CompletableFuture<TaskPage> page) {
+        replyAsync("editTasksPage", chatId, "❌ Не удалось загрузить задачи",
+                page, loaded -> editTasksPage(chatId, userId, messageId, loaded));
+    }
 
-            tasksText.append("\n");
+    private void editTasksPage(Long chatId, Long userId, Integer messageId, TaskPage page) {
+        // страница могла опустеть, если задачи удалили из другого сообщения
+        if (page.isEmpty()) {
+            EditMessageText editMessage = new EditMessageText();
+            editMessage.setChatId(chatId.toString());
+            editMessage.setMessageId(messageId);
+            editMessage.setText("📋 На этой странице больше нет задач");
+            editMessage.setReplyMarkup(TaskViewRenderer.backToTasksKeyboard());
+            outboundSender.send(editMessage);
+            return;
         }
 
-        SendMessage message = new SendMessage();
-        message.setChatId(chatId.toString());
-        message.setText(tasksText.toString());
-        message.setReplyMarkup(createTasksKeyboard(tasks));
+        ZoneId zone = userZones.getZone(userId);
+        EditMessageText editMessage = new EditMessageText();
+        editMessage.setChatId(chatId.toString());
+        editMessage.setMessageId(messageId);
+        editMessage.setText(TaskViewRenderer.renderTasksPage(page, zone, fragmentCache));
+        editMessage.setReplyMarkup(TaskViewRenderer.tasksKeyboard(page, fragmentCache, zone));
+        outboundSender.send(editMessage);
+    }
+
+
+    private void startSelection(Long chatId, Long userId, Integer messageId) {
+        Conversation conversation = new Conversation();
+        conversation.setState(UserState.SELECTING_TASKS);
+        conversations.put(userId, conversation);
+        showSelection(chatId, userId, messageId, conversation);
+    }
 
+    // Меняет выбор и перерисовывает то же сообщение
+    private void updateSelection(Long chatId, Long userId, Integer messageId, BiConsumer<Long, Conversation> change) {
+        Conversation conversation = conversations.get(userId);
+        if (conversation == null || conversation.getState() != UserState.SELECTING_TASKS) {
+            selectionClosed(chatId, messageId);
+            return;
+        }
+        change.accept(userId, conversation);
+        conversations.put(userId, conversation);
+        showSelection(chatId, userId, messageId, conversation);
+    }
+
+    private static void turnSelectionPage(Conversation conversation, TaskCursor cursor, boolean backward) {
+        conversation.setSelectionCursor(cursor.asString());
+        conversation.setSelectionBackward(backward);
+    }
+
+    private TaskPage selectionPage(Long userId, Conversation conversation) {
+        if (conversation.getSelectionCursor() == null) {
+            return taskService.getFirstTaskPage(userId, SELECTION_PAGE_SIZE);
+        }
+        TaskCursor cursor = TaskCursor.parse(conversation.getSelectionCursor());
+        return conversation.isSelectionBackward()
+                ? taskService.getTaskPageBefore(userId, cursor, SELECTION_PAGE_SIZE)
+                : taskService.getTaskPageAfter(userId, cursor, SELECTION_PAGE_SIZE);
+    }
+
+    private static List<Long> taskIds(TaskPage page) {
+        List<Long> ids = new ArrayList<>(page.getTasks().size());
+        for (Task task : page.getTasks()) {
+            ids.add(task.getId());
+        }
+        return ids;
+    }
+
+    private void showSelection(Long chatId, Long userId, Integer messageId, Conversation conversation) {
+        TaskPage page = selectionPage(userId, conversation);
+        // страница могла опустеть, если задачи удалили из другого сообщения
+        if (page.isEmpty() && conversation.getSelectionCursor() != null) {
+            conversation.setSelectionCursor(null);
+            conversations.put(userId, conversation);
+            page = selectionPage(userId, conversation);
+        }
+        if (page.isEmpty()) {
+            finishSelection(chatId, userId, messageId, "📋 У вас пока нет задач");
+            return;
+        }
+
+        Set<Long> selected = conversation.getSelectedTaskIds() == null
+                ? Collections.emptySet() : conversation.getSelectedTaskIds();
+        EditMessageText editMessage = new EditMessageText();
+        editMessage.setChatId(chatId.toString());
+        editMessage.setMessageId(messageId);
+        editMessage.setText(TaskViewRenderer.renderSelectionPage(selected.size()));
+        editMessage.setReplyMarkup(TaskViewRenderer.selectionKeyboard(page, selected));
+        outboundSender.send(editMessage);
+    }
+
+    /**
+     * @return отмеченные задачи или null, если режим выбора уже закрыт
+     */
+    private Set<Long> selectedTasks(Long userId) {
+        Conversation conversation = conversations.get(userId);
+        if (conversation == null || conversation.getState() != UserState.SELECTING_TASKS) {
+            return null;
+        }
+        return conversation.getSelectedTaskIds() == null ? Collections.emptySet() : conversation.getSelectedTaskIds();
+    }
+
+    private void bulkSetStatus(Long chatId, Long userId, Integer messageId, TaskStatus newStatus) {
+        Set<Long> selected = selectedTasks(userId);
+        if (selected == null) {
+            selectionClosed(chatId, messageId);
+            return;
+        }
+        if (newStatus == null) {
+            sendMessage(chatId, "❌ Неизвестный статус");
+            return;
+        }
+        try {
+            int updated = newStatus == TaskStatus.DONE
+                    ? taskService.completeAll(userId, selected)
+                    : taskService.moveAll(userId, selected, newStatus);
+            finishSelection(chatId, userId, messageId, "📊 Статус " + newStatus + " установлен у задач: " + updated);
+        } catch (Exception e) {
+            handlerFailed("bulkSetStatus", e);
+            sendMessage(chatId, "❌ Ошибка при изменении статуса");
+        }
+    }
+
+    private void bulkDelete(Long chatId, Long userId, Integer messageId) {
+        Set<Long> selected = selectedTasks(userId);
+        if (selected == null) {
+            selectionClosed(chatId, messageId);
+            return;
+        }
         try {
-            execute(message);
-        } catch (TelegramApiException e) {
-            e.printStackTrace();
+            int deleted = taskService.deleteAll(userId, selected);
+            finishSelection(chatId, userId, messageId, "🗑️ Удалено задач: " + deleted);
+        } catch (Exception e) {
+            handlerFailed("bulkDelete", e);
+            sendMessage(chatId, "❌ Ошибка при удалении задач");
         }
     }
 
+    private void finishSelection(Long chatId, Long userId, Integer messageId, String text) {
+        setUserState(userId, UserState.MAIN_MENU);
+        EditMessageText editMessage = new EditMessageText();
+        editMessage.setChatId(chatId.toString());
+        editMessage.setMessageId(messageId);
+        editMessage.setText(text);
+        editMessage.setReplyMarkup(TaskViewRenderer.backToTasksKeyboard());
+        outboundSender.send(editMessage);
+    }
+
+    // кнопка из старого сообщения после того, как выбор завершили или начали заново
+    private void selectionClosed(Long chatId, Integer messageId) {
+        EditMessageText editMessage = new EditMessageText();
+        editMessage.setChatId(chatId.toString());
+        editMessage.setMessageId(messageId);
+        editMessage.setText("⌛ Выбор задач уже завершен");
+        editMessage.setReplyMarkup(TaskViewRenderer.backToTasksKeyboard());
+        outboundSender.send(editMessage);
+    }
+
     private void showCompletedTasks(Long chatId, Long userId) {
-        List<Task> tasks = taskService.getTaskByUserIdAndStatus(userId, TaskStatus.DONE);
+        List<TaskView> tasks = taskService.getTaskViewsByStatus(userId, TaskStatus.DONE);
 
         StringBuilder tasksText = new StringBuilder("✅ Выполненные задачи:\n\n");
 
         if (tasks.isEmpty()) {
             tasksText.append("Нет выполненных задач");
         } else {
-            for (Task task : tasks) {
+            for (TaskView task : tasks) {
                 tasksText.append("• ").append(task.getName()).append(" ✓\n");
             }
         }
@@ -589,24 +936,20 @@ public class TelegramBot extends TelegramLongPollingBot {
         SendMessage message = new SendMessage();
         message.setChatId(chatId.toString());
         message.setText(tasksText.toString());
-        message.setReplyMarkup(createMainKeyboard());
+        message.setReplyMarkup(ReplyKeyboards.MAIN_MENU);
 
-        try {
-            execute(message);
-        } catch (TelegramApiException e) {
-            e.printStackTrace();
-        }
+        outboundSender.send(message);
     }
 
     private void showInProgressTasks(Long chatId, Long userId) {
-        List<Task> tasks = taskService.getTaskByUserIdAndStatus(userId, TaskStatus.IN_PROGRESS);
+        List<TaskView> tasks = taskService.getTaskViewsByStatus(userId, TaskStatus.IN_PROGRESS);
 
         StringBuilder tasksText = new StringBuilder("🔄 Задачи в процессе:\n\n");
 
         if (tasks.isEmpty()) {
             tasksText.append("Нет задач в процессе выполнения");
         } else {
-            for (Task task : tasks) {
+            for (TaskView task : tasks) {
                 tasksText.append("• ").append(task.getName()).append("\n");
             }
         }
@@ -615,14 +958,14 @@ public class TelegramBot extends TelegramLongPollingBot {
     }
 
     private void showBacklogTasks(Long chatId, Long userId) {
-        List<Task> tasks = taskService.getTaskByUserIdAndStatus(userId, TaskStatus.BACKLOG);
+        List<TaskView> tasks = taskService.getTaskViewsByStatus(userId, TaskStatus.BACKLOG);
 
         StringBuilder tasksText = new StringBuilder("📥 Задачи в бэклоге:\n\n");
 
         if (tasks.isEmpty()) {
             tasksText.append("Нет задач в бэклоге");
         } else {
-            for (Task task : tasks) {
+            for (TaskView task : tasks) {
                 tasksText.append("• ").append(task.getName()).append("\n");
             }
         }
@@ -630,196 +973,259 @@ public class TelegramBot extends TelegramLongPollingBot {
         sendMessage(chatId, tasksText.toString());
     }
 
-    private void showSettings(Long chatId) {
+    private void showStats(Long chatId, Long userId) {
+        TaskStats stats = taskService.getTaskStats(userId);
+        if (stats.getTotal() == 0) {
+            sendMessage(chatId, "📊 У вас пока нет задач");
+            return;
+        }
+
+        StringBuilder text = new StringBuilder("📊 Статистика:\n\n")
+                .append("Всего задач: ").append(stats.getTotal()).append("\n");
+        for (TaskStatus status : TaskStatus.values()) {
+            text.append("• ").append(status).append(": ").append(stats.getCount(status)).append("\n");
+        }
+        text.append("\nПо категориям:\n");
+        for (Category category : Category.values()) {
+            text.append("• ").append(category).append(": ").append(stats.getCount(category)).append("\n");
+        }
+        text.append("\n⚠️ Просрочено: ").append(stats.getOverdue())
+                .append(String.format(Locale.ROOT, "\n✅ Выполнено: %.0f%%", stats.getCompletionRate() * 100));
+        if (stats.getAverageTimeAmount() != null) {
+            text.append(String.format(Locale.ROOT, "\n⏱ Среднее время на задачу: %.1f", stats.getAverageTimeAmount()));
+        }
+
+        sendMessage(chatId, text.toString());
+    }
+
+    private void showSettings(Long chatId, Long userId) {
         String settingsText = "⚙️ Настройки:\n\n" +
                 "• Уведомления: ✅ Вкл\n" +
                 "• Время напоминаний: 09:00\n" +
                 "• Язык: Русский\n" +
-                "• Часовой пояс: UTC+3";
+                "• Часовой пояс: " + userZones.getZone(userId).getId() + "\n\n" +
+                "Сменить часовой пояс: /tz Europe/Moscow или /tz +03:00";
 
         SendMessage message = new SendMessage();
         message.setChatId(chatId.toString());
         message.setText(settingsText);
-        message.setReplyMarkup(createMainKeyboard());
+        message.setReplyMarkup(ReplyKeyboards.MAIN_MENU);
 
+        outboundSender.send(message);
+    }
+
+    private void changeTimeZone(Long chatId, Long userId, String zoneId) {
+        if (zoneId.isEmpty()) {
+            sendMessage(chatId, "🌍 Ваш часовой пояс: " + userZones.getZone(userId).getId()
+                    + "\nЧтобы сменить, отправьте: /tz Europe/Moscow или /tz +03:00");
+            return;
+        }
         try {
-            execute(message);
-        } catch (TelegramApiException e) {
-            e.printStackTrace();
+            ZoneId zone = userZones.setZone(userId, zoneId);
+            sendMessage(chatId, "✅ Часовой пояс изменен на: " + zone.getId());
+        } catch (DateTimeException e) {
+            sendMessage(chatId, "❌ Неизвестный часовой пояс: " + zoneId + "\nНапример: /tz Europe/Moscow или /tz +03:00");
         }
     }
 
-    private void showHelp(Long chatId) {
-        String helpText = "❓ Помощь:\n\n" +
-                "• Добавьте задачу через кнопку \"📝 Добавить задачу\"\n" +
-                "• Укажите дедлайн в формате: ДД.ММ.ГГГГ ЧЧ:MM\n" +
-                "• Просматривайте задачи в \"📋 Мои задачи\"\n" +
-                "• Следите за ближайшими дедлайнами в \"⏰ Ближайшие дедлайны\"\n" +
-                "• Отмечайте выполненные задачи\n\n" +
-                "📅 Формат даты: 25.12.2025 15:30";
+    private void startImport(Long chatId, Long userId, String inlineTasks) {
+        // задачи могут прийти прямо в команде: "/import" и строки задач в том же сообщении
+        if (!inlineTasks.isEmpty()) {
+            importTasks(chatId, userId, TaskImportParser.parse(inlineTasks, userId, userZones.getZone(userId)));
+            return;
+        }
+        setUserState(userId, UserState.IMPORTING_TASKS);
 
         SendMessage message = new SendMessage();
         message.setChatId(chatId.toString());
-        message.setText(helpText);
-        message.setReplyMarkup(createMainKeyboard());
+        message.setText("📥 Отправьте задачи сообщением или .txt файлом, по одной на строку:\n\n" +
+                "название | описание | 25.12.2025 15:30\n\n" +
+                "Описание и дедлайн можно не указывать. За раз - до " + TaskImportParser.MAX_TASKS + " задач.");
+        message.setReplyMarkup(ReplyKeyboards.BACK);
+        outboundSender.send(message);
+    }
 
-        try {
-            execute(message);
-        } catch (TelegramApiException e) {
-            e.printStackTrace();
+    private void handleImportInput(String messageText, Long chatId, Long userId) {
+        if (messageText.equals("🔙 Назад")) {
+            sendWelcomeMessage(chatId);
+            setUserState(userId, UserState.MAIN_MENU);
+            return;
         }
+        importTasks(chatId, userId, TaskImportParser.parse(messageText, userId, userZones.getZone(userId)));
     }
 
-    private void sendWelcomeMessage(Long chatId) {
-        String welcomeText = "👋 Добро пожаловать в Task Manager Bot!\n\n" +
-                "Управляйте своими задачами с помощью кнопок ниже:";
-
-        SendMessage message = new SendMessage();
-        message.setChatId(chatId.toString());
-        message.setText(welcomeText);
-        message.setReplyMarkup(createMainKeyboard());
+    private void handleDocument(Message message) {
+        Long chatId = message.getChatId();
+        Long userId = message.getFrom().getId();
+        if (getUserState(userId) != UserState.IMPORTING_TASKS) {
+            sendMessage(chatId, "Чтобы импортировать задачи из файла, сначала отправьте /import");
+            return;
+        }
+        Document document = message.getDocument();
+        if (document.getFileSize() != null && document.getFileSize() > MAX_IMPORT_FILE_BYTES) {
+            sendMessage(chatId, "❌ Файл слишком большой, максимум " + MAX_IMPORT_FILE_BYTES / 1024 + " КБ");
+            return;
+        }
 
+        TaskImportParser.Result result;
         try {
-            execute(message);
-        } catch (TelegramApiException e) {
-            e.printStackTrace();
+            ZoneId zone = userZones.getZone(userId);
+            result = blockingCalls.telegram().call(() -> {
+                File file = execute(new GetFile(document.getFileId()));
+                try (Reader reader = new InputStreamReader(downloadFileAsStream(file), StandardCharsets.UTF_8)) {
+                    return TaskImportParser.parse(reader, userId, zone);
+                }
+            });
+        } catch (Exception e) {
+            handlerFailed("importFile", e);
+            sendMessage(chatId, "❌ Не удалось прочитать файл");
+            return;
         }
+        importTasks(chatId, userId, result);
     }
 
-    // Клавиатуры
-    private ReplyKeyboardMarkup createMainKeyboard() {
-        ReplyKeyboardMarkup keyboardMarkup = new ReplyKeyboardMarkup();
-        keyboardMarkup.setResizeKeyboard(true);
-        keyboardMarkup.setOneTimeKeyboard(false);
-        keyboardMarkup.setSelective(true);
-
-        List<KeyboardRow> keyboard = new ArrayList<>();
-
-        KeyboardRow row1 = new KeyboardRow();
-        row1.add("📝 Добавить задачу");
-        row1.add("📋 Мои задачи");
-
-        KeyboardRow row2 = new KeyboardRow();
-        row2.add("⏰ Ближайшие дедлайны");
-        row2.add("✅ Выполненные");
-
-        KeyboardRow row3 = new KeyboardRow();
-        row3.add("🔄 В процессе");
-        row3.add("📥 Бэклог");
-
-        KeyboardRow row4 = new KeyboardRow();
-        row4.add("⚙️ Настройки");
-        row4.add("❓ Помощь");
+    private void importTasks(Long chatId, Long userId, TaskImportParser.Result result) {
+        int created;
+        try {
+            created = taskService.createTasks(result.getTasks()).size();
+        } catch (Exception e) {
+            handlerFailed("importTasks", e);
+            sendMessage(chatId, "❌ Ошибка при импорте задач");
+            return;
+        }
 
-        keyboard.add(row1);
-        keyboard.add(row2);
-        keyboard.add(row3);
-        keyboard.add(row4);
+        StringBuilder text = new StringBuilder();
+        if (created > 0) {
+            text.append("📥 Импортировано задач: ").append(created);
+        } else {
+            text.append("❌ Не найдено ни одной задачи");
+        }
+        if (result.isTruncated()) {
+            text.append("\nОбработаны только первые ").append(TaskImportParser.MAX_TASKS).append(" задач");
+        }
+        if (result.getErrorCount() > 0) {
+            text.append("\n\n⚠️ Пропущено строк: ").append(result.getErrorCount());
+            for (String error : result.getErrors()) {
+                text.append("\n• ").append(error);
+            }
+        }
 
-        keyboardMarkup.setKeyboard(keyboard);
-        return keyboardMarkup;
+        SendMessage message = new SendMessage();
+        message.setChatId(chatId.toString());
+        message.setText(text.toString());
+        if (created > 0) {
+            setUserState(userId, UserState.MAIN_MENU);
+            message.setReplyMarkup(ReplyKeyboards.MAIN_MENU);
+        }
+        // если ничего не создано, пользователь остается в режиме импорта и может прислать исправленный список
+        outboundSender.send(message);
     }
 
-    private InlineKeyboardMarkup createTasksKeyboard(List<Task> tasks) {
-        InlineKeyboardMarkup keyboardMarkup = new InlineKeyboardMarkup();
-        List<List<InlineKeyboardButton>> rows = new ArrayList<>();
-
-        for (Task task : tasks) {
-            List<InlineKeyboardButton> infoRow = new ArrayList<>();
-            InlineKeyboardButton infoButton = new InlineKeyboardButton();
-            infoButton.setText("📝 " + task.getName() + " [" + task.getTaskStatus() + "]");
-            infoButton.setCallbackData("info_" + task.getId());
-            infoRow.add(infoButton);
-            rows.add(infoRow);
+    private void searchTasks(Long chatId, Long userId, String query) {
+        if (query.isEmpty()) {
+            sendMessage(chatId, "🔍 Напишите, что искать, например: /search отчет для клиента");
+            return;
+        }
+        if (query.length() > MAX_SEARCH_QUERY_LENGTH) {
+            query = query.substring(0, MAX_SEARCH_QUERY_LENGTH);
+        }
 
-            List<InlineKeyboardButton> actionRow = new ArrayList<>();
+        TaskSearchIndex.Page page;
+        try {
+            page = taskSearch.search(userId, query, 0, SEARCH_PAGE_SIZE);
+        } catch (Exception e) {
+            handlerFailed("search", e);
+            sendMessage(chatId, "❌ Ошибка при поиске");
+            return;
+        }
 
-            InlineKeyboardButton completeButton = new InlineKeyboardButton();
-            completeButton.setText("✅ Выполнено");
-            completeButton.setCallbackData("complete_" + task.getId());
-            actionRow.add(completeButton);
+        SendMessage message = new SendMessage();
+        message.setChatId(chatId.toString());
+        message.setText(TaskViewRenderer.renderSearchPage(query, page));
+        if (page.getTotal() > 0) {
+            message.setReplyMarkup(TaskViewRenderer.searchKeyboard(page, queryKey(query)));
+        }
+        outboundSender.send(message);
+    }
 
-            InlineKeyboardButton editButton = new InlineKeyboardButton();
-            editButton.setText("✏️ Редактировать");
-            editButton.setCallbackData("edit_" + task.getId());
-            actionRow.add(editButton);
+    private void turnSearchPage(Long chatId, Long userId, Integer messageId, long queryKey, int offset) {
+        EditMessageText editMessage = new EditMessageText();
+        editMessage.setChatId(chatId.toString());
+        editMessage.setMessageId(messageId);
 
-            rows.add(actionRow);
+        // кнопки несут только ключ запроса; если с тех пор искали другое, листать уже нечего
+        String query = taskSearch.lastQuery(userId);
+        if (query == null || queryKey(query) != queryKey) {
+            editMessage.setText("🔍 Результаты устарели, повторите поиск: /search ...");
+            outboundSender.send(editMessage);
+            return;
+        }
 
-            List<InlineKeyboardButton> statusRow = new ArrayList<>();
+        TaskSearchIndex.Page page = taskSearch.search(userId, query, offset, SEARCH_PAGE_SIZE);
+        editMessage.setText(TaskViewRenderer.renderSearchPage(query, page));
+        if (page.getTotal() > 0) {
+            editMessage.setReplyMarkup(TaskViewRenderer.searchKeyboard(page, queryKey(query)));
+        }
+        outboundSender.send(editMessage);
+    }
 
-            if (task.getTaskStatus() != TaskStatus.IN_PROGRESS) {
-                InlineKeyboardButton inProgressButton = new InlineKeyboardButton();
-                inProgressButton.setText("🔄 В процессе");
-                inProgressButton.setCallbackData("status_" + task.getId() + "_IN_PROGRESS");
-                statusRow.add(inProgressButton);
-            }
+    private static int queryKey(String query) {
+        return query.hashCode() & Integer.MAX_VALUE;
+    }
 
-            if (task.getTaskStatus() != TaskStatus.BACKLOG) {
-                InlineKeyboardButton backlogButton = new InlineKeyboardButton();
-                backlogButton.setText("📥 В бэклог");
-                backlogButton.setCallbackData("status_" + task.getId() + "_BACKLOG");
-                statusRow.add(backlogButton);
+    private void exportTasks(Long chatId, Long userId, String formatName) {
+        TaskExportFormat format = TaskExportFormat.parse(formatName);
+        if (format == null) {
+            sendMessage(chatId, "❌ Неизвестный формат. Используйте: /export csv или /export json");
+            return;
+        }
+        sendMessage(chatId, "⏳ Готовлю файл с задачами...");
+        // выгрузка идет в своем пуле, воркер апдейтов не ждет, пока файл уйдет в Telegram
+        taskExportService.sendExport(chatId, userId, format).whenComplete((count, error) -> {
+            if (error == null) {
+                return;
             }
-
-            if (!statusRow.isEmpty()) {
-                rows.add(statusRow);
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof RejectedExecutionException) {
+                sendMessage(chatId, "⏳ Сейчас выгружается слишком много файлов, попробуйте через минуту");
+            } else {
+                handlerFailed("exportTasks", cause);
+                sendMessage(chatId, "❌ Не удалось выгрузить задачи");
             }
-
-            List<InlineKeyboardButton> deleteRow = new ArrayList<>();
-            InlineKeyboardButton deleteButton = new InlineKeyboardButton();
-            deleteButton.setText("❌ Удалить");
-            deleteButton.setCallbackData("delete_" + task.getId());
-            deleteRow.add(deleteButton);
-            rows.add(deleteRow);
-
-            List<InlineKeyboardButton> separatorRow = new ArrayList<>();
-            InlineKeyboardButton separatorButton = new InlineKeyboardButton();
-            separatorButton.setText("────────────");
-            separatorButton.setCallbackData("separator");
-            separatorRow.add(separatorButton);
-            rows.add(separatorRow);
-        }
-
-        List<InlineKeyboardButton> backRow = new ArrayList<>();
-        InlineKeyboardButton backButton = new InlineKeyboardButton();
-        backButton.setText("🔙 Назад в меню");
-        backButton.setCallbackData("back_to_main");
-        backRow.add(backButton);
-        rows.add(backRow);
-
-        keyboardMarkup.setKeyboard(rows);
-        return keyboardMarkup;
+        });
     }
 
-    private InlineKeyboardMarkup createBackToTasksKeyboard() {
-        InlineKeyboardMarkup keyboardMarkup = new InlineKeyboardMarkup();
-        List<List<InlineKeyboardButton>> rows = new ArrayList<>();
+    private void showHelp(Long chatId) {
+        String helpText = "❓ Помощь:\n\n" +
+                "• Добавьте задачу через кнопку \"📝 Добавить задачу\"\n" +
+                "• Укажите дедлайн в формате: ДД.ММ.ГГГГ ЧЧ:MM\n" +
+                "• Просматривайте задачи в \"📋 Мои задачи\"\n" +
+                "• Следите за ближайшими дедлайнами в \"⏰ Ближайшие дедлайны\"\n" +
+                "• Смотрите сводку по задачам в \"📊 Статистика\"\n" +
+                "• Отмечайте выполненные задачи\n" +
+                "• Ищите задачи по словам командой /search\n" +
+                "• Импортируйте список задач командой /import\n" +
+                "• Выгрузите все задачи в файл командой /export (или /export json)\n\n" +
+                "📅 Формат даты: 25.12.2025 15:30";
 
-        List<InlineKeyboardButton> row = new ArrayList<>();
-        InlineKeyboardButton backButton = new InlineKeyboardButton();
-        backButton.setText("🔙 К списку задач");
-        backButton.setCallbackData("back_to_tasks");
-        row.add(backButton);
+        SendMessage message = new SendMessage();
+        message.setChatId(chatId.toString());
+        message.setText(helpText);
+        message.setReplyMarkup(ReplyKeyboards.MAIN_MENU);
 
-        rows.add(row);
-        keyboardMarkup.setKeyboard(rows);
-        return keyboardMarkup;
+        outboundSender.send(message);
     }
 
-    private ReplyKeyboardMarkup createBackKeyboard() {
-        ReplyKeyboardMarkup keyboardMarkup = new ReplyKeyboardMarkup();
-        keyboardMarkup.setResizeKeyboard(true);
-        keyboardMarkup.setOneTimeKeyboard(true);
-
-        List<KeyboardRow> keyboard = new ArrayList<>();
+    private void sendWelcomeMessage(Long chatId) {
+        String welcomeText = "👋 Добро пожаловать в Task Manager Bot!\n\n" +
+                "Управляйте своими задачами с помощью кнопок ниже:";
 
-        KeyboardRow row = new KeyboardRow();
-        row.add("🔙 Назад");
+        SendMessage message = new SendMessage();
+        message.setChatId(chatId.toString());
+        message.setText(welcomeText);
+        message.setReplyMarkup(ReplyKeyboards.MAIN_MENU);
 
-        keyboard.add(row);
-        keyboardMarkup.setKeyboard(keyboard);
-        return keyboardMarkup;
+        outboundSender.send(message);
     }
 
     private void sendMessage(Long chatId, String text) {
@@ -827,11 +1233,11 @@ public class TelegramBot extends TelegramLongPollingBot {
         message.setChatId(chatId.toString());
         message.setText(text);
 
-        try {
-            execute(message);
-        } catch (TelegramApiException e) {
-            e.printStackTrace();
-        }
+        outboundSender.send(message);
+    }
+
+    public TaskFragmentCache getFragmentCache() {
+        return fragmentCache;
     }
 
     @Override
@@ -0,0 +1,47 @@
+package org.example.callback;
+
+/**
+ * Действия inline-кнопок. Код действия пишется в callback data, поэтому коды менять нельзя:
+ * кнопки в старых сообщениях продолжают их присылать. Новые действия добавляются с новыми кодами.
+ */
+public enum CallbackAction {
+    INFO(1),
+    COMPLETE(2),
+    EDIT(3),
+    SET_STATUS(4),
+    DELETE(5),
+    PAGE_NEXT(6),
+    PAGE_PREV(7),
+    BACK_TO_TASKS(8),
+    BACK_TO_MAIN(9),
+    SEPARATOR(10),
+    // режим выбора нескольких задач
+    SELECT_START(11),
+    SELECT_TOGGLE(12),
+    SELECT_PAGE_NEXT(13),
+    SELECT_PAGE_PREV(14),
+    SELECT_PAGE_ALL(15),
+    SELECT_CANCEL(16),
+    BULK_SET_STATUS(17),
+    BULK_DELETE(18),
+    // листание результатов /search: id - ключ запроса, arg - смещение
+    SEARCH_PAGE(19);
+
+    private static final CallbackAction[] BY_CODE = new CallbackAction[32];
+
+    static {
+        for (CallbackAction action : values()) {
+            BY_CODE[action.code] = action;
+        }
+    }
+
+    final int code;
+
+    CallbackAction(int code) {
+        this.code = code;
+    }
+
+    static CallbackAction ofCode(int code) {
+        return code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+}
@@ -0,0 +1,162 @@
+package org.example.callback;
+
+import org.example.models.TaskStatus;
+
+import java.util.Arrays;
+
+/**
+ * Компактное кодирование callback data кнопок.
+ * <p>
+ * Формат: байт версии, байт кода действия, затем id и аргумент в varint (аргумент в zigzag),
+ * все это в base64url без паддинга. Самая длинная кнопка (листание) занимает около 20 символов
+ * при лимите Telegram в 64 байта. Версия 1 всегда дает первый символ 'A', а старые текстовые
+ * кнопки вида {@code complete_42} с него не начинаются - их разбирает {@link LegacyCallbackParser}.
+ * <p>
+ * Разбор идет прямо по символам строки, без промежуточных массивов и регулярных выражений.
+ */
+public final class CallbackCodec {
+    static final int VERSION = 1;
+
+    private static final char[] ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+    private static final byte[] DECODE = new byte[128];
+
+    static {
+        Arrays.fill(DECODE, (byte) -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            DECODE[ALPHABET[i]] = (byte) i;
+        }
+    }
+
+    private CallbackCodec() {
+    }
+
+    public static String encode(CallbackAction action) {
+        return encode(action, 0, 0);
+    }
+
+    public static String encode(CallbackAction action, long id) {
+        return encode(action, id, 0);
+    }
+
+    public static String encode(CallbackAction action, long id, TaskStatus status) {
+        return encode(action, id, CallbackData.statusCode(status));
+    }
+
+    public static String encode(CallbackAction action, long id, long arg) {
+        byte[] bytes = new byte[22];
+        bytes[0] = VERSION;
+        bytes[1] = (byte) action.code;
+        int length = writeVarint(bytes, 2, id);
+        length = writeVarint(bytes, length, (arg << 1) ^ (arg >> 63));
+        return toBase64(bytes, length);
+    }
+
+    /**
+     * @return разобранные данные или null, если строка не распознана
+     */
+    public static CallbackData decode(String data) {
+        if (data == null || data.isEmpty()) {
+            return null;
+        }
+        if (data.charAt(0) != 'A') {
+            return LegacyCallbackParser.parse(data);
+        }
+
+        Reader reader = new Reader(data);
+        if (reader.readByte() != VERSION) {
+            return null;
+        }
+        CallbackAction action = CallbackAction.ofCode(reader.readByte());
+        long id = reader.readVarint();
+        long zigzag = reader.readVarint();
+        if (action == null || reader.failed) {
+            return null;
+        }
+        return new CallbackData(action, id, (zigzag >>> 1) ^ -(zigzag & 1));
+    }
+
+    private static int writeVarint(byte[] bytes, int offset, long value) {
+        while ((value & ~0x7FL) != 0) {
+            bytes[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[offset++] = (byte) value;
+        return offset;
+    }
+
+    private static String toBase64(byte[] bytes, int length) {
+        char[] chars = new char[(length * 4 + 2) / 3];
+        int out = 0;
+        int i = 0;
+        for (; i + 2 < length; i += 3) {
+            int block = (bytes[i] & 0xFF) << 16 | (bytes[i + 1] & 0xFF) << 8 | (bytes[i + 2] & 0xFF);
+            chars[out++] = ALPHABET[block >>> 18];
+            chars[out++] = ALPHABET[(block >>> 12) & 0x3F];
+            chars[out++] = ALPHABET[(block >>> 6) & 0x3F];
+            chars[out++] = ALPHABET[block & 0x3F];
+        }
+        int rest = length - i;
+        if (rest == 1) {
+            int block = (bytes[i] & 0xFF) << 16;
+            chars[out++] = ALPHABET[block >>> 18];
+            chars[out++] = ALPHABET[(block >>> 12) & 0x3F];
+        } else if (rest == 2) {
+            int block = (bytes[i] & 0xFF) << 16 | (bytes[i + 1] & 0xFF) << 8;
+            chars[out++] = ALPHABET[block >>> 18];
+            chars[out++] = ALPHABET[(block >>> 12) & 0x3F];
+            chars[out++] = ALPHABET[(block >>> 6) & 0x3F];
+        }
+        return new String(chars, 0, out);
+    }
+
+    /**
+     * Читает байты из base64url-строки по мере надобности, без декодирования всей строки в массив.
+     */
+    private static final class Reader {
+        private final String data;
+        private int position;
+        private int buffer;
+        private int bits;
+        boolean failed;
+
+        Reader(String data) {
+            this.data = data;
+        }
+
+        int readByte() {
+            while (bits < 8) {
+                if (position >= data.length()) {
+                    failed = true;
+                    return -1;
+                }
+                char c = data.charAt(position++);
+                int sextet = c < 128 ? DECODE[c] : -1;
+                if (sextet < 0) {
+                    failed = true;
+                    return -1;
+                }
+                buffer = (buffer << 6) | sextet;
+                bits += 6;
+            }
+            bits -= 8;
+            return (buffer >>> bits) & 0xFF;
+        }
+
+        long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                if (b < 0) {
+                    return 0;
+                }
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            failed = true;
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.example.callback;
+
+import org.example.models.TaskStatus;
+
+/**
+ * Разобранные данные кнопки: действие и до двух числовых аргументов.
+ * <p>
+ * Для действий над задачей {@code id} - id задачи; для смены статуса {@code arg} - код статуса;
+ * для листания {@code id} и {@code arg} - id и время создания (мкс) задачи-курсора.
+ */
+public final class CallbackData {
+    // коды статусов в callback data; порядок в enum может меняться, эти значения - нет
+    private static final TaskStatus[] STATUSES = {TaskStatus.BACKLOG, TaskStatus.IN_PROGRESS, TaskStatus.DONE};
+
+    private final CallbackAction action;
+    private final long id;
+    private final long arg;
+
+    CallbackData(CallbackAction action, long id, long arg) {
+        this.action = action;
+        this.id = id;
+        this.arg = arg;
+    }
+
+    public CallbackAction getAction() { return action; }
+    public long getId() { return id; }
+    public long getArg() { return arg; }
+
+    /**
+     * @return статус из аргумента или null, если код неизвестен
+     */
+    public TaskStatus getStatus() {
+        return arg >= 0 && arg < STATUSES.length ? STATUSES[(int) arg] : null;
+    }
+
+    static long statusCode(TaskStatus status) {
+        for (int i = 0; i < STATUSES.length; i++) {
+            if (STATUSES[i] == status) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("No callback code for status " + status);
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.callback;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Таблица обработчиков кнопок, индексированная кодом действия: маршрутизация - одно обращение по индексу.
+ */
+public final class CallbackRouter<C> {
+
+    @FunctionalInterface
+    public interface Handler<C> {
+        void handle(C context, CallbackData data);
+    }
+
+    private final List<Handler<C>> handlers =
+            new ArrayList<>(Collections.nCopies(CallbackAction.values().length, null));
+
+    public CallbackRouter<C> on(CallbackAction action, Handler<C> handler) {
+        handlers.set(action.ordinal(), handler);
+        return this;
+    }
+
+    /**
+     * @return false, если данные не распознаны или для действия нет обработчика
+     */
+    public boolean route(C context, String callbackData) {
+        return route(context, CallbackCodec.decode(callbackData));
+    }
+
+    /**
+     * @param data уже разобранные данные кнопки или null
+     */
+    public boolean route(C context, CallbackData data) {
+        if (data == null) {
+            return false;
+        }
+        Handler<C> handler = handlers.get(data.getAction().ordinal());
+        if (handler == null) {
+            return false;
+        }
+        handler.handle(context, data);
+        return true;
+    }
+}
@@ -0,0 +1,63 @@
+package org.example.callback;
+
+import org.example.models.TaskStatus;
+
+/**
+ * Разбор текстовых callback data, которые остались на кнопках в сообщениях до перехода на {@link CallbackCodec}.
+ */
+final class LegacyCallbackParser {
+
+    private LegacyCallbackParser() {
+    }
+
+    static CallbackData parse(String data) {
+        try {
+            if (data.startsWith("info_")) {
+                return withId(CallbackAction.INFO, data, "info_".length());
+            } else if (data.startsWith("complete_")) {
+                return withId(CallbackAction.COMPLETE, data, "complete_".length());
+            } else if (data.startsWith("edit_")) {
+                return withId(CallbackAction.EDIT, data, "edit_".length());
+            } else if (data.startsWith("delete_")) {
+                return withId(CallbackAction.DELETE, data, "delete_".length());
+            } else if (data.startsWith("status_")) {
+                // status_<id>_<STATUS>, а в имени статуса тоже бывает '_' (IN_PROGRESS)
+                int separator = data.indexOf('_', "status_".length());
+                if (separator < 0) {
+                    return null;
+                }
+                long id = Long.parseLong(data.substring("status_".length(), separator));
+                TaskStatus status = TaskStatus.valueOf(data.substring(separator + 1));
+                return new CallbackData(CallbackAction.SET_STATUS, id, CallbackData.statusCode(status));
+            } else if (data.startsWith("page_next_")) {
+                return withCursor(CallbackAction.PAGE_NEXT, data, "page_next_".length());
+            } else if (data.startsWith("page_prev_")) {
+                return withCursor(CallbackAction.PAGE_PREV, data, "page_prev_".length());
+            } else if (data.equals("back_to_tasks")) {
+                return new CallbackData(CallbackAction.BACK_TO_TASKS, 0, 0);
+            } else if (data.equals("back_to_main")) {
+                return new CallbackData(CallbackAction.BACK_TO_MAIN, 0, 0);
+            } else if (data.equals("separator")) {
+                return new CallbackData(CallbackAction.SEPARATOR, 0, 0);
+            }
+        } catch (IllegalArgumentException e) {
+            // битые данные или неизвестный статус
+        }
+        return null;
+    }
+
+    private static CallbackData withId(CallbackAction action, String data, int from) {
+        return new CallbackData(action, Long.parseLong(data.substring(from)), 0);
+    }
+
+    // курсор в старом формате: "<микросекунды>:<id>"
+    private static CallbackData withCursor(CallbackAction action, String data, int from) {
+        int separator = data.indexOf(':', from);
+        if (separator < 0) {
+            return null;
+        }
+        long micros = Long.parseLong(data.substring(from, separator));
+        long id = Long.parseLong(data.substring(separator + 1));
+        return new CallbackData(action, id, micros);
+    }
+}
@@ -0,0 +1,85 @@
+package org.example.cluster;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * HTTP-клиент для общения узлов кластера между собой. Все запросы неблокирующие.
+ * <p>
+ * Каждый запрос несет общий секрет кластера: внутренние эндпоинты висят на том же публичном порту,
+ * что и webhook, и без секрета кто угодно мог бы прислать апдейт от имени пользователя или сменить состав.
+ */
+@Component
+@ConditionalOnProperty(name = "telegram.cluster.enabled", havingValue = "true")
+public class ClusterClient {
+    static final String SECRET_HEADER = "X-Cluster-Secret";
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterClient.class);
+
+    private final WebClient webClient;
+    private final ClusterMembership membership;
+    private final String secret;
+    private final Duration timeout;
+
+    public ClusterClient(
+            WebClient.Builder webClientBuilder,
+            ClusterMembership membership,
+            @Value("${telegram.cluster.secret:}") String secret,
+            @Value("${telegram.cluster.timeout-ms:2000}") long timeoutMs) {
+        this.webClient = webClientBuilder.build();
+        this.membership = membership;
+        this.secret = requireSecret(secret);
+        this.timeout = Duration.ofMillis(timeoutMs);
+    }
+
+    static String requireSecret(String secret) {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException(
+                    "telegram.cluster.secret (CLUSTER_SECRET) must be set when the cluster is enabled");
+        }
+        return secret;
+    }
+
+    /**
+     * Пересылает апдейт узлу-владельцу.
+     *
+     * @return true, если владелец принял апдейт; false при отказе или недоступности узла
+     */
+    public Mono<Boolean> forwardUpdate(String node, Update update) {
+        return webClient.post()
+                .uri(membership.urlOf(node).resolve("/internal/update"))
+                .header(SECRET_HEADER, secret)
+                .bodyValue(update)
+                .retrieve()
+                .toBodilessEntity()
+                .timeout(timeout)
+                .map(response -> true)
+                .onErrorResume(e -> {
+                    log.warn("Failed to forward update {} to node {}: {}", update.getUpdateId(), node, e.toString());
+                    return Mono.just(false);
+                });
+    }
+
+    /**
+     * Передает диалоги новому владельцу. Значения - закодированные {@code ConversationCodec} диалоги.
+     */
+    public Mono<Void> transferConversations(String node, Map<Long, String> conversations) {
+        return webClient.post()
+                .uri(membership.urlOf(node).resolve("/internal/conversations"))
+                .header(SECRET_HEADER, secret)
+                .bodyValue(conversations)
+                .retrieve()
+                .toBodilessEntity()
+                .timeout(timeout)
+                .then();
+    }
+}
@@ -0,0 +1,100 @@
+package org.example.cluster;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Состав кластера и владелец каждого пользователя.
+ * <p>
+ * Начальный состав берется из {@code telegram.cluster.nodes} в виде {@code id=url,id=url}.
+ * Все узлы должны получить одинаковый список, иначе они разойдутся во мнении, кто владелец.
+ */
+@Component
+@ConditionalOnProperty(name = "telegram.cluster.enabled", havingValue = "true")
+public class ClusterMembership {
+    private final String self;
+    private final int virtualNodes;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private volatile Map<String, URI> nodes;
+    private volatile ConsistentHashRing ring;
+
+    public ClusterMembership(
+            @Value("${telegram.cluster.self}") String self,
+            @Value("${telegram.cluster.nodes}") String nodes,
+            @Value("${telegram.cluster.virtual-nodes:128}") int virtualNodes,
+            ApplicationEventPublisher eventPublisher) {
+        this.self = self;
+        this.virtualNodes = virtualNodes;
+        this.eventPublisher = eventPublisher;
+        apply(parseNodes(nodes));
+    }
+
+    public String getSelf() {
+        return self;
+    }
+
+    public boolean isLocal(Long userId) {
+        return self.equals(ring.ownerOf(userId));
+    }
+
+    public String ownerOf(Long userId) {
+        return ring.ownerOf(userId);
+    }
+
+    public URI urlOf(String node) {
+        URI url = nodes.get(node);
+        if (url == null) {
+            throw new IllegalArgumentException("Unknown cluster node: " + node);
+        }
+        return url;
+    }
+
+    public Map<String, URI> getNodes() {
+        return nodes;
+    }
+
+    public ConsistentHashRing getRing() {
+        return ring;
+    }
+
+    /**
+     * Заменяет состав кластера и публикует {@link MembershipChangedEvent}.
+     * Переносом диалогов занимается {@link ConversationRebalancer}.
+     */
+    public synchronized void update(Map<String, URI> newNodes) {
+        apply(newNodes);
+        eventPublisher.publishEvent(new MembershipChangedEvent(self, ring));
+    }
+
+    private void apply(Map<String, URI> newNodes) {
+        if (!newNodes.containsKey(self)) {
+            throw new IllegalArgumentException("Cluster membership must contain this node: " + self);
+        }
+        this.nodes = Collections.unmodifiableMap(new LinkedHashMap<>(newNodes));
+        this.ring = new ConsistentHashRing(newNodes.keySet(), virtualNodes);
+    }
+
+    static Map<String, URI> parseNodes(String spec) {
+        Map<String, URI> nodes = new LinkedHashMap<>();
+        for (String item : spec.split(",")) {
+            String trimmed = item.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int eq = trimmed.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Expected id=url in telegram.cluster.nodes: " + trimmed);
+            }
+            nodes.put(trimmed.substring(0, eq).trim(), URI.create(trimmed.substring(eq + 1).trim()));
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,80 @@
+package org.example.cluster;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Кольцо консистентного хеширования с виртуальными узлами.
+ * <p>
+ * Каждый узел занимает {@code virtualNodes} точек на кольце; ключ принадлежит первой точке по часовой стрелке.
+ * При добавлении или удалении узла переезжает примерно 1/N ключей, остальные остаются на месте.
+ * Кольцо неизменяемое: при смене состава строится новое. Поиск - бинарный по отсортированному массиву точек.
+ */
+public final class ConsistentHashRing {
+    private final List<String> nodes;
+    private final long[] points;
+    private final String[] owners;
+
+    public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("Cluster must contain at least one node");
+        }
+        this.nodes = Collections.unmodifiableList(new ArrayList<>(nodes));
+
+        TreeMap<Long, String> ring = new TreeMap<>();
+        for (String node : nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                // при совпадении точек побеждает узел с меньшим именем, чтобы все узлы строили одинаковое кольцо
+                ring.merge(pointOf(node + "#" + i), node, (a, b) -> a.compareTo(b) <= 0 ? a : b);
+            }
+        }
+        this.points = new long[ring.size()];
+        this.owners = new String[ring.size()];
+        int i = 0;
+        for (Map.Entry<Long, String> entry : ring.entrySet()) {
+            points[i] = entry.getKey();
+            owners[i] = entry.getValue();
+            i++;
+        }
+    }
+
+    public String ownerOf(long key) {
+        int index = Arrays.binarySearch(points, mix(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Перемешивание splitmix64: последовательные userId разлетаются по всему кольцу.
+     */
+    static long mix(long key) {
+        long z = key + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static long pointOf(String label) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(label.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
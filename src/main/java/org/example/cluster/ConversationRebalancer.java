@@ -0,0 +1,79 @@
+package org.example.cluster;
+
+import org.example.conversation.Conversation;
+import org.example.conversation.ConversationCodec;
+import org.example.conversation.ConversationStateStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Перенос диалогов после смены состава кластера.
+ * <p>
+ * Каждый узел обходит свои диалоги, находит те, чей владелец по новому кольцу - другой узел,
+ * отправляет их владельцу и забывает локальную копию только после успешной передачи.
+ * Для общего хранилища (jdbc) диалоги уже доступны всем узлам, так что сбрасывается только локальный кэш.
+ * Апдейт пользователя, пришедший новому владельцу раньше его диалога, обработается из главного меню.
+ */
+@Component
+@ConditionalOnProperty(name = "telegram.cluster.enabled", havingValue = "true")
+public class ConversationRebalancer {
+    private static final Logger log = LoggerFactory.getLogger(ConversationRebalancer.class);
+
+    private final ConversationStateStore store;
+    private final ClusterMembership membership;
+    private final ClusterClient client;
+    private final ConversationCodec codec = new ConversationCodec();
+
+    public ConversationRebalancer(ConversationStateStore store, ClusterMembership membership, ClusterClient client) {
+        this.store = store;
+        this.membership = membership;
+        this.client = client;
+    }
+
+    public Mono<Void> rebalance() {
+        Map<String, Map<Long, Conversation>> moves = plan(store, membership.getRing(), membership.getSelf());
+        if (store.isShared()) {
+            moves.values().forEach(conversations -> conversations.keySet().forEach(store::release));
+            return Mono.empty();
+        }
+
+        return Flux.fromIterable(moves.entrySet())
+                .flatMap(move -> {
+                    Map<Long, String> payloads = new HashMap<>();
+                    move.getValue().forEach((userId, conversation) -> payloads.put(userId, codec.encode(conversation)));
+                    return client.transferConversations(move.getKey(), payloads)
+                            .doOnSuccess(ignored -> {
+                                move.getValue().keySet().forEach(store::release);
+                                log.info("Moved {} conversations to node {}", payloads.size(), move.getKey());
+                            })
+                            .onErrorResume(e -> {
+                                log.error("Failed to move conversations to node {}", move.getKey(), e);
+                                return Mono.empty();
+                            });
+                })
+                .then();
+    }
+
+    /**
+     * Группирует по новым владельцам диалоги, которые этому узлу больше не принадлежат.
+     */
+    public static Map<String, Map<Long, Conversation>> plan(
+            ConversationStateStore store, ConsistentHashRing ring, String self) {
+        Map<String, Map<Long, Conversation>> moves = new LinkedHashMap<>();
+        store.forEach((userId, conversation) -> {
+            String owner = ring.ownerOf(userId);
+            if (!owner.equals(self)) {
+                moves.computeIfAbsent(owner, node -> new HashMap<>()).put(userId, conversation);
+            }
+        });
+        return moves;
+    }
+}
@@ -0,0 +1,99 @@
+package org.example.cluster;
+
+import org.example.conversation.ConversationCodec;
+import org.example.conversation.ConversationStateStore;
+import org.example.webhook.UpdateIngress;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Внутренние эндпоинты кластера: прием пересланных апдейтов, прием переезжающих диалогов
+ * и смена состава. Смену состава нужно отправить на каждый узел; каждый сам отдаст чужие диалоги.
+ * Запросы без секрета кластера отклоняются, а без настроенного секрета узел не стартует.
+ */
+@RestController
+@RequestMapping("/internal")
+@ConditionalOnProperty(name = "telegram.cluster.enabled", havingValue = "true")
+public class InternalClusterController {
+    private final UpdateIngress ingress;
+    private final ConversationStateStore store;
+    private final ClusterMembership membership;
+    private final ConversationRebalancer rebalancer;
+    private final byte[] secret;
+    private final ConversationCodec codec = new ConversationCodec();
+
+    public InternalClusterController(
+            UpdateIngress ingress,
+            ConversationStateStore store,
+            ClusterMembership membership,
+            ConversationRebalancer rebalancer,
+            @Value("${telegram.cluster.secret:}") String secret) {
+        this.ingress = ingress;
+        this.store = store;
+        this.membership = membership;
+        this.rebalancer = rebalancer;
+        this.secret = ClusterClient.requireSecret(secret).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @PostMapping("/update")
+    public ResponseEntity<Void> onForwardedUpdate(
+            @RequestHeader(name = ClusterClient.SECRET_HEADER, required = false) String token,
+            @RequestBody Update update) {
+        if (!authorized(token)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ingress.accept(update)
+                ? ResponseEntity.ok().build()
+                : ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+    }
+
+    @PostMapping("/conversations")
+    public ResponseEntity<Void> onConversations(
+            @RequestHeader(name = ClusterClient.SECRET_HEADER, required = false) String token,
+            @RequestBody Map<Long, String> conversations) {
+        if (!authorized(token)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        conversations.forEach((userId, payload) -> store.put(userId, codec.decode(payload)));
+        return ResponseEntity.ok().build();
+    }
+
+    /**
+     * Новый состав в виде {@code {"node-1": "http://host:8080", ...}}.
+     */
+    @PostMapping("/membership")
+    public Mono<ResponseEntity<Void>> onMembership(
+            @RequestHeader(name = ClusterClient.SECRET_HEADER, required = false) String token,
+            @RequestBody Map<String, String> nodes) {
+        if (!authorized(token)) {
+            return Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).<Void>build());
+        }
+        Map<String, URI> parsed = new LinkedHashMap<>();
+        nodes.forEach((node, url) -> parsed.put(node, URI.create(url)));
+        try {
+            membership.update(parsed);
+        } catch (IllegalArgumentException e) {
+            return Mono.just(ResponseEntity.badRequest().<Void>build());
+        }
+        return rebalancer.rebalance().thenReturn(ResponseEntity.ok().<Void>build());
+    }
+
+    private boolean authorized(String token) {
+        return token != null && MessageDigest.isEqual(secret, token.getBytes(StandardCharsets.UTF_8));
+    }
+}
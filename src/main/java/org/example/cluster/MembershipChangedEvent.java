@@ -0,0 +1,25 @@
+package org.example.cluster;
+
+/**
+ * Публикуется {@link ClusterMembership} после смены состава кластера: компоненты, которые держат
+ * состояние только для своих пользователей, пересобирают его по новому кольцу, а кэши выбрасывают
+ * записи пользователей, уехавших на другие узлы: пока пользователь там, изменения его данных сюда не доходят.
+ */
+public class MembershipChangedEvent {
+    private final String self;
+    private final ConsistentHashRing ring;
+
+    public MembershipChangedEvent(String self, ConsistentHashRing ring) {
+        this.self = self;
+        this.ring = ring;
+    }
+
+    public ConsistentHashRing getRing() { return ring; }
+
+    /**
+     * @return true, если по новому кольцу пользователь принадлежит этому узлу
+     */
+    public boolean isLocal(Long userId) {
+        return self.equals(ring.ownerOf(userId));
+    }
+}
@@ -0,0 +1,81 @@
+package org.example.conversation;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.example.models.TaskStatus;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Состояние диалога пользователя: текущий шаг и данные незавершенного добавления/редактирования.
+ * Объект меняется только из потока, который обрабатывает апдейты этого пользователя.
+ */
+public class Conversation {
+    private UserState state = UserState.MAIN_MENU;
+
+    // добавление задачи
+    private String taskName;
+    private String taskDescription;
+    private Instant taskDeadline;
+    private TaskStatus taskStatus = TaskStatus.BACKLOG;
+
+    // редактирование задачи
+    private Long editingTaskId;
+
+    // выбор нескольких задач: отмеченные id и страница, которая сейчас на экране (null - первая)
+    private Set<Long> selectedTaskIds;
+    private String selectionCursor;
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private boolean selectionBackward;
+
+    public UserState getState() { return state; }
+    public void setState(UserState state) { this.state = state; }
+
+    public String getTaskName() { return taskName; }
+    public void setTaskName(String taskName) { this.taskName = taskName; }
+
+    public String getTaskDescription() { return taskDescription; }
+    public void setTaskDescription(String taskDescription) { this.taskDescription = taskDescription; }
+
+    public Instant getTaskDeadline() { return taskDeadline; }
+    public void setTaskDeadline(Instant taskDeadline) { this.taskDeadline = taskDeadline; }
+
+    public TaskStatus getTaskStatus() { return taskStatus; }
+    public void setTaskStatus(TaskStatus taskStatus) { this.taskStatus = taskStatus; }
+
+    public Long getEditingTaskId() { return editingTaskId; }
+    public void setEditingTaskId(Long editingTaskId) { this.editingTaskId = editingTaskId; }
+
+    public Set<Long> getSelectedTaskIds() { return selectedTaskIds; }
+    public void setSelectedTaskIds(Set<Long> selectedTaskIds) { this.selectedTaskIds = selectedTaskIds; }
+
+    public String getSelectionCursor() { return selectionCursor; }
+    public void setSelectionCursor(String selectionCursor) { this.selectionCursor = selectionCursor; }
+
+    public boolean isSelectionBackward() { return selectionBackward; }
+    public void setSelectionBackward(boolean selectionBackward) { this.selectionBackward = selectionBackward; }
+
+    /**
+     * @return true, если задача теперь отмечена
+     */
+    public boolean toggleSelected(Long taskId) {
+        if (selectedTaskIds().remove(taskId)) {
+            return false;
+        }
+        selectedTaskIds.add(taskId);
+        return true;
+    }
+
+    public void selectAll(Collection<Long> taskIds) {
+        selectedTaskIds().addAll(taskIds);
+    }
+
+    private Set<Long> selectedTaskIds() {
+        if (selectedTaskIds == null) {
+            selectedTaskIds = new LinkedHashSet<>();
+        }
+        return selectedTaskIds;
+    }
+}
@@ -0,0 +1,38 @@
+package org.example.conversation;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+/**
+ * JSON-представление диалога для внешних хранилищ. Пустые поля не пишутся,
+ * даты хранятся как epoch millis, так что типичная запись занимает пару десятков байт.
+ */
+public class ConversationCodec {
+    private final ObjectMapper mapper = new ObjectMapper()
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            // Instant как epoch millis - в том же виде, в каком раньше писался java.util.Date
+            .registerModule(new JavaTimeModule())
+            .configure(SerializationFeature.WRITE_DATE_TIMESTAMPS_AS_NANOSECONDS, false)
+            .configure(DeserializationFeature.READ_DATE_TIMESTAMPS_AS_NANOSECONDS, false);
+
+    public String encode(Conversation conversation) {
+        try {
+            return mapper.writeValueAsString(conversation);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot encode conversation", e);
+        }
+    }
+
+    public Conversation decode(String payload) {
+        try {
+            return mapper.readValue(payload, Conversation.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot decode conversation", e);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.example.conversation;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Хранилище диалогов пользователей. Отсутствие записи означает главное меню,
+ * поэтому пользователи без незавершенных сценариев памяти не занимают.
+ */
+public interface ConversationStateStore {
+
+    /**
+     * @return диалог пользователя или null, если его нет или он истек
+     */
+    Conversation get(Long userId);
+
+    /**
+     * Сохраняет диалог. Вызывается после каждого изменения, даже если объект тот же.
+     */
+    void put(Long userId, Conversation conversation);
+
+    void remove(Long userId);
+
+    int size();
+
+    /**
+     * Обходит диалоги, которые лежат на этом узле. Нужен для переноса диалогов при смене состава кластера.
+     */
+    void forEach(BiConsumer<Long, Conversation> action);
+
+    /**
+     * Забывает локальную копию диалога, который переехал на другой узел. В отличие от {@link #remove}
+     * не должен удалять диалог из общего хранилища.
+     */
+    default void release(Long userId) {
+        remove(userId);
+    }
+
+    /**
+     * @return true, если хранилище общее для всех узлов и диалоги между ними переносить не нужно
+     */
+    default boolean isShared() {
+        return false;
+    }
+}
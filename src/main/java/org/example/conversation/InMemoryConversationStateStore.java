@@ -0,0 +1,176 @@
+package org.example.conversation;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+
+/**
+ * Хранилище диалогов в памяти, разбитое на сегменты со своими блокировками.
+ * <p>
+ * Каждый сегмент - LinkedHashMap в порядке доступа: поиск O(1), при превышении лимита
+ * вытесняется давно не использованный диалог. Диалоги, к которым не обращались дольше
+ * idle-ttl, удаляются при чтении и фоновой очисткой.
+ */
+@Component
+@ConditionalOnProperty(name = "telegram.conversation.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryConversationStateStore implements ConversationStateStore {
+    private static final int SEGMENTS = 64;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final long idleTtlMillis;
+    private final ScheduledExecutorService cleaner;
+
+    public InMemoryConversationStateStore(
+            @Value("${telegram.conversation.max-size:200000}") int maxSize,
+            @Value("${telegram.conversation.idle-ttl-minutes:30}") long idleTtlMinutes) {
+        this.idleTtlMillis = TimeUnit.MINUTES.toMillis(idleTtlMinutes);
+        int segmentCapacity = Math.max(1, maxSize / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+
+        this.cleaner = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "conversation-cleaner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, idleTtlMillis / 4);
+        cleaner.scheduleWithFixedDelay(this::evictExpired, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Conversation get(Long userId) {
+        Segment segment = segmentFor(userId);
+        long now = System.currentTimeMillis();
+        segment.lock.lock();
+        try {
+            Holder holder = segment.map.get(userId);
+            if (holder == null) {
+                return null;
+            }
+            if (now - holder.lastAccess > idleTtlMillis) {
+                segment.map.remove(userId);
+                return null;
+            }
+            holder.lastAccess = now;
+            return holder.conversation;
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(Long userId, Conversation conversation) {
+        Segment segment = segmentFor(userId);
+        segment.lock.lock();
+        try {
+            segment.map.put(userId, new Holder(conversation, System.currentTimeMillis()));
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long userId) {
+        Segment segment = segmentFor(userId);
+        segment.lock.lock();
+        try {
+            segment.map.remove(userId);
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                size += segment.map.size();
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public void forEach(BiConsumer<Long, Conversation> action) {
+        long deadline = System.currentTimeMillis() - idleTtlMillis;
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                // обход entrySet() не меняет порядок доступа
+                for (Map.Entry<Long, Holder> entry : segment.map.entrySet()) {
+                    if (entry.getValue().lastAccess >= deadline) {
+                        action.accept(entry.getKey(), entry.getValue().conversation);
+                    }
+                }
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+    void evictExpired() {
+        long deadline = System.currentTimeMillis() - idleTtlMillis;
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                // порядок доступа: самые старые записи в начале, дальше первой живой идти незачем
+                Iterator<Holder> it = segment.map.values().iterator();
+                while (it.hasNext() && it.next().lastAccess < deadline) {
+                    it.remove();
+                }
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        cleaner.shutdownNow();
+    }
+
+    private Segment segmentFor(Long userId) {
+        int h = userId.hashCode();
+        h ^= (h >>> 16);
+        return segments[h & (SEGMENTS - 1)];
+    }
+
+    private static class Holder {
+        final Conversation conversation;
+        long lastAccess;
+
+        Holder(Conversation conversation, long lastAccess) {
+            this.conversation = conversation;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    private static class Segment {
+        final ReentrantLock lock = new ReentrantLock();
+        final LinkedHashMap<Long, Holder> map;
+
+        Segment(int capacity) {
+            this.map = new LinkedHashMap<Long, Holder>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Holder> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package org.example.conversation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Хранилище диалогов в таблице conversation_state, чтобы незавершенные сценарии
+ * переживали рестарт.
+ * <p>
+ * Чтение идет через near cache в памяти, в базу - только при промахе. Запись отложенная:
+ * изменения копятся в {@code pending} (последнее изменение пользователя перетирает предыдущие)
+ * и раз в flush-interval-ms уходят в базу одним batch-запросом.
+ */
+@Component
+@ConditionalOnProperty(name = "telegram.conversation.store", havingValue = "jdbc")
+public class JdbcConversationStateStore implements ConversationStateStore {
+    private static final Logger log = LoggerFactory.getLogger(JdbcConversationStateStore.class);
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO conversation_state (user_id, payload, updated_at) VALUES (?, ?, ?) " +
+            "ON CONFLICT (user_id) DO UPDATE SET payload = EXCLUDED.payload, updated_at = EXCLUDED.updated_at";
+    private static final String DELETE_SQL = "DELETE FROM conversation_state WHERE user_id = ?";
+    private static final String SELECT_SQL = "SELECT payload FROM conversation_state WHERE user_id = ? AND updated_at > ?";
+    private static final String DELETE_EXPIRED_SQL = "DELETE FROM conversation_state WHERE updated_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ConversationCodec codec = new ConversationCodec();
+    private final InMemoryConversationStateStore nearCache;
+    private final ConcurrentHashMap<Long, PendingWrite> pending = new ConcurrentHashMap<>();
+    private final long idleTtlMillis;
+    private final ScheduledExecutorService flusher;
+
+    public JdbcConversationStateStore(
+            JdbcTemplate jdbcTemplate,
+            @Value("${telegram.conversation.max-size:200000}") int maxSize,
+            @Value("${telegram.conversation.idle-ttl-minutes:30}") long idleTtlMinutes,
+            @Value("${telegram.conversation.flush-interval-ms:200}") long flushIntervalMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.nearCache = new InMemoryConversationStateStore(maxSize, idleTtlMinutes);
+        this.idleTtlMillis = TimeUnit.MINUTES.toMillis(idleTtlMinutes);
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "conversation-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        flusher.scheduleWithFixedDelay(this::deleteExpiredSafely, 1, 1, TimeUnit.MINUTES);
+    }
+
+    @Override
+    public Conversation get(Long userId) {
+        Conversation conversation = nearCache.get(userId);
+        if (conversation != null) {
+            return conversation;
+        }
+
+        PendingWrite write = pending.get(userId);
+        if (write != null) {
+            return write.payload == null ? null : cache(userId, codec.decode(write.payload));
+        }
+
+        Timestamp notBefore = new Timestamp(System.currentTimeMillis() - idleTtlMillis);
+        List<String> rows = jdbcTemplate.queryForList(SELECT_SQL, String.class, userId, notBefore);
+        return rows.isEmpty() ? null : cache(userId, codec.decode(rows.get(0)));
+    }
+
+    @Override
+    public void put(Long userId, Conversation conversation) {
+        nearCache.put(userId, conversation);
+        // кодируем сразу: объект диалога продолжит меняться в потоке обработчика
+        pending.put(userId, new PendingWrite(codec.encode(conversation), System.currentTimeMillis()));
+    }
+
+    @Override
+    public void remove(Long userId) {
+        nearCache.remove(userId);
+        pending.put(userId, new PendingWrite(null, System.currentTimeMillis()));
+    }
+
+    @Override
+    public int size() {
+        return nearCache.size();
+    }
+
+    @Override
+    public void forEach(BiConsumer<Long, Conversation> action) {
+        nearCache.forEach(action);
+    }
+
+    @Override
+    public void release(Long userId) {
+        // отложенная запись остается в pending и попадет в базу при ближайшем flush
+        nearCache.remove(userId);
+    }
+
+    @Override
+    public boolean isShared() {
+        return true;
+    }
+
+    void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> upserts = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        List<Map.Entry<Long, PendingWrite>> taken = new ArrayList<>();
+        for (Map.Entry<Long, PendingWrite> entry : pending.entrySet()) {
+            PendingWrite write = entry.getValue();
+            if (write.payload == null) {
+                deletes.add(new Object[]{entry.getKey()});
+            } else {
+                upserts.add(new Object[]{entry.getKey(), write.payload, new Timestamp(write.timestamp)});
+            }
+            taken.add(entry);
+        }
+
+        if (!upserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, upserts);
+        }
+        if (!deletes.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_SQL, deletes);
+        }
+
+        // если за время записи пришло новое изменение, оно останется до следующего flush
+        for (Map.Entry<Long, PendingWrite> entry : taken) {
+            pending.remove(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushSafely();
+        nearCache.shutdown();
+    }
+
+    private Conversation cache(Long userId, Conversation conversation) {
+        nearCache.put(userId, conversation);
+        return conversation;
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Failed to flush conversation state", e);
+        }
+    }
+
+    private void deleteExpiredSafely() {
+        try {
+            jdbcTemplate.update(DELETE_EXPIRED_SQL, new Timestamp(System.currentTimeMillis() - idleTtlMillis));
+        } catch (Exception e) {
+            log.error("Failed to delete expired conversation state", e);
+        }
+    }
+
+    private static class PendingWrite {
+        final String payload;
+        final long timestamp;
+
+        PendingWrite(String payload, long timestamp) {
+            this.payload = payload;
+            this.timestamp = timestamp;
+        }
+    }
+}
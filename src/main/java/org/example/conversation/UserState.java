@@ -0,0 +1,14 @@
+package org.example.conversation;
+
+//TODO добавить EDITING_TASK_CATEGORY и соответствующий хендлер
+public enum UserState {
+    MAIN_MENU,
+    ADDING_TASK_NAME,
+    ADDING_TASK_DESCRIPTION,
+    ADDING_TASK_DEADLINE,
+    EDITING_TASK_NAME,
+    EDITING_TASK_DESCRIPTION,
+    EDITING_TASK_DEADLINE,
+    SELECTING_TASKS,
+    IMPORTING_TASKS
+}
@@ -0,0 +1,46 @@
+package org.example.dispatch;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Лимиты блокирующих вызовов из обработчиков апдейтов.
+ * <p>
+ * Вызовы TaskService и JDBC-хранилища диалогов идут не больше чем по {@code db-permits} одновременно
+ * (по умолчанию - размер пула Hikari). Синхронные вызовы Bot API из обработчиков (скачивание файла импорта)
+ * оборачиваются в {@link #telegram()} явно. Обычные ответы уходят через OutboundMessageSender,
+ * у которого свой пул и лимиты, поэтому здесь не считаются.
+ * <p>
+ * В режиме platform потолок задает пул воркеров и лимиты почти не срабатывают; в режиме virtual
+ * это единственное, что держит параллелизм в рамках.
+ */
+@Aspect
+@Component
+public class BlockingCallLimits {
+    private final ConcurrencyLimit db;
+    private final ConcurrencyLimit telegram;
+
+    public BlockingCallLimits(
+            @Value("${telegram.dispatcher.db-permits:${spring.datasource.hikari.maximum-pool-size:10}}") int dbPermits,
+            @Value("${telegram.dispatcher.telegram-permits:16}") int telegramPermits) {
+        this.db = new ConcurrencyLimit("db", dbPermits);
+        this.telegram = new ConcurrencyLimit("telegram", telegramPermits);
+    }
+
+    @Around("execution(public * org.example.services.TaskService.*(..))"
+            + " || execution(public * org.example.conversation.JdbcConversationStateStore.*(..))")
+    public Object limitDb(ProceedingJoinPoint joinPoint) throws Throwable {
+        return db.call(joinPoint::proceed);
+    }
+
+    public ConcurrencyLimit db() {
+        return db;
+    }
+
+    public ConcurrencyLimit telegram() {
+        return telegram;
+    }
+}
@@ -0,0 +1,64 @@
+package org.example.dispatch;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ограничение числа одновременных блокирующих вызовов одного вида (запросы к базе, вызовы Bot API).
+ * <p>
+ * Пул воркеров ограничивал их сам; с потоком на апдейт ограничивать нужно здесь, иначе тысячи
+ * потоков разом встают в очередь за соединением пула и выходят по connection-timeout.
+ * Вложенный вызов в том же потоке второе разрешение не берет: иначе при всех занятых разрешениях
+ * их владельцы ждали бы друг друга.
+ */
+public final class ConcurrencyLimit {
+    private final String name;
+    private final int permits;
+    private final Semaphore semaphore;
+    private final ThreadLocal<Boolean> held = new ThreadLocal<>();
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    public ConcurrencyLimit(String name, int permits) {
+        this.name = name;
+        this.permits = permits;
+        this.semaphore = new Semaphore(permits, true);
+    }
+
+    @FunctionalInterface
+    public interface Call<T, E extends Throwable> {
+        T call() throws E;
+    }
+
+    public <T, E extends Throwable> T call(Call<T, E> call) throws E {
+        if (held.get() != null) {
+            return call.call();
+        }
+        acquire();
+        held.set(Boolean.TRUE);
+        try {
+            return call.call();
+        } finally {
+            held.remove();
+            semaphore.release();
+        }
+    }
+
+    private void acquire() {
+        if (semaphore.tryAcquire()) {
+            return;
+        }
+        waiting.incrementAndGet();
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + name + " permit", e);
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    public String getName() { return name; }
+    public int getInUse() { return permits - semaphore.availablePermits(); }
+    public int getWaiting() { return waiting.get(); }
+}
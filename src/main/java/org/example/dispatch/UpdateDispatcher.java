@@ -0,0 +1,253 @@
+package org.example.dispatch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Раздает апдейты пулу воркеров, сохраняя порядок внутри одного пользователя.
+ * <p>
+ * У каждого пользователя свой почтовый ящик; одновременно его разбирает не больше одного воркера,
+ * поэтому апдейты одного userId обрабатываются строго по очереди, а разные пользователи - параллельно.
+ * Общее число ожидающих апдейтов ограничено {@code queue-capacity}: если очередь заполнена,
+ * поток long polling ждет до {@code offer-timeout-ms}, после чего апдейт отбрасывается.
+ * <p>
+ * Режим {@code mode}: platform - фиксированный пул из {@code workers} потоков; virtual (JDK 21+) -
+ * каждый апдейт в своем виртуальном потоке, а число одновременных запросов к базе и Bot API
+ * ограничивает {@link BlockingCallLimits}.
+ * <p>
+ * Обработчик может отдать работу на другой пул и вернуть поток сразу, вызвав {@link #holdUntil}:
+ * тогда следующий апдейт того же пользователя ждет завершения этой работы, а не выхода из обработчика.
+ */
+@Component
+public class UpdateDispatcher {
+    private static final Logger log = LoggerFactory.getLogger(UpdateDispatcher.class);
+
+    private final ExecutorService workers;
+    private final Semaphore capacity;
+    private final long offerTimeoutMs;
+    private final ConcurrentHashMap<Long, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final ThreadLocal<Envelope> current = new ThreadLocal<>();
+
+    // metrics
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final LongAccumulator maxLatencyNanos = new LongAccumulator(Long::max, 0);
+
+    public UpdateDispatcher(
+            @Value("${telegram.dispatcher.workers:8}") int workers,
+            @Value("${telegram.dispatcher.queue-capacity:1000}") int queueCapacity,
+            @Value("${telegram.dispatcher.offer-timeout-ms:5000}") long offerTimeoutMs,
+            @Value("${telegram.dispatcher.mode:platform}") String mode) {
+        if ("virtual".equals(mode)) {
+            this.workers = VirtualThreads.newThreadPerTaskExecutor("update-worker-");
+        } else if ("platform".equals(mode)) {
+            this.workers = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(), new WorkerThreadFactory());
+        } else {
+            throw new IllegalArgumentException("Unknown telegram.dispatcher.mode: " + mode);
+        }
+        log.info("Update dispatcher uses {} threads", mode);
+        this.capacity = new Semaphore(queueCapacity);
+        this.offerTimeoutMs = offerTimeoutMs;
+    }
+
+    /**
+     * Ставит задачу в очередь пользователя {@code key}.
+     *
+     * @return false, если очередь переполнена и место не освободилось за offer-timeout-ms
+     */
+    public boolean dispatch(Long key, Runnable task) {
+        try {
+            if (!capacity.tryAcquire(offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                rejected.increment();
+                log.warn("Dispatcher queue is full, update for user {} dropped", key);
+                return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rejected.increment();
+            return false;
+        }
+
+        enqueue(key, task);
+        return true;
+    }
+
+    /**
+     * Неблокирующий вариант для потоков, которые нельзя останавливать (например, event loop HTTP-сервера).
+     *
+     * @return false, если очередь заполнена прямо сейчас
+     */
+    public boolean tryDispatch(Long key, Runnable task) {
+        if (!capacity.tryAcquire()) {
+            rejected.increment();
+            return false;
+        }
+        enqueue(key, task);
+        return true;
+    }
+
+    private void enqueue(Long key, Runnable task) {
+        queued.incrementAndGet();
+        Envelope envelope = new Envelope(task, System.nanoTime());
+        mailboxes.compute(key, (k, box) -> {
+            if (box == null) {
+                box = new Mailbox(k);
+            }
+            box.queue.add(envelope);
+            if (!box.scheduled) {
+                box.scheduled = true;
+                workers.execute(box);
+            }
+            return box;
+        });
+    }
+
+    /**
+     * Вызывается из обработчика: апдейт считается обработанным, когда завершится {@code stage}.
+     * Можно вызвать несколько раз - ждать будут все. Вне обработчика ничего не делает.
+     */
+    public void holdUntil(CompletionStage<?> stage) {
+        Envelope envelope = current.get();
+        if (envelope == null) {
+            return;
+        }
+        CompletableFuture<?> future = stage.toCompletableFuture();
+        envelope.hold = envelope.hold == null ? future : CompletableFuture.allOf(envelope.hold, future);
+    }
+
+    public int getQueueLength() { return queued.get(); }
+    public int getActiveMailboxes() { return mailboxes.size(); }
+    public long getProcessedCount() { return processed.sum(); }
+    public long getFailedCount() { return failed.sum(); }
+    public long getRejectedCount() { return rejected.sum(); }
+    public long getMaxLatencyMillis() { return TimeUnit.NANOSECONDS.toMillis(maxLatencyNanos.get()); }
+
+    public double getAverageLatencyMillis() {
+        long count = processed.sum();
+        return count == 0 ? 0 : totalLatencyNanos.sum() / (double) count / 1_000_000;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workers.shutdown();
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * @return работа, которую обработчик попросил дождаться, или null, если апдейт уже обработан
+     */
+    private CompletableFuture<?> runEnvelope(Envelope envelope) {
+        current.set(envelope);
+        try {
+            envelope.task.run();
+        } catch (Throwable e) {
+            failed.increment();
+            log.error("Update handler failed", e);
+        } finally {
+            current.remove();
+        }
+        if (envelope.hold == null) {
+            finish(envelope);
+        }
+        return envelope.hold;
+    }
+
+    private void finish(Envelope envelope) {
+        long latency = System.nanoTime() - envelope.enqueuedAt;
+        totalLatencyNanos.add(latency);
+        maxLatencyNanos.accumulate(latency);
+        processed.increment();
+        queued.decrementAndGet();
+        capacity.release();
+    }
+
+    private static class Envelope {
+        final Runnable task;
+        final long enqueuedAt;
+        CompletableFuture<?> hold;
+
+        Envelope(Runnable task, long enqueuedAt) {
+            this.task = task;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    /**
+     * Очередь одного пользователя. Флаг scheduled и удаление из map меняются только внутри
+     * {@code mailboxes.compute}, так что ящик никогда не разбирают два воркера сразу.
+     */
+    private class Mailbox implements Runnable {
+        final Long key;
+        final Queue<Envelope> queue = new ConcurrentLinkedQueue<>();
+        boolean scheduled;
+
+        Mailbox(Long key) {
+            this.key = key;
+        }
+
+        @Override
+        public void run() {
+            Envelope envelope = queue.poll();
+            CompletableFuture<?> hold = envelope == null ? null : runEnvelope(envelope);
+            if (hold == null) {
+                next();
+                return;
+            }
+            hold.whenComplete((result, error) -> {
+                if (error != null) {
+                    failed.increment();
+                    log.error("Update handler failed", error);
+                }
+                finish(envelope);
+                next();
+            });
+        }
+
+        private void next() {
+            // по одному апдейту за раз, чтобы активный пользователь не занимал воркер целиком
+            mailboxes.compute(key, (k, box) -> {
+                if (queue.isEmpty()) {
+                    scheduled = false;
+                    return null;
+                }
+                workers.execute(this);
+                return box;
+            });
+        }
+    }
+
+    private static class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "update-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package org.example.export;
+
+import java.util.Locale;
+
+public enum TaskExportFormat {
+    CSV("tasks.csv"),
+    JSON("tasks.json");
+
+    private final String fileName;
+
+    TaskExportFormat(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getFileName() { return fileName; }
+
+    /**
+     * @return формат по имени из команды (пусто - CSV) или null, если такого нет
+     */
+    public static TaskExportFormat parse(String name) {
+        if (name.isEmpty()) {
+            return CSV;
+        }
+        switch (name.toLowerCase(Locale.ROOT)) {
+            case "csv":
+                return CSV;
+            case "json":
+                return JSON;
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package org.example.export;
+
+import org.example.models.TaskExportView;
+import org.example.outbound.OutboundMessageSender;
+import org.example.repo.TaskRepository;
+import org.example.services.UserZoneService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.telegram.telegrambots.meta.api.methods.send.SendDocument;
+import org.telegram.telegrambots.meta.api.objects.InputFile;
+import org.telegram.telegrambots.meta.api.objects.Message;
+
+import javax.annotation.PreDestroy;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.UncheckedIOException;
+import java.time.ZoneId;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Выгрузка всех задач пользователя в файл.
+ * <p>
+ * Строки читаются курсором (проекция, fetch size 1000) и сразу кодируются в pipe, из которого
+ * HTTP-клиент Telegram читает тело multipart-запроса SendDocument. Ни список задач, ни файл целиком
+ * в памяти не собираются: на выгрузку приходится буфер pipe и буфер кодировщика, сколько бы ни было задач.
+ * Пока файл отправляется, выгрузка держит соединение с базой, поэтому одновременных выгрузок
+ * не больше {@code telegram.export.threads}, остальные ждут в короткой очереди.
+ */
+@Service
+public class TaskExportService {
+    private static final Logger log = LoggerFactory.getLogger(TaskExportService.class);
+    private static final int PIPE_BUFFER = 64 * 1024;
+
+    private final TaskRepository taskRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final OutboundMessageSender outboundSender;
+    private final UserZoneService userZones;
+    private final ThreadPoolExecutor executor;
+
+    public TaskExportService(
+            TaskRepository taskRepository,
+            PlatformTransactionManager transactionManager,
+            OutboundMessageSender outboundSender,
+            UserZoneService userZones,
+            @Value("${telegram.export.threads:2}") int threads,
+            @Value("${telegram.export.queue-capacity:20}") int queueCapacity) {
+        this.taskRepository = taskRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.outboundSender = outboundSender;
+        this.userZones = userZones;
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+            Thread thread = new Thread(r, "task-export-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Отправляет пользователю файл с его задачами.
+     *
+     * @return число выгруженных задач; RejectedExecutionException, если очередь выгрузок заполнена
+     */
+    public CompletableFuture<Long> sendExport(Long chatId, Long userId, TaskExportFormat format) {
+        try {
+            return CompletableFuture.supplyAsync(() -> upload(chatId, userId, format), executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Пишет задачи пользователя в поток в одной read-only транзакции. Поток не закрывается.
+     *
+     * @return число записанных задач
+     */
+    public long writeTasks(Long userId, TaskExportFormat format, ZoneId zone, OutputStream out) {
+        Long written = readOnlyTransaction.execute(status -> {
+            long count = 0;
+            try (Stream<TaskExportView> tasks = taskRepository.streamExportByUser(userId)) {
+                TaskExportWriter writer = TaskExportWriter.open(format, out, zone);
+                for (TaskExportView task : (Iterable<TaskExportView>) tasks::iterator) {
+                    writer.write(task);
+                    count++;
+                }
+                writer.finish();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return count;
+        });
+        return written == null ? 0 : written;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private long upload(Long chatId, Long userId, TaskExportFormat format) {
+        PipedInputStream pipeInput = new PipedInputStream(PIPE_BUFFER);
+        AbortableInputStream body = new AbortableInputStream(pipeInput);
+        long count;
+        CompletableFuture<Message> sent;
+        try (PipedOutputStream pipe = new PipedOutputStream(pipeInput)) {
+            SendDocument document = new SendDocument(chatId.toString(), new InputFile(body, format.getFileName()));
+            document.setCaption("📤 Ваши задачи");
+            sent = outboundSender.sendDocument(document);
+            // если отправка оборвалась, запись в заполненный pipe упадет, а не будет ждать читателя вечно
+            sent.whenComplete((message, error) -> {
+                if (error != null) {
+                    closeQuietly(pipeInput);
+                }
+            });
+
+            try {
+                count = writeTasks(userId, format, userZones.getZone(userId), pipe);
+            } catch (RuntimeException e) {
+                // HTTP-клиент получит ошибку чтения вместо конца файла, и обрезанный файл не уйдет как целый
+                body.abort();
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // pipe уже закрыт, и HTTP-клиент дочитывает конец файла
+        sent.join();
+        log.info("Exported {} tasks of user {} as {}", count, userId, format);
+        return count;
+    }
+
+    private static void closeQuietly(PipedInputStream input) {
+        try {
+            input.close();
+        } catch (IOException ignored) {
+            // PipedInputStream.close не бросает
+        }
+    }
+
+    /**
+     * Тело запроса. После {@link #abort()} любое чтение, включая конец потока, заканчивается ошибкой:
+     * у самого PipedInputStream закрытие пишущей стороны неотличимо от нормального конца файла.
+     */
+    private static final class AbortableInputStream extends FilterInputStream {
+        private volatile boolean aborted;
+
+        AbortableInputStream(PipedInputStream in) {
+            super(in);
+        }
+
+        void abort() {
+            aborted = true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            checkAborted();
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            checkAborted();
+            return n;
+        }
+
+        private void checkAborted() throws IOException {
+            if (aborted) {
+                throw new IOException("Task export aborted");
+            }
+        }
+    }
+}
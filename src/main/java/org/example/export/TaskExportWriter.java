@@ -0,0 +1,135 @@
+package org.example.export;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.example.models.TaskExportView;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Пишет строки выгрузки в поток по одной, ничего не накапливая: память не зависит от числа задач.
+ * Дедлайн пишется в ISO-8601 со смещением часового пояса пользователя, время создания - как есть.
+ * <p>
+ * Концовка файла пишется только в {@link #finish()}: если чтение задач оборвалось, в поток не попадет
+ * ничего, что выглядело бы как законченный файл. Сам поток не закрывается.
+ */
+abstract class TaskExportWriter {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    static TaskExportWriter open(TaskExportFormat format, OutputStream out, ZoneId zone) throws IOException {
+        return format == TaskExportFormat.JSON ? new Json(out, zone) : new Csv(out, zone);
+    }
+
+    abstract void write(TaskExportView task) throws IOException;
+
+    abstract void finish() throws IOException;
+
+    private static final class Csv extends TaskExportWriter {
+        private final Writer out;
+        private final ZoneId zone;
+
+        Csv(OutputStream stream, ZoneId zone) throws IOException {
+            this.out = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), 16 * 1024);
+            this.zone = zone;
+            // BOM, чтобы Excel открыл кириллицу в UTF-8
+            out.write('\uFEFF');
+            out.write("id,name,description,status,category,deadline,created_at\n");
+        }
+
+        @Override
+        void write(TaskExportView task) throws IOException {
+            out.write(String.valueOf(task.getId()));
+            out.write(',');
+            writeField(task.getName());
+            out.write(',');
+            writeField(task.getDescription());
+            out.write(',');
+            if (task.getTaskStatus() != null) {
+                out.write(task.getTaskStatus().name());
+            }
+            out.write(',');
+            if (task.getCategory() != null) {
+                out.write(task.getCategory().name());
+            }
+            out.write(',');
+            if (task.getDeadlineTime() != null) {
+                DateTimeFormatter.ISO_OFFSET_DATE_TIME.formatTo(task.getDeadlineTime().atZone(zone), out);
+            }
+            out.write(',');
+            if (task.getCreatedAt() != null) {
+                DateTimeFormatter.ISO_LOCAL_DATE_TIME.formatTo(task.getCreatedAt(), out);
+            }
+            out.write('\n');
+        }
+
+        // RFC 4180: поле в кавычках, если в нем есть разделитель, кавычка или перевод строки
+        private void writeField(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                out.write(value);
+                return;
+            }
+            out.write('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    out.write('"');
+                }
+                out.write(c);
+            }
+            out.write('"');
+        }
+
+        @Override
+        void finish() throws IOException {
+            out.flush();
+        }
+    }
+
+    private static final class Json extends TaskExportWriter {
+        private final JsonGenerator json;
+        private final ZoneId zone;
+
+        Json(OutputStream stream, ZoneId zone) throws IOException {
+            this.json = JSON_FACTORY.createGenerator(stream, JsonEncoding.UTF8);
+            this.zone = zone;
+            json.writeStartArray();
+        }
+
+        @Override
+        void write(TaskExportView task) throws IOException {
+            json.writeStartObject();
+            json.writeNumberField("id", task.getId());
+            json.writeStringField("name", task.getName());
+            json.writeStringField("description", task.getDescription());
+            json.writeStringField("status", task.getTaskStatus() == null ? null : task.getTaskStatus().name());
+            json.writeStringField("category", task.getCategory() == null ? null : task.getCategory().name());
+            json.writeStringField("deadline", task.getDeadlineTime() == null
+                    ? null : DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(task.getDeadlineTime().atZone(zone)));
+            json.writeStringField("createdAt", task.getCreatedAt() == null
+                    ? null : DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(task.getCreatedAt()));
+            json.writeEndObject();
+        }
+
+        @Override
+        void finish() throws IOException {
+            json.writeEndArray();
+            json.close();
+        }
+    }
+}
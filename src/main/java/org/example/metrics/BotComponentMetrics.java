@@ -0,0 +1,129 @@
+package org.example.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.TelegramBot;
+import org.example.conversation.ConversationStateStore;
+import org.example.dispatch.BlockingCallLimits;
+import org.example.dispatch.ConcurrencyLimit;
+import org.example.dispatch.UpdateDispatcher;
+import org.example.outbound.OutboundMessageSender;
+import org.example.reminders.DeadlineReminderScheduler;
+import org.example.render.TaskFragmentCache;
+import org.example.search.TaskSearchService;
+import org.example.services.AsyncTaskService;
+import org.example.services.TaskListCache;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Отдает счетчики, которые компоненты бота уже ведут сами, как метрики Micrometer.
+ * Значения читаются только в момент сбора, на горячем пути ничего не добавляется.
+ * <p>
+ * Это не MeterBinder: binder'ы применяются при создании реестра, а OutboundMessageSender сам зависит
+ * от реестра - получался цикл и контекст не поднимался. Метрики регистрируются в конструкторе,
+ * когда реестр уже создан.
+ */
+@Component
+public class BotComponentMetrics {
+    private final UpdateDispatcher dispatcher;
+    private final OutboundMessageSender outbound;
+    private final TaskListCache taskListCache;
+    private final ConversationStateStore conversations;
+    private final ObjectProvider<DeadlineReminderScheduler> reminders;
+    private final TaskFragmentCache fragmentCache;
+    private final BlockingCallLimits limits;
+    private final AsyncTaskService asyncTasks;
+    private final TaskSearchService taskSearch;
+
+    public BotComponentMetrics(MeterRegistry registry,
+                               UpdateDispatcher dispatcher,
+                               OutboundMessageSender outbound,
+                               TaskListCache taskListCache,
+                               ConversationStateStore conversations,
+                               ObjectProvider<DeadlineReminderScheduler> reminders,
+                               TelegramBot bot,
+                               BlockingCallLimits limits,
+                               AsyncTaskService asyncTasks,
+                               TaskSearchService taskSearch) {
+        this.dispatcher = dispatcher;
+        this.outbound = outbound;
+        this.taskListCache = taskListCache;
+        this.conversations = conversations;
+        this.reminders = reminders;
+        this.fragmentCache = bot.getFragmentCache();
+        this.limits = limits;
+        this.asyncTasks = asyncTasks;
+        this.taskSearch = taskSearch;
+        bindTo(registry);
+    }
+
+    private void bindTo(MeterRegistry registry) {
+        Gauge.builder("bot.dispatcher.queue", dispatcher, UpdateDispatcher::getQueueLength)
+                .description("Апдейты в очереди на обработку").register(registry);
+        Gauge.builder("bot.dispatcher.mailboxes", dispatcher, UpdateDispatcher::getActiveMailboxes)
+                .description("Пользователи с необработанными апдейтами").register(registry);
+        FunctionCounter.builder("bot.dispatcher.updates", dispatcher, UpdateDispatcher::getProcessedCount)
+                .tag("result", "processed").register(registry);
+        FunctionCounter.builder("bot.dispatcher.updates", dispatcher, UpdateDispatcher::getFailedCount)
+                .tag("result", "failed").register(registry);
+        FunctionCounter.builder("bot.dispatcher.updates", dispatcher, UpdateDispatcher::getRejectedCount)
+                .tag("result", "rejected").register(registry);
+
+        for (ConcurrencyLimit limit : new ConcurrencyLimit[]{limits.db(), limits.telegram()}) {
+            Gauge.builder("bot.limit.in_use", limit, ConcurrencyLimit::getInUse)
+                    .tag("limit", limit.getName()).register(registry);
+            Gauge.builder("bot.limit.waiting", limit, ConcurrencyLimit::getWaiting)
+                    .tag("limit", limit.getName()).description("Потоки, ждущие разрешения").register(registry);
+        }
+
+        Gauge.builder("task.db.queue", asyncTasks, AsyncTaskService::getQueueLength)
+                .description("Асинхронные запросы к базе, ждущие потока").register(registry);
+
+        Gauge.builder("telegram.outbound.queue", outbound, OutboundMessageSender::getQueueDepth)
+                .description("Исходящие сообщения, ожидающие отправки").register(registry);
+        FunctionCounter.builder("telegram.outbound.messages", outbound, OutboundMessageSender::getSentCount)
+                .tag("result", "sent").register(registry);
+        FunctionCounter.builder("telegram.outbound.messages", outbound, OutboundMessageSender::getFailedCount)
+                .tag("result", "failed").register(registry);
+        FunctionCounter.builder("telegram.outbound.messages", outbound, OutboundMessageSender::getRetriedCount)
+                .tag("result", "retried").register(registry);
+        FunctionCounter.builder("telegram.outbound.messages", outbound, OutboundMessageSender::getCoalescedCount)
+                .tag("result", "coalesced").register(registry);
+
+        if (taskListCache.isEnabled()) {
+            FunctionCounter.builder("task.cache.requests", taskListCache, TaskListCache::getHitCount)
+                    .tag("result", "hit").register(registry);
+            FunctionCounter.builder("task.cache.requests", taskListCache, TaskListCache::getMissCount)
+                    .tag("result", "miss").register(registry);
+            FunctionCounter.builder("task.cache.evictions", taskListCache, TaskListCache::getEvictionCount)
+                    .register(registry);
+            Gauge.builder("task.cache.weight", taskListCache, TaskListCache::getWeight)
+                    .description("Суммарное число задач в закэшированных списках").register(registry);
+        }
+
+        FunctionCounter.builder("render.cache.requests", fragmentCache, TaskFragmentCache::getHitCount)
+                .tag("result", "hit").register(registry);
+        FunctionCounter.builder("render.cache.requests", fragmentCache, TaskFragmentCache::getMissCount)
+                .tag("result", "miss").register(registry);
+        Gauge.builder("render.cache.size", fragmentCache, TaskFragmentCache::size)
+                .description("Задачи с готовыми строкой и кнопками").register(registry);
+
+        Gauge.builder("search.index.bytes", taskSearch, TaskSearchService::getUsedBytes)
+                .description("Оценка памяти поискового индекса").register(registry);
+        Gauge.builder("search.index.partitions", taskSearch, TaskSearchService::getPartitionCount)
+                .description("Пользователи, чьи задачи сейчас в индексе").register(registry);
+        FunctionCounter.builder("search.index.evictions", taskSearch, TaskSearchService::getEvictionCount)
+                .register(registry);
+
+        Gauge.builder("bot.conversations", conversations, ConversationStateStore::size)
+                .description("Незавершенные диалоги на этом узле").register(registry);
+
+        DeadlineReminderScheduler scheduler = reminders.getIfAvailable();
+        if (scheduler != null) {
+            Gauge.builder("bot.reminders.scheduled", scheduler, DeadlineReminderScheduler::getScheduledCount)
+                    .register(registry);
+        }
+    }
+}
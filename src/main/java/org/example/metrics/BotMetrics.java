@@ -0,0 +1,54 @@
+package org.example.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Метрики обработки апдейтов: время команды / нажатия кнопки и ошибки обработчиков.
+ * Значения тегов берутся из небольших фиксированных наборов (пункты меню, состояния, действия кнопок),
+ * текст пользователя в теги не попадает.
+ */
+@Component
+public class BotMetrics {
+    public static final String OK = "ok";
+    public static final String ERROR = "error";
+
+    private final MeterRegistry registry;
+    // Timer.builder(...).register() ищет метр по Id, здесь - одно обращение к map без аллокаций тегов
+    private final ConcurrentHashMap<String, Timer> timers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Counter> errors = new ConcurrentHashMap<>();
+
+    public BotMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void recordCommand(String command, String outcome, long startNanos) {
+        timer("bot.command", "command", command, outcome).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordCallback(String action, String outcome, long startNanos) {
+        timer("bot.callback", "action", action, outcome).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Ошибка, которую обработчик перехватил сам и показал пользователю сообщение.
+     */
+    public void handlerError(String handler) {
+        errors.computeIfAbsent(handler, h -> Counter.builder("bot.handler.errors")
+                .description("Ошибки, перехваченные обработчиками команд")
+                .tag("handler", h)
+                .register(registry)).increment();
+    }
+
+    private Timer timer(String name, String tagKey, String tagValue, String outcome) {
+        return timers.computeIfAbsent(name + '|' + tagValue + '|' + outcome, k -> Timer.builder(name)
+                .tag(tagKey, tagValue)
+                .tag("outcome", outcome)
+                .register(registry));
+    }
+}
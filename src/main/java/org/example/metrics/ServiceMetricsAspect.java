@@ -0,0 +1,52 @@
+package org.example.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Таймер и счетчик ошибок на каждый публичный метод {@link org.example.services.TaskService}.
+ * <p>
+ * Запросы к репозиториям меряет сам Spring Boot (spring.data.repository.invocations),
+ * Hibernate и пул соединений - HibernateMetrics и HikariCP, здесь их не дублируем.
+ */
+@Aspect
+@Component
+public class ServiceMetricsAspect {
+    private final MeterRegistry registry;
+
+    public ServiceMetricsAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("execution(public * org.example.services.TaskService.*(..))")
+    public Object timeTaskService(ProceedingJoinPoint joinPoint) throws Throwable {
+        String method = joinPoint.getSignature().getName();
+        long start = System.nanoTime();
+        String outcome = BotMetrics.ERROR;
+        try {
+            Object result = joinPoint.proceed();
+            outcome = BotMetrics.OK;
+            return result;
+        } catch (Throwable e) {
+            Counter.builder("task.service.errors")
+                    .tag("method", method)
+                    .tag("exception", e.getClass().getSimpleName())
+                    .register(registry)
+                    .increment();
+            throw e;
+        } finally {
+            Timer.builder("task.service")
+                    .tag("method", method)
+                    .tag("outcome", outcome)
+                    .register(registry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package org.example.models;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.Instant;
+
+/**
+ * Отметка об отправленном напоминании: задача и дедлайн, о котором напомнили.
+ * Пишется запросом в TaskRepository, сущность нужна, чтобы ссылаться на таблицу из JPQL.
+ */
+@Entity
+@Table(name = "sent_reminders")
+public class SentReminder {
+    @Id
+    private Long taskId;
+
+    private Instant deadlineTime;
+
+    protected SentReminder() {
+    }
+
+    public Long getTaskId() { return taskId; }
+    public Instant getDeadlineTime() { return deadlineTime; }
+}
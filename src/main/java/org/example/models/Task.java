@@ -1,14 +1,17 @@
 package org.example.models;
 
 import javax.persistence.*;
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.util.Date;
 
+// индексы (в том числе частичные) создают миграции Flyway в db/migration, а не Hibernate
 @Entity
 @Table(name = "tasks")
 public class Task {
+    // последовательность с шагом 50 (V8): IDENTITY отключает JDBC batching, а здесь id известен до INSERT
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tasks_id_seq")
+    @SequenceGenerator(name = "tasks_id_seq", sequenceName = "tasks_id_seq", allocationSize = 50)
     private Long id;
 
     @Enumerated(EnumType.STRING)
@@ -20,19 +23,21 @@ public class Task {
     private Long userOwnerId;
     private Category category;
 
-    @Temporal(TemporalType.TIMESTAMP)
-    private Date deadlineTime;
+    private Instant deadlineTime;
 
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
+    @Version
+    private Long version;
+
     //constructors
     public Task() {
         this.createdAt = LocalDateTime.now();
         this.updatedAt = LocalDateTime.now();
     }
 
-    public Task(String name, String description, Long userOwnerId, TaskStatus taskStatus, Date deadlineTime, Category category) {
+    public Task(String name, String description, Long userOwnerId, TaskStatus taskStatus, Instant deadlineTime, Category category) {
         this();
         this.name = name;
         this.description = description;
@@ -42,6 +47,20 @@ public class Task {
         this.category = category;
     }
 
+    /**
+     * Отсоединенная копия со всеми полями, включая id и version. Кэш списков хранит и отдает такие копии,
+     * чтобы изменения вызывающего кода не попадали ни в кэш, ни в чужой persistence context.
+     */
+    public Task copy() {
+        Task copy = new Task(name, description, userOwnerId, taskStatus, deadlineTime, category);
+        copy.id = id;
+        copy.timeAmount = timeAmount;
+        copy.createdAt = createdAt;
+        copy.updatedAt = updatedAt;
+        copy.version = version;
+        return copy;
+    }
+
     // getters+setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -82,12 +101,13 @@ public class Task {
         this.updatedAt = LocalDateTime.now();
     }
 
-    public Date getDeadlineTime(){ return deadlineTime; }
-    public void setDeadlineTime(Date deadlineTime){
+    public Instant getDeadlineTime(){ return deadlineTime; }
+    public void setDeadlineTime(Instant deadlineTime){
         this.deadlineTime = deadlineTime;
         this.updatedAt = LocalDateTime.now();
     }
 
     public LocalDateTime getCreatedAt() { return createdAt; }
     public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public Long getVersion() { return version; }
 }
\ No newline at end of file
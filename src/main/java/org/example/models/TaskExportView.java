@@ -0,0 +1,17 @@
+package org.example.models;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * Проекция задачи для выгрузки в файл. Строки не становятся сущностями и не копятся в persistence context.
+ */
+public interface TaskExportView {
+    Long getId();
+    String getName();
+    String getDescription();
+    TaskStatus getTaskStatus();
+    Category getCategory();
+    Instant getDeadlineTime();
+    LocalDateTime getCreatedAt();
+}
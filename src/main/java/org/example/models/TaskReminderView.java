@@ -0,0 +1,14 @@
+package org.example.models;
+
+import java.time.Instant;
+
+/**
+ * Проекция задачи для планировщика напоминаний.
+ */
+public interface TaskReminderView {
+    Long getId();
+    Long getUserOwnerId();
+    String getName();
+    TaskStatus getTaskStatus();
+    Instant getDeadlineTime();
+}
@@ -0,0 +1,12 @@
+package org.example.models;
+
+/**
+ * Проекция задачи для поискового индекса: текст, по которому ищут, и то, что показывается в результатах.
+ */
+public interface TaskSearchView {
+    Long getId();
+    Long getUserOwnerId();
+    String getName();
+    String getDescription();
+    TaskStatus getTaskStatus();
+}
@@ -0,0 +1,13 @@
+package org.example.models;
+
+/**
+ * Строка user_task_stats: счетчики задач пользователя с одним статусом и одной категорией.
+ * Категория - порядковый номер {@link Category}, как в tasks.category; -1 и '' - пустые значения.
+ */
+public interface TaskStatsRow {
+    String getTaskStatus();
+    Integer getCategory();
+    Long getTaskCount();
+    Double getTimeAmountSum();
+    Long getTimeAmountCount();
+}
@@ -0,0 +1,13 @@
+package org.example.models;
+
+import java.time.Instant;
+
+/**
+ * Проекция задачи для списков в боте: только колонки, которые выводятся пользователю.
+ */
+public interface TaskView {
+    Long getId();
+    String getName();
+    TaskStatus getTaskStatus();
+    Instant getDeadlineTime();
+}
@@ -0,0 +1,33 @@
+package org.example.models;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "user_settings")
+public class UserSettings {
+    @Id
+    private Long userId;
+
+    private String timeZone;
+
+    private LocalDateTime updatedAt;
+
+    public UserSettings() {
+    }
+
+    public UserSettings(Long userId) {
+        this.userId = userId;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public Long getUserId() { return userId; }
+
+    public String getTimeZone() { return timeZone; }
+    public void setTimeZone(String timeZone) {
+        this.timeZone = timeZone;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+}
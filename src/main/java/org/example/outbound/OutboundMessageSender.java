@@ -0,0 +1,377 @@
+package org.example.outbound;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
+import org.telegram.telegrambots.meta.api.methods.AnswerCallbackQuery;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.send.SendDocument;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiValidationException;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Исходящие сообщения в Telegram.
+ * <p>
+ * У каждого чата своя очередь: сообщения чата уходят строго по одному и по порядку,
+ * с ограничением per-chat-rate, а все чаты вместе - не быстрее global-rate (лимиты Telegram).
+ * Отправка асинхронная, вызывающий получает CompletableFuture с результатом.
+ * <ul>
+ *     <li>429 - повтор через retry_after из ответа, чат на это время приостанавливается;</li>
+ *     <li>сетевые ошибки - повтор с экспоненциальной задержкой, до max-attempts попыток;</li>
+ *     <li>EditMessageText для сообщения, правка которого еще ждет в очереди, заменяет ее
+ *     (промежуточное состояние пользователь все равно бы не увидел).</li>
+ * </ul>
+ */
+@Component
+public class OutboundMessageSender {
+    private static final Logger log = LoggerFactory.getLogger(OutboundMessageSender.class);
+
+    private final TelegramApiClient client;
+    private final MeterRegistry meterRegistry;
+    private final TokenBucket globalBucket;
+    private final double perChatRate;
+    private final double perChatBurst;
+    private final int maxAttempts;
+
+    private final ConcurrentHashMap<String, ChatQueue> chats = new ConcurrentHashMap<>();
+    private final BlockingQueue<ChatQueue> ready = new LinkedBlockingQueue<>();
+    private final ScheduledExecutorService timer;
+    private final Thread dispatcherThread;
+    private volatile boolean running = true;
+
+    // metrics
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final LongAccumulator maxLatencyNanos = new LongAccumulator(Long::max, 0);
+
+    public OutboundMessageSender(
+            MeterRegistry meterRegistry,
+            @Value("${telegram.bot.token}") String botToken,
+            @Value("${telegram.bot.base-url:}") String baseUrl,
+            @Value("${telegram.outbound.threads:8}") int threads,
+            @Value("${telegram.outbound.global-rate:30}") double globalRate,
+            @Value("${telegram.outbound.per-chat-rate:1}") double perChatRate,
+            @Value("${telegram.outbound.per-chat-burst:3}") double perChatBurst,
+            @Value("${telegram.outbound.max-attempts:3}") int maxAttempts) {
+        DefaultBotOptions options = new DefaultBotOptions();
+        options.setMaxThreads(threads);
+        if (!baseUrl.isEmpty()) {
+            options.setBaseUrl(baseUrl);
+        }
+        this.client = new TelegramApiClient(options, botToken);
+        this.meterRegistry = meterRegistry;
+        this.globalBucket = new TokenBucket(globalRate, globalRate);
+        this.perChatRate = perChatRate;
+        this.perChatBurst = perChatBurst;
+        this.maxAttempts = maxAttempts;
+
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "outbound-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleWithFixedDelay(this::evictIdleChats, 1, 1, TimeUnit.MINUTES);
+
+        this.dispatcherThread = new Thread(this::dispatchLoop, "outbound-dispatcher");
+        dispatcherThread.setDaemon(true);
+        dispatcherThread.start();
+    }
+
+    public CompletableFuture<Message> send(SendMessage message) {
+        return enqueue(message.getChatId(), message, null);
+    }
+
+    public CompletableFuture<Serializable> send(EditMessageText edit) {
+        return enqueue(edit.getChatId(), edit, edit.getMessageId());
+    }
+
+    public <T extends Serializable> CompletableFuture<T> send(String chatId, BotApiMethod<T> method) {
+        return enqueue(chatId, method, null);
+    }
+
+    /**
+     * Ответ на callback не считается сообщением в чат: уходит сразу, без очереди и лимитов.
+     */
+    public CompletableFuture<Boolean> answer(AnswerCallbackQuery answer) {
+        return executeAsync(answer).whenComplete((result, error) -> {
+            if (error != null) {
+                log.warn("Failed to answer callback query {}", answer.getCallbackQueryId(), unwrap(error));
+            }
+        });
+    }
+
+    /**
+     * Документ уходит в обход очереди чата и без повторов: содержимое может быть потоком,
+     * который читается только один раз. Общий лимит global-rate при этом соблюдается.
+     */
+    public CompletableFuture<Message> sendDocument(SendDocument document) {
+        long globalWait;
+        while ((globalWait = globalBucket.tryAcquire()) > 0) {
+            LockSupport.parkNanos(globalWait);
+        }
+        return timed(document.getMethod(), System.nanoTime(), client.executeAsync(document));
+    }
+
+    public int getQueueDepth() { return queued.get(); }
+    public long getSentCount() { return sent.sum(); }
+    public long getFailedCount() { return failed.sum(); }
+    public long getRetriedCount() { return retried.sum(); }
+    public long getCoalescedCount() { return coalesced.sum(); }
+    public long getMaxLatencyMillis() { return TimeUnit.NANOSECONDS.toMillis(maxLatencyNanos.get()); }
+
+    public double getAverageLatencyMillis() {
+        long count = sent.sum() + failed.sum();
+        return count == 0 ? 0 : totalLatencyNanos.sum() / (double) count / 1_000_000;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        dispatcherThread.interrupt();
+        timer.shutdownNow();
+        try {
+            client.close();
+        } catch (IOException e) {
+            log.warn("Failed to close Telegram API client", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Serializable> CompletableFuture<T> enqueue(String chatId, BotApiMethod<T> method, Integer editedMessageId) {
+        Objects.requireNonNull(chatId, "chatId");
+        CompletableFuture<?>[] result = new CompletableFuture<?>[1];
+        chats.compute(chatId, (id, chat) -> {
+            if (chat == null) {
+                chat = new ChatQueue(id);
+            }
+            synchronized (chat) {
+                Pending existing = editedMessageId == null ? null : chat.findEdit(editedMessageId);
+                if (existing != null) {
+                    existing.method = method;
+                    coalesced.increment();
+                    result[0] = existing.future;
+                } else {
+                    Pending pending = new Pending(method, editedMessageId);
+                    chat.queue.add(pending);
+                    queued.incrementAndGet();
+                    result[0] = pending.future;
+                    if (!chat.active) {
+                        chat.active = true;
+                        ready.add(chat);
+                    }
+                }
+                chat.lastUsed = System.nanoTime();
+            }
+            return chat;
+        });
+        return (CompletableFuture<T>) result[0];
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                ChatQueue chat = ready.take();
+
+                long chatWait = chat.bucket.tryAcquire();
+                if (chatWait > 0) {
+                    timer.schedule(() -> ready.add(chat), chatWait, TimeUnit.NANOSECONDS);
+                    continue;
+                }
+                long globalWait;
+                while ((globalWait = globalBucket.tryAcquire()) > 0) {
+                    LockSupport.parkNanos(globalWait);
+                }
+
+                Pending pending;
+                synchronized (chat) {
+                    pending = chat.queue.poll();
+                    if (pending == null) {
+                        chat.active = false;
+                        continue;
+                    }
+                }
+                execute(chat, pending);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Outbound dispatcher error", e);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void execute(ChatQueue chat, Pending pending) {
+        pending.attempts++;
+        BotApiMethod<Serializable> method = (BotApiMethod<Serializable>) pending.method;
+        executeAsync(method).whenComplete((result, error) -> {
+            if (error == null) {
+                sent.increment();
+                complete(chat, pending);
+                pending.future.complete(result);
+                return;
+            }
+
+            Throwable cause = unwrap(error);
+            long retryDelayMillis = retryDelayMillis(cause, pending.attempts);
+            if (retryDelayMillis >= 0) {
+                retried.increment();
+                synchronized (chat) {
+                    chat.queue.addFirst(pending);
+                }
+                timer.schedule(() -> ready.add(chat), retryDelayMillis, TimeUnit.MILLISECONDS);
+                return;
+            }
+
+            failed.increment();
+            log.warn("Failed to send {} to chat {}", method.getMethod(), chat.chatId, cause);
+            complete(chat, pending);
+            pending.future.completeExceptionally(cause);
+        });
+    }
+
+    private void complete(ChatQueue chat, Pending pending) {
+        long latency = System.nanoTime() - pending.enqueuedAt;
+        totalLatencyNanos.add(latency);
+        maxLatencyNanos.accumulate(latency);
+        queued.decrementAndGet();
+
+        synchronized (chat) {
+            if (chat.queue.isEmpty()) {
+                chat.active = false;
+            } else {
+                ready.add(chat);
+            }
+        }
+    }
+
+    /**
+     * @return задержка перед повтором или -1, если повторять не нужно
+     */
+    private long retryDelayMillis(Throwable error, int attempts) {
+        if (attempts >= maxAttempts || error instanceof TelegramApiValidationException) {
+            return -1;
+        }
+        if (error instanceof TelegramApiRequestException) {
+            TelegramApiRequestException requestError = (TelegramApiRequestException) error;
+            if (requestError.getParameters() != null && requestError.getParameters().getRetryAfter() != null) {
+                return TimeUnit.SECONDS.toMillis(requestError.getParameters().getRetryAfter());
+            }
+            Integer code = requestError.getErrorCode();
+            // 4xx кроме 429 - ошибка в самом запросе, повтор не поможет
+            if (code != null && code != 429 && code < 500) {
+                return -1;
+            }
+        }
+        return 500L << (attempts - 1);
+    }
+
+    private void evictIdleChats() {
+        long idleBefore = System.nanoTime() - TimeUnit.MINUTES.toNanos(1);
+        for (String chatId : chats.keySet()) {
+            chats.computeIfPresent(chatId, (id, chat) -> {
+                synchronized (chat) {
+                    return !chat.active && chat.queue.isEmpty() && chat.lastUsed < idleBefore ? null : chat;
+                }
+            });
+        }
+    }
+
+    private <T extends Serializable> CompletableFuture<T> executeAsync(BotApiMethod<T> method) {
+        long start = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = client.executeAsync(method);
+        } catch (TelegramApiException e) {
+            // ошибка валидации запроса до отправки
+            return CompletableFuture.failedFuture(e);
+        }
+        return timed(method.getMethod(), start, future);
+    }
+
+    private <T> CompletableFuture<T> timed(String method, long start, CompletableFuture<T> future) {
+        return future.whenComplete((result, error) -> Timer.builder("telegram.api.requests")
+                .tag("method", method)
+                .tag("outcome", outcome(error))
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+    }
+
+    private static String outcome(Throwable error) {
+        if (error == null) {
+            return "ok";
+        }
+        Throwable cause = unwrap(error);
+        if (cause instanceof TelegramApiRequestException
+                && Integer.valueOf(429).equals(((TelegramApiRequestException) cause).getErrorCode())) {
+            return "rate_limited";
+        }
+        return "error";
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private class ChatQueue {
+        final String chatId;
+        final ArrayDeque<Pending> queue = new ArrayDeque<>();
+        final TokenBucket bucket = new TokenBucket(perChatRate, perChatBurst);
+        // чат в ready, ждет токена или ответа на отправленное сообщение
+        boolean active;
+        long lastUsed;
+
+        ChatQueue(String chatId) {
+            this.chatId = chatId;
+        }
+
+        // склеиваем только подряд идущие правки, чтобы не менять порядок относительно других сообщений
+        Pending findEdit(Integer messageId) {
+            Pending last = queue.peekLast();
+            return last != null && messageId.equals(last.editedMessageId) ? last : null;
+        }
+    }
+
+    private static class Pending {
+        volatile BotApiMethod<? extends Serializable> method;
+        final Integer editedMessageId;
+        final CompletableFuture<Serializable> future = new CompletableFuture<>();
+        final long enqueuedAt = System.nanoTime();
+        int attempts;
+
+        Pending(BotApiMethod<? extends Serializable> method, Integer editedMessageId) {
+            this.method = method;
+            this.editedMessageId = editedMessageId;
+        }
+    }
+}
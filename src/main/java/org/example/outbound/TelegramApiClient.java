@@ -0,0 +1,83 @@
+package org.example.outbound;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.BufferedHttpEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+import org.telegram.telegrambots.Constants;
+import org.telegram.telegrambots.bots.DefaultAbsSender;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Клиент Bot API для исходящих сообщений, в котором действительно {@code maxThreads} запросов идут одновременно.
+ * <p>
+ * DefaultAbsSender строит свой пул соединений с лимитом по умолчанию - 2 соединения на хост, а все запросы
+ * идут на один хост api.telegram.org: остальные потоки {@code exe} стоят в ожидании соединения. Здесь методы
+ * Bot API (JSON-запросы) уходят через свой пул на {@code maxThreads} соединений. Файлы (SendDocument и т.п.)
+ * по-прежнему идут через клиент библиотеки.
+ */
+class TelegramApiClient extends DefaultAbsSender implements AutoCloseable {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final CloseableHttpClient httpClient;
+
+    TelegramApiClient(DefaultBotOptions options, String botToken) {
+        super(options, botToken);
+        int connections = options.getMaxThreads();
+        PoolingHttpClientConnectionManager pool = new PoolingHttpClientConnectionManager(70, TimeUnit.SECONDS);
+        pool.setMaxTotal(connections);
+        pool.setDefaultMaxPerRoute(connections);
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(pool)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setSocketTimeout(Constants.SOCKET_TIMEOUT)
+                        .setConnectTimeout(Constants.SOCKET_TIMEOUT)
+                        .setConnectionRequestTimeout(Constants.SOCKET_TIMEOUT)
+                        .build())
+                .build();
+    }
+
+    @Override
+    protected <T extends Serializable, Method extends BotApiMethod<T>> CompletableFuture<T> sendApiMethodAsync(
+            Method method) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        exe.execute(() -> {
+            try {
+                method.validate();
+                result.complete(method.deserializeResponse(post(method)));
+            } catch (IOException | TelegramApiException | RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public void close() throws IOException {
+        exe.shutdown();
+        httpClient.close();
+    }
+
+    private String post(BotApiMethod<?> method) throws IOException {
+        HttpPost post = new HttpPost(getBaseUrl() + method.getMethod());
+        post.addHeader("charset", StandardCharsets.UTF_8.name());
+        post.setEntity(new StringEntity(objectMapper.writeValueAsString(method), ContentType.APPLICATION_JSON));
+        try (CloseableHttpResponse response = httpClient.execute(post)) {
+            return EntityUtils.toString(new BufferedHttpEntity(response.getEntity()), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package org.example.outbound;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket: {@code ratePerSecond} токенов в секунду, не больше {@code burst} в запасе.
+ */
+class TokenBucket {
+    private final double nanosPerToken;
+    private final double burst;
+    private final LongSupplier nanoClock;
+    private double tokens;
+    private long refilledAt;
+
+    TokenBucket(double ratePerSecond, double burst) {
+        this(ratePerSecond, burst, System::nanoTime);
+    }
+
+    // часы подменяются в тестах
+    TokenBucket(double ratePerSecond, double burst, LongSupplier nanoClock) {
+        this.nanosPerToken = 1_000_000_000d / ratePerSecond;
+        this.burst = burst;
+        this.nanoClock = nanoClock;
+        this.tokens = burst;
+        this.refilledAt = nanoClock.getAsLong();
+    }
+
+    /**
+     * Забирает токен, если он есть.
+     *
+     * @return 0, если токен получен, иначе сколько наносекунд ждать до следующего
+     */
+    synchronized long tryAcquire() {
+        long now = nanoClock.getAsLong();
+        tokens = Math.min(burst, tokens + (now - refilledAt) / nanosPerToken);
+        refilledAt = now;
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) * nanosPerToken);
+    }
+}
@@ -0,0 +1,325 @@
+package org.example.reminders;
+
+import org.example.cluster.ClusterMembership;
+import org.example.cluster.MembershipChangedEvent;
+import org.example.models.TaskReminderView;
+import org.example.models.TaskStatus;
+import org.example.outbound.OutboundMessageSender;
+import org.example.repo.TaskRepository;
+import org.example.services.TaskChangedEvent;
+import org.example.services.UserZoneService;
+import org.example.time.DeadlineFormatter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Напоминания о дедлайнах.
+ * <p>
+ * В колесо таймеров загружаются только напоминания, которые сработают в пределах horizon-hours;
+ * окно периодически сдвигается одним запросом по индексу на deadline_time. Изменения задач
+ * приходят через {@link TaskChangedEvent} и правят колесо точечно. Сработавшие за тик
+ * напоминания отправляются одной пачкой в отдельном потоке, чтобы не задерживать колесо.
+ * <p>
+ * Колесо может отставать от базы: сдвиг окна читает строки курсором и может вернуть в колесо
+ * версию задачи, которую параллельное изменение уже закрыло или перенесло. Поэтому перед отправкой
+ * пачка перечитывается по id, и напоминание уходит, только если задача не закрыта, а дедлайн тот же.
+ * Отправленные напоминания отмечаются в sent_reminders: после рестарта первая загрузка берет и те,
+ * чье время пришло, пока узел лежал, но не повторяет уже отправленные.
+ * <p>
+ * В кластере каждый узел держит в колесе только напоминания своих пользователей (по кольцу
+ * {@link ClusterMembership}): изменения задач пользователя публикуются на его узле, и напоминание
+ * уходит один раз. После смены состава колесо пересобирается: чужие напоминания снимаются,
+ * ставшие своими загружаются за все уже загруженное окно.
+ * <p>
+ * Сообщение отправляется в чат с id владельца задачи: бот работает в личных чатах, где они совпадают.
+ */
+@Component
+@ConditionalOnProperty(name = "telegram.reminders.enabled", havingValue = "true", matchIfMissing = true)
+public class DeadlineReminderScheduler {
+    private static final Logger log = LoggerFactory.getLogger(DeadlineReminderScheduler.class);
+    // размер IN-списка при перечитывании сработавших напоминаний
+    private static final int RECHECK_CHUNK = 1000;
+
+    private final TaskRepository taskRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboundMessageSender sender;
+    private final UserZoneService userZones;
+    private final ClusterMembership membership;
+    private final long leadMillis;
+    private final long tickMillis;
+    private final long horizonMillis;
+
+    private final TimingWheel<Reminder> wheel;
+    private final ScheduledExecutorService ticker;
+    private final ExecutorService delivery;
+
+    // напоминания раньше этого момента уже загружены в колесо
+    private volatile long loadedUntil;
+    private volatile boolean initialized;
+
+    public DeadlineReminderScheduler(
+            TaskRepository taskRepository,
+            TransactionTemplate transactionTemplate,
+            OutboundMessageSender sender,
+            UserZoneService userZones,
+            ObjectProvider<ClusterMembership> membership,
+            @Value("${telegram.reminders.lead-minutes:60}") long leadMinutes,
+            @Value("${telegram.reminders.tick-ms:1000}") long tickMillis,
+            @Value("${telegram.reminders.horizon-hours:24}") long horizonHours) {
+        this.taskRepository = taskRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.sender = sender;
+        this.userZones = userZones;
+        this.membership = membership.getIfAvailable();
+        this.leadMillis = TimeUnit.MINUTES.toMillis(leadMinutes);
+        this.tickMillis = tickMillis;
+        this.horizonMillis = TimeUnit.HOURS.toMillis(horizonHours);
+
+        long now = System.currentTimeMillis();
+        this.wheel = new TimingWheel<>(tickMillis, (int) Math.min(1 << 20, horizonMillis / tickMillis + 1), now);
+        this.loadedUntil = now;
+
+        this.ticker = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "reminder-wheel"));
+        this.delivery = Executors.newSingleThreadExecutor(r -> daemon(r, "reminder-delivery"));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        long refillPeriod = Math.max(tickMillis, horizonMillis / 4);
+        ticker.scheduleWithFixedDelay(this::refillSafely, 0, refillPeriod, TimeUnit.MILLISECONDS);
+        ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChanged(TaskChangedEvent event) {
+        if (event.getType() == TaskChangedEvent.Type.DELETED) {
+            event.getTaskIds().forEach(wheel::cancel);
+            return;
+        }
+        if (!event.isBulk()) {
+            taskRepository.findReminderById(event.getTaskId()).ifPresentOrElse(
+                    this::reschedule,
+                    () -> wheel.cancel(event.getTaskId()));
+            return;
+        }
+        // пачка перечитывается одним запросом; задачи, которых уже нет, снимаются с колеса
+        Set<Long> missing = new HashSet<>(event.getTaskIds());
+        for (TaskReminderView task : taskRepository.findRemindersByIdIn(event.getTaskIds())) {
+            missing.remove(task.getId());
+            reschedule(task);
+        }
+        missing.forEach(wheel::cancel);
+    }
+
+    @EventListener
+    public void onMembershipChanged(MembershipChangedEvent event) {
+        // в потоке колеса, чтобы не пересекаться со сдвигом окна
+        ticker.execute(this::reloadSafely);
+    }
+
+    public int getScheduledCount() {
+        return wheel.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+        delivery.shutdownNow();
+    }
+
+    private void reschedule(TaskReminderView task) {
+        if (!isLocal(task.getUserOwnerId()) || task.getDeadlineTime() == null || task.getTaskStatus() == TaskStatus.DONE
+                || task.getDeadlineTime().toEpochMilli() < System.currentTimeMillis()) {
+            wheel.cancel(task.getId());
+            return;
+        }
+        long fireAt = task.getDeadlineTime().toEpochMilli() - leadMillis;
+        if (fireAt < loadedUntil) {
+            wheel.schedule(task.getId(), fireAt, Reminder.of(task));
+            return;
+        }
+        // попадет в колесо при следующем сдвиге окна. Окно проверяется еще раз после снятия: если его успели
+        // сдвинуть, загрузка могла поставить задачу до нашего cancel, а если сдвинут позже - она ее прочитает
+        wheel.cancel(task.getId());
+        if (fireAt < loadedUntil) {
+            wheel.schedule(task.getId(), fireAt, Reminder.of(task));
+        }
+    }
+
+    private void refillSafely() {
+        try {
+            refill();
+        } catch (Exception e) {
+            log.error("Failed to load upcoming reminders", e);
+        }
+    }
+
+    private void refill() {
+        long now = System.currentTimeMillis();
+        long from = loadedUntil;
+        long until = now + horizonMillis;
+
+        // окно напоминаний [from, until) - это дедлайны [from + lead, until + lead);
+        // при первой загрузке берем все будущие дедлайны, включая те, чье напоминание уже должно было прийти;
+        // уже отправленные отсекает sent_reminders
+        Instant deadlineFrom = Instant.ofEpochMilli(initialized ? from + leadMillis : now);
+        // окно сдвигается до запроса: изменение, закоммиченное во время чтения, reschedule уже поставит сам,
+        // а задача, которую поставят оба, в колесе одна - оно ключуется по id
+        loadedUntil = until;
+        int loaded;
+        try {
+            loaded = load(deadlineFrom, Instant.ofEpochMilli(until + leadMillis));
+        } catch (RuntimeException e) {
+            // окно не загружено - в следующий раз грузим его снова
+            loadedUntil = from;
+            throw e;
+        }
+        initialized = true;
+        log.info("Loaded {} reminders, {} scheduled in total", loaded, wheel.size());
+    }
+
+    private void reloadSafely() {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.error("Failed to reload reminders after cluster membership change", e);
+        }
+    }
+
+    // до первой загрузки пересобирать нечего: она сама возьмет только своих пользователей
+    private void reload() {
+        if (!initialized) {
+            return;
+        }
+        int dropped = wheel.removeIf(reminder -> !isLocal(reminder.userId));
+        int loaded = load(Instant.now(), Instant.ofEpochMilli(loadedUntil + leadMillis));
+        log.info("Cluster membership changed: dropped {} reminders, loaded {}, {} scheduled in total",
+                dropped, loaded, wheel.size());
+    }
+
+    /**
+     * Ставит в колесо напоминания своих пользователей с дедлайном в [deadlineFrom, deadlineUntil).
+     * Строки читаются по всем пользователям, чужие отсеиваются здесь: кольцо живет только в памяти узла.
+     */
+    private int load(Instant deadlineFrom, Instant deadlineUntil) {
+        Integer loaded = transactionTemplate.execute(status -> {
+            int count = 0;
+            try (Stream<TaskReminderView> tasks =
+                         taskRepository.streamRemindersByDeadline(deadlineFrom, deadlineUntil, TaskStatus.DONE)) {
+                for (TaskReminderView task : (Iterable<TaskReminderView>) tasks::iterator) {
+                    if (isLocal(task.getUserOwnerId())) {
+                        long fireAt = task.getDeadlineTime().toEpochMilli() - leadMillis;
+                        wheel.schedule(task.getId(), fireAt, Reminder.of(task));
+                        count++;
+                    }
+                }
+            }
+            return count;
+        });
+        return loaded == null ? 0 : loaded;
+    }
+
+    private boolean isLocal(Long userId) {
+        return membership == null || membership.isLocal(userId);
+    }
+
+    private void tick() {
+        List<Reminder> due = wheel.advance(System.currentTimeMillis());
+        if (!due.isEmpty()) {
+            delivery.execute(() -> deliver(due));
+        }
+    }
+
+    private void deliver(List<Reminder> batch) {
+        for (int from = 0; from < batch.size(); from += RECHECK_CHUNK) {
+            List<Reminder> chunk = batch.subList(from, Math.min(batch.size(), from + RECHECK_CHUNK));
+            try {
+                deliverChunk(chunk);
+            } catch (Exception e) {
+                log.error("Failed to deliver {} reminders", chunk.size(), e);
+            }
+        }
+    }
+
+    private void deliverChunk(List<Reminder> chunk) {
+        List<Long> ids = new ArrayList<>(chunk.size());
+        for (Reminder reminder : chunk) {
+            ids.add(reminder.taskId);
+        }
+        Map<Long, TaskReminderView> current = new HashMap<>();
+        for (TaskReminderView task : taskRepository.findRemindersByIdIn(ids)) {
+            current.put(task.getId(), task);
+        }
+
+        List<Long> sent = new ArrayList<>(chunk.size());
+        for (Reminder reminder : chunk) {
+            TaskReminderView task = current.get(reminder.taskId);
+            // пользователь мог переехать на другой узел после смены состава - тогда напомнит тот узел
+            if (task == null || task.getTaskStatus() == TaskStatus.DONE || task.getDeadlineTime() == null
+                    || !isLocal(task.getUserOwnerId())) {
+                continue;
+            }
+            if (task.getDeadlineTime().toEpochMilli() != reminder.deadlineMillis) {
+                // в колесе была устаревшая версия: ставим напоминание по текущему дедлайну
+                reschedule(task);
+                continue;
+            }
+            SendMessage message = new SendMessage();
+            message.setChatId(task.getUserOwnerId().toString());
+            message.setText("⏰ Напоминание: задача '" + task.getName() + "'\nДедлайн: "
+                    + DeadlineFormatter.format(task.getDeadlineTime(), userZones.getZone(task.getUserOwnerId())));
+            sender.send(message);
+            sent.add(task.getId());
+        }
+        if (!sent.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> taskRepository.markRemindersSent(sent));
+        }
+    }
+
+    private static Thread daemon(Runnable r, String name) {
+        Thread thread = new Thread(r, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    // в колесе только ключ перечитывания, владелец (для смены состава) и дедлайн, о котором напоминаем;
+    // остальное берется из базы при отправке
+    static class Reminder {
+        final Long taskId;
+        final Long userId;
+        final long deadlineMillis;
+
+        Reminder(Long taskId, Long userId, long deadlineMillis) {
+            this.taskId = taskId;
+            this.userId = userId;
+            this.deadlineMillis = deadlineMillis;
+        }
+
+        static Reminder of(TaskReminderView task) {
+            return new Reminder(task.getId(), task.getUserOwnerId(), task.getDeadlineTime().toEpochMilli());
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package org.example.reminders;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Хешированное колесо таймеров: массив корзин по тикам, в каждой - двусвязный список записей.
+ * <p>
+ * Вставка и отмена O(1) (запись находится по ключу через HashMap и вырезается из списка),
+ * срабатывание - обход одной корзины за тик. Запись хранит абсолютный номер тика, поэтому
+ * таймеры дальше одного оборота колеса просто пропускаются, пока их тик не наступит.
+ * Все методы синхронизированы: операции короткие, а тикает колесо один поток.
+ */
+public class TimingWheel<T> {
+    private final long tickMillis;
+    private final long startMillis;
+    // голова списка каждой корзины; List вместо массива, потому что массив Node<T>[] не создать без raw type
+    private final List<Node<T>> buckets;
+    private final int mask;
+    private final Map<Long, Node<T>> index = new HashMap<>();
+
+    // последний обработанный тик
+    private long currentTick;
+
+    public TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        int size = Integer.highestOneBit(Math.max(2, wheelSize - 1)) << 1;
+        this.tickMillis = tickMillis;
+        this.startMillis = startMillis;
+        this.buckets = new ArrayList<>(Collections.nCopies(size, null));
+        this.mask = size - 1;
+        this.currentTick = 0;
+    }
+
+    /**
+     * Планирует (или переносит) таймер с ключом {@code key}. Просроченный таймер сработает на ближайшем тике.
+     */
+    public synchronized void schedule(long key, long fireAtMillis, T payload) {
+        Node<T> existing = index.remove(key);
+        if (existing != null) {
+            unlink(existing);
+        }
+
+        long tick = Math.max(currentTick + 1, ticksOf(fireAtMillis));
+        Node<T> node = new Node<>(key, tick, payload);
+        link(node);
+        index.put(key, node);
+    }
+
+    public synchronized boolean cancel(long key) {
+        Node<T> node = index.remove(key);
+        if (node == null) {
+            return false;
+        }
+        unlink(node);
+        return true;
+    }
+
+    public synchronized boolean contains(long key) {
+        return index.containsKey(key);
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * Снимает все таймеры, чей payload подходит под условие. Обходит все записи - для редких событий.
+     *
+     * @return сколько таймеров снято
+     */
+    public synchronized int removeIf(Predicate<? super T> filter) {
+        int removed = 0;
+        Iterator<Node<T>> nodes = index.values().iterator();
+        while (nodes.hasNext()) {
+            Node<T> node = nodes.next();
+            if (filter.test(node.payload)) {
+                nodes.remove();
+                unlink(node);
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Прокручивает колесо до {@code nowMillis} и возвращает все сработавшие таймеры.
+     */
+    public synchronized List<T> advance(long nowMillis) {
+        List<T> expired = new ArrayList<>();
+        long targetTick = ticksOf(nowMillis);
+        while (currentTick < targetTick) {
+            currentTick++;
+            Node<T> node = buckets.get((int) (currentTick & mask));
+            while (node != null) {
+                Node<T> next = node.next;
+                if (node.tick <= currentTick) {
+                    unlink(node);
+                    index.remove(node.key);
+                    expired.add(node.payload);
+                }
+                node = next;
+            }
+        }
+        return expired;
+    }
+
+    private long ticksOf(long millis) {
+        return Math.max(0, (millis - startMillis) / tickMillis);
+    }
+
+    private void link(Node<T> node) {
+        int bucket = (int) (node.tick & mask);
+        Node<T> head = buckets.get(bucket);
+        node.next = head;
+        if (head != null) {
+            head.prev = node;
+        }
+        buckets.set(bucket, node);
+    }
+
+    private void unlink(Node<T> node) {
+        if (node.prev != null) {
+            node.prev.next = node.next;
+        } else {
+            buckets.set((int) (node.tick & mask), node.next);
+        }
+        if (node.next != null) {
+            node.next.prev = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+    }
+
+    private static class Node<T> {
+        final long key;
+        final long tick;
+        final T payload;
+        Node<T> prev;
+        Node<T> next;
+
+        Node(long key, long tick, T payload) {
+            this.key = key;
+            this.tick = tick;
+            this.payload = payload;
+        }
+    }
+}
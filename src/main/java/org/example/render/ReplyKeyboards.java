@@ -0,0 +1,47 @@
+package org.example.render;
+
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.ReplyKeyboardMarkup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.KeyboardRow;
+
+import java.util.List;
+
+/**
+ * Постоянные клавиатуры под полем ввода. Собираются один раз и отдаются во все сообщения,
+ * поэтому менять их после создания нельзя.
+ */
+public final class ReplyKeyboards {
+    public static final ReplyKeyboardMarkup MAIN_MENU = mainMenu();
+    public static final ReplyKeyboardMarkup BACK = back();
+
+    private ReplyKeyboards() {
+    }
+
+    private static ReplyKeyboardMarkup mainMenu() {
+        ReplyKeyboardMarkup keyboardMarkup = new ReplyKeyboardMarkup();
+        keyboardMarkup.setResizeKeyboard(true);
+        keyboardMarkup.setOneTimeKeyboard(false);
+        keyboardMarkup.setSelective(true);
+        keyboardMarkup.setKeyboard(List.of(
+                row("📝 Добавить задачу", "📋 Мои задачи"),
+                row("⏰ Ближайшие дедлайны", "✅ Выполненные"),
+                row("🔄 В процессе", "📥 Бэклог"),
+                row("📊 Статистика", "⚙️ Настройки", "❓ Помощь")));
+        return keyboardMarkup;
+    }
+
+    private static ReplyKeyboardMarkup back() {
+        ReplyKeyboardMarkup keyboardMarkup = new ReplyKeyboardMarkup();
+        keyboardMarkup.setResizeKeyboard(true);
+        keyboardMarkup.setOneTimeKeyboard(true);
+        keyboardMarkup.setKeyboard(List.of(row("🔙 Назад")));
+        return keyboardMarkup;
+    }
+
+    private static KeyboardRow row(String... buttons) {
+        KeyboardRow row = new KeyboardRow();
+        for (String button : buttons) {
+            row.add(button);
+        }
+        return row;
+    }
+}
@@ -0,0 +1,118 @@
+package org.example.render;
+
+import org.example.models.Task;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+
+/**
+ * Готовые фрагменты экрана "Мои задачи" по задачам: строка текста и ряды кнопок.
+ * <p>
+ * Фрагмент годен, пока у задачи те же updatedAt и version (а для текста - тот же часовой пояс),
+ * поэтому явная инвалидация не нужна: измененная задача просто не совпадет со своим фрагментом
+ * и будет отрисована заново. Фрагменты неизменяемы и отдаются в сообщения как есть, без копирования.
+ * <p>
+ * Размер ограничен max-size; LRU разбит на сегменты по id задачи, чтобы воркеры не ждали одну блокировку.
+ */
+public final class TaskFragmentCache {
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public TaskFragmentCache(int maxSize) {
+        int segmentSize = Math.max(1, maxSize / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(segmentSize);
+        }
+    }
+
+    /**
+     * @param render строит фрагмент при промахе; вызывается без блокировки
+     */
+    Fragment get(Task task, ZoneId zone, BiFunction<Task, ZoneId, Fragment> render) {
+        Segment segment = segments[(int) (task.getId() ^ (task.getId() >>> 32)) & (SEGMENTS - 1)];
+        Fragment cached;
+        segment.lock.lock();
+        try {
+            cached = segment.map.get(task.getId());
+        } finally {
+            segment.lock.unlock();
+        }
+        if (cached != null && cached.matches(task, zone)) {
+            hits.increment();
+            return cached;
+        }
+
+        misses.increment();
+        Fragment fresh = render.apply(task, zone);
+        segment.lock.lock();
+        try {
+            segment.map.put(task.getId(), fresh);
+        } finally {
+            segment.lock.unlock();
+        }
+        return fresh;
+    }
+
+    public long getHitCount() { return hits.sum(); }
+    public long getMissCount() { return misses.sum(); }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                size += segment.map.size();
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    static final class Fragment {
+        private final LocalDateTime updatedAt;
+        private final Long version;
+        private final ZoneId zone;
+        final String line;
+        final List<List<InlineKeyboardButton>> rows;
+
+        Fragment(Task task, ZoneId zone, String line, List<List<InlineKeyboardButton>> rows) {
+            this.updatedAt = task.getUpdatedAt();
+            this.version = task.getVersion();
+            this.zone = zone;
+            this.line = line;
+            this.rows = rows;
+        }
+
+        boolean matches(Task task, ZoneId zone) {
+            return Objects.equals(version, task.getVersion())
+                    && Objects.equals(updatedAt, task.getUpdatedAt())
+                    && this.zone.equals(zone);
+        }
+    }
+
+    private static final class Segment {
+        final ReentrantLock lock = new ReentrantLock();
+        final LinkedHashMap<Long, Fragment> map;
+
+        Segment(int maxSize) {
+            this.map = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Fragment> eldest) {
+                    return size() > maxSize;
+                }
+            };
+        }
+    }
+}
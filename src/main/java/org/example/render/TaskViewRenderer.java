@@ -0,0 +1,265 @@
+package org.example.render;
+
+import org.example.callback.CallbackAction;
+import org.example.callback.CallbackCodec;
+import org.example.models.Task;
+import org.example.models.TaskStatus;
+import org.example.search.TaskSearchIndex;
+import org.example.services.TaskPage;
+import org.example.time.DeadlineFormatter;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Текст и клавиатуры экрана "Мои задачи". Вынесены из TelegramBot без зависимостей от Spring,
+ * чтобы их можно было гонять в JMH-бенчмарках.
+ */
+public final class TaskViewRenderer {
+
+    private TaskViewRenderer() {
+    }
+
+    private static final List<InlineKeyboardButton> SEPARATOR_ROW =
+            row("────────────", CallbackCodec.encode(CallbackAction.SEPARATOR));
+    private static final List<InlineKeyboardButton> SELECT_ROW =
+            row("☑️ Выбрать несколько", CallbackCodec.encode(CallbackAction.SELECT_START));
+    private static final List<InlineKeyboardButton> BACK_TO_MAIN_ROW =
+            row("🔙 Назад в меню", CallbackCodec.encode(CallbackAction.BACK_TO_MAIN));
+    private static final InlineKeyboardMarkup BACK_TO_TASKS = new InlineKeyboardMarkup(
+            List.of(row("🔙 К списку задач", CallbackCodec.encode(CallbackAction.BACK_TO_TASKS))));
+
+    public static String renderTasksPage(TaskPage page, ZoneId zone) {
+        StringBuilder tasksText = new StringBuilder("📋 Ваши задачи:\n\n");
+        for (Task task : page.getTasks()) {
+            tasksText.append(taskLine(task, zone));
+        }
+        return tasksText.toString();
+    }
+
+    /**
+     * То же, что {@link #renderTasksPage(TaskPage, ZoneId)}, но строки неизменившихся задач берутся из кэша.
+     */
+    public static String renderTasksPage(TaskPage page, ZoneId zone, TaskFragmentCache cache) {
+        StringBuilder tasksText = new StringBuilder("📋 Ваши задачи:\n\n");
+        for (Task task : page.getTasks()) {
+            tasksText.append(cache.get(task, zone, TaskViewRenderer::fragment).line);
+        }
+        return tasksText.toString();
+    }
+
+    public static InlineKeyboardMarkup tasksKeyboard(TaskPage page) {
+        List<List<InlineKeyboardButton>> rows = new ArrayList<>();
+        for (Task task : page.getTasks()) {
+            rows.addAll(taskRows(task));
+        }
+        return pageKeyboard(page, rows);
+    }
+
+    /**
+     * То же, что {@link #tasksKeyboard(TaskPage)}, но ряды кнопок неизменившихся задач берутся из кэша.
+     * Пояс нужен, чтобы попасть в те же фрагменты, что и текст страницы.
+     */
+    public static InlineKeyboardMarkup tasksKeyboard(TaskPage page, TaskFragmentCache cache, ZoneId zone) {
+        List<List<InlineKeyboardButton>> rows = new ArrayList<>(page.getTasks().size() * 5 + 3);
+        for (Task task : page.getTasks()) {
+            rows.addAll(cache.get(task, zone, TaskViewRenderer::fragment).rows);
+        }
+        return pageKeyboard(page, rows);
+    }
+
+    public static String renderSelectionPage(int selectedCount) {
+        return "☑️ Отметьте задачи и выберите действие внизу.\nВыбрано: " + selectedCount;
+    }
+
+    /**
+     * Клавиатура режима выбора: по кнопке-флажку на задачу, листание и действия над всеми отмеченными.
+     */
+    public static InlineKeyboardMarkup selectionKeyboard(TaskPage page, Set<Long> selected) {
+        InlineKeyboardMarkup keyboardMarkup = new InlineKeyboardMarkup();
+        List<List<InlineKeyboardButton>> rows = new ArrayList<>();
+
+        for (Task task : page.getTasks()) {
+            List<InlineKeyboardButton> taskRow = new ArrayList<>();
+            InlineKeyboardButton toggleButton = new InlineKeyboardButton();
+            toggleButton.setText((selected.contains(task.getId()) ? "✅ " : "⬜ ")
+                    + task.getName() + " [" + task.getTaskStatus() + "]");
+            toggleButton.setCallbackData(CallbackCodec.encode(CallbackAction.SELECT_TOGGLE, task.getId()));
+            taskRow.add(toggleButton);
+            rows.add(taskRow);
+        }
+
+        List<InlineKeyboardButton> pageRow = new ArrayList<>();
+        if (page.hasPrevious()) {
+            InlineKeyboardButton prevButton = new InlineKeyboardButton();
+            prevButton.setText("⬅️ Назад");
+            prevButton.setCallbackData(CallbackCodec.encode(
+                    CallbackAction.SELECT_PAGE_PREV, page.firstCursor().getId(), page.firstCursor().toMicros()));
+            pageRow.add(prevButton);
+        }
+        InlineKeyboardButton allButton = new InlineKeyboardButton();
+        allButton.setText("☑️ Все на странице");
+        allButton.setCallbackData(CallbackCodec.encode(CallbackAction.SELECT_PAGE_ALL));
+        pageRow.add(allButton);
+        if (page.hasNext()) {
+            InlineKeyboardButton nextButton = new InlineKeyboardButton();
+            nextButton.setText("Вперед ➡️");
+            nextButton.setCallbackData(CallbackCodec.encode(
+                    CallbackAction.SELECT_PAGE_NEXT, page.lastCursor().getId(), page.lastCursor().toMicros()));
+            pageRow.add(nextButton);
+        }
+        rows.add(pageRow);
+
+        if (!selected.isEmpty()) {
+            List<InlineKeyboardButton> statusRow = new ArrayList<>();
+            InlineKeyboardButton doneButton = new InlineKeyboardButton();
+            doneButton.setText("✅ Выполнено (" + selected.size() + ")");
+            doneButton.setCallbackData(CallbackCodec.encode(CallbackAction.BULK_SET_STATUS, 0, TaskStatus.DONE));
+            statusRow.add(doneButton);
+
+            InlineKeyboardButton inProgressButton = new InlineKeyboardButton();
+            inProgressButton.setText("🔄 В процессе");
+            inProgressButton.setCallbackData(CallbackCodec.encode(CallbackAction.BULK_SET_STATUS, 0, TaskStatus.IN_PROGRESS));
+            statusRow.add(inProgressButton);
+
+            InlineKeyboardButton backlogButton = new InlineKeyboardButton();
+            backlogButton.setText("📥 В бэклог");
+            backlogButton.setCallbackData(CallbackCodec.encode(CallbackAction.BULK_SET_STATUS, 0, TaskStatus.BACKLOG));
+            statusRow.add(backlogButton);
+            rows.add(statusRow);
+
+            List<InlineKeyboardButton> deleteRow = new ArrayList<>();
+            InlineKeyboardButton deleteButton = new InlineKeyboardButton();
+            deleteButton.setText("❌ Удалить (" + selected.size() + ")");
+            deleteButton.setCallbackData(CallbackCodec.encode(CallbackAction.BULK_DELETE));
+            deleteRow.add(deleteButton);
+            rows.add(deleteRow);
+        }
+
+        List<InlineKeyboardButton> cancelRow = new ArrayList<>();
+        InlineKeyboardButton cancelButton = new InlineKeyboardButton();
+        cancelButton.setText("🔙 Отмена");
+        cancelButton.setCallbackData(CallbackCodec.encode(CallbackAction.SELECT_CANCEL));
+        cancelRow.add(cancelButton);
+        rows.add(cancelRow);
+
+        keyboardMarkup.setKeyboard(rows);
+        return keyboardMarkup;
+    }
+
+    public static String renderSearchPage(String query, TaskSearchIndex.Page page) {
+        if (page.getTotal() == 0) {
+            return "🔍 По запросу «" + query + "» ничего не найдено";
+        }
+        return "🔍 Найдено по запросу «" + query + "»: " + page.getTotal()
+                + "\nПоказаны " + (page.getOffset() + 1) + "-" + (page.getOffset() + page.getHits().size());
+    }
+
+    /**
+     * По кнопке на найденную задачу (открывает карточку, как в "Мои задачи") и листание.
+     *
+     * @param queryKey ключ запроса для кнопок листания: по нему видно, что запрос с тех пор не сменился
+     */
+    public static InlineKeyboardMarkup searchKeyboard(TaskSearchIndex.Page page, int queryKey) {
+        List<List<InlineKeyboardButton>> rows = new ArrayList<>(page.getHits().size() + 2);
+        for (TaskSearchIndex.Hit hit : page.getHits()) {
+            rows.add(row("📝 " + hit.getName() + " [" + hit.getStatus() + "]",
+                    CallbackCodec.encode(CallbackAction.INFO, hit.getTaskId())));
+        }
+
+        List<InlineKeyboardButton> pageRow = new ArrayList<>(2);
+        if (page.hasPrevious()) {
+            pageRow.add(button("⬅️ Назад", CallbackCodec.encode(CallbackAction.SEARCH_PAGE, queryKey,
+                    Math.max(0, page.getOffset() - page.getLimit()))));
+        }
+        if (page.hasNext()) {
+            pageRow.add(button("Вперед ➡️", CallbackCodec.encode(CallbackAction.SEARCH_PAGE, queryKey,
+                    page.getOffset() + page.getHits().size())));
+        }
+        if (!pageRow.isEmpty()) {
+            rows.add(pageRow);
+        }
+        rows.add(BACK_TO_MAIN_ROW);
+        return new InlineKeyboardMarkup(rows);
+    }
+
+    /**
+     * @return общий неизменяемый экземпляр; менять его нельзя
+     */
+    public static InlineKeyboardMarkup backToTasksKeyboard() {
+        return BACK_TO_TASKS;
+    }
+
+    private static TaskFragmentCache.Fragment fragment(Task task, ZoneId zone) {
+        return new TaskFragmentCache.Fragment(task, zone, taskLine(task, zone), List.copyOf(taskRows(task)));
+    }
+
+    private static String taskLine(Task task, ZoneId zone) {
+        StringBuilder line = new StringBuilder(64).append("• ").append(task.getName())
+                .append(" [").append(task.getTaskStatus()).append("]");
+        if (task.getDeadlineTime() != null) {
+            DeadlineFormatter.appendTo(line.append(" - ⏰ "), task.getDeadlineTime(), zone);
+        }
+        return line.append("\n").toString();
+    }
+
+    private static List<List<InlineKeyboardButton>> taskRows(Task task) {
+        List<List<InlineKeyboardButton>> rows = new ArrayList<>(5);
+        rows.add(row("📝 " + task.getName() + " [" + task.getTaskStatus() + "]",
+                CallbackCodec.encode(CallbackAction.INFO, task.getId())));
+
+        rows.add(List.of(
+                button("✅ Выполнено", CallbackCodec.encode(CallbackAction.COMPLETE, task.getId())),
+                button("✏️ Редактировать", CallbackCodec.encode(CallbackAction.EDIT, task.getId()))));
+
+        List<InlineKeyboardButton> statusRow = new ArrayList<>(2);
+        if (task.getTaskStatus() != TaskStatus.IN_PROGRESS) {
+            statusRow.add(button("🔄 В процессе",
+                    CallbackCodec.encode(CallbackAction.SET_STATUS, task.getId(), TaskStatus.IN_PROGRESS)));
+        }
+        if (task.getTaskStatus() != TaskStatus.BACKLOG) {
+            statusRow.add(button("📥 В бэклог",
+                    CallbackCodec.encode(CallbackAction.SET_STATUS, task.getId(), TaskStatus.BACKLOG)));
+        }
+        if (!statusRow.isEmpty()) {
+            rows.add(List.copyOf(statusRow));
+        }
+
+        rows.add(row("❌ Удалить", CallbackCodec.encode(CallbackAction.DELETE, task.getId())));
+        rows.add(SEPARATOR_ROW);
+        return rows;
+    }
+
+    private static InlineKeyboardMarkup pageKeyboard(TaskPage page, List<List<InlineKeyboardButton>> rows) {
+        List<InlineKeyboardButton> pageRow = new ArrayList<>(2);
+        if (page.hasPrevious()) {
+            pageRow.add(button("⬅️ Назад", CallbackCodec.encode(
+                    CallbackAction.PAGE_PREV, page.firstCursor().getId(), page.firstCursor().toMicros())));
+        }
+        if (page.hasNext()) {
+            pageRow.add(button("Вперед ➡️", CallbackCodec.encode(
+                    CallbackAction.PAGE_NEXT, page.lastCursor().getId(), page.lastCursor().toMicros())));
+        }
+        if (!pageRow.isEmpty()) {
+            rows.add(pageRow);
+        }
+        rows.add(SELECT_ROW);
+        rows.add(BACK_TO_MAIN_ROW);
+        return new InlineKeyboardMarkup(rows);
+    }
+
+    private static List<InlineKeyboardButton> row(String text, String callbackData) {
+        return List.of(button(text, callbackData));
+    }
+
+    private static InlineKeyboardButton button(String text, String callbackData) {
+        InlineKeyboardButton button = new InlineKeyboardButton();
+        button.setText(text);
+        button.setCallbackData(callbackData);
+        return button;
+    }
+}
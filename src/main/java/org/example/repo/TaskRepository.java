@@ -2,14 +2,28 @@ package org.example.repo;
 
 import org.example.models.Category;
 import org.example.models.Task;
+import org.example.models.TaskExportView;
+import org.example.models.TaskStatsRow;
 import org.example.models.TaskStatus;
+import org.example.models.TaskReminderView;
+import org.example.models.TaskSearchView;
+import org.example.models.TaskView;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.util.Date;
+import javax.persistence.QueryHint;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TaskRepository extends JpaRepository<Task, Long> {
@@ -17,12 +31,130 @@ public interface TaskRepository extends JpaRepository<Task, Long> {
     List<Task> findByUserOwnerIdAndTaskStatus(Long userOwnerId, TaskStatus status);
     List<Task> findByUserOwnerIdOrderByCreatedAtDesc(Long userOwnerId);
 
-    List<Task> findByUserOwnerIdAndDeadlineTimeBefore(Long userOwnerId, Date date);
-    List<Task> findByUserOwnerIdAndDeadlineTimeBetween(Long userOwnerId, Date startDate, Date endDate);
+    // keyset-пагинация по (createdAt desc, id desc), limit задается через Pageable
+    List<Task> findByUserOwnerIdOrderByCreatedAtDescIdDesc(Long userOwnerId, Pageable pageable);
+
+    @Query("SELECT t FROM Task t WHERE t.userOwnerId = :userId " +
+            "AND (t.createdAt < :createdAt OR (t.createdAt = :createdAt AND t.id < :id)) " +
+            "ORDER BY t.createdAt DESC, t.id DESC")
+    List<Task> findPageAfter(@Param("userId") Long userId,
+                             @Param("createdAt") LocalDateTime createdAt,
+                             @Param("id") Long id,
+                             Pageable pageable);
+
+    @Query("SELECT t FROM Task t WHERE t.userOwnerId = :userId " +
+            "AND (t.createdAt > :createdAt OR (t.createdAt = :createdAt AND t.id > :id)) " +
+            "ORDER BY t.createdAt ASC, t.id ASC")
+    List<Task> findPageBefore(@Param("userId") Long userId,
+                              @Param("createdAt") LocalDateTime createdAt,
+                              @Param("id") Long id,
+                              Pageable pageable);
+
+    List<Task> findByUserOwnerIdAndDeadlineTimeBefore(Long userOwnerId, Instant date);
+    List<Task> findByUserOwnerIdAndDeadlineTimeBetween(Long userOwnerId, Instant startDate, Instant endDate);
     List<Task> findByUserOwnerIdAndCategory(Long userId, Category category);
     @Query("SELECT t FROM Task t WHERE t.userOwnerId = :userId AND t.deadlineTime IS NOT NULL ORDER BY t.deadlineTime ASC")
     List<Task> findTasksWithDeadlineSorted(@Param("userId") Long userId);
 
     @Query("SELECT t FROM Task t WHERE t.userOwnerId = :userId AND t.deadlineTime < :now")
-    List<Task> findOverdueTasks(@Param("userId") Long userId, @Param("now") Date now);
-}
\ No newline at end of file
+    List<Task> findOverdueTasks(@Param("userId") Long userId, @Param("now") Instant now);
+
+    // статистика: счетчики ведет триггер (V9), просроченные считаются по частичному индексу (V10)
+    @Query(value = "SELECT task_status AS taskStatus, category AS category, task_count AS taskCount, " +
+            "time_amount_sum AS timeAmountSum, time_amount_count AS timeAmountCount " +
+            "FROM user_task_stats WHERE user_id = :userId", nativeQuery = true)
+    List<TaskStatsRow> findStatsRows(@Param("userId") Long userId);
+
+    // DONE - литерал, а не параметр, иначе при generic plan Postgres не увидит, что индекс подходит
+    @Query("SELECT COUNT(t) FROM Task t WHERE t.userOwnerId = :userId AND t.deadlineTime < :now " +
+            "AND t.taskStatus <> org.example.models.TaskStatus.DONE")
+    long countOverdue(@Param("userId") Long userId, @Param("now") Instant now);
+
+    // поисковый индекс (TaskSearchService): раздел одного пользователя, пачка пользователей при старте
+    // и перечитывание измененных задач по id
+    List<TaskSearchView> findSearchViewsByUserOwnerId(Long userOwnerId);
+    List<TaskSearchView> findSearchViewsByUserOwnerIdIn(Collection<Long> userOwnerIds);
+    List<TaskSearchView> findSearchViewsByIdIn(Collection<Long> ids);
+
+    @Query("SELECT DISTINCT t.userOwnerId FROM Task t WHERE t.userOwnerId > :after ORDER BY t.userOwnerId")
+    List<Long> findOwnerIdsAfter(@Param("after") Long after, Pageable pageable);
+
+    // проекции для экранов бота
+    List<TaskView> findViewsByUserOwnerIdAndTaskStatus(Long userOwnerId, TaskStatus status);
+    List<TaskView> findViewsByUserOwnerIdAndCategory(Long userOwnerId, Category category);
+
+    // незавершенные задачи с дедлайном раньше until; DONE - литерал, как в countOverdue
+    @Query("SELECT t.id AS id, t.name AS name, t.taskStatus AS taskStatus, t.deadlineTime AS deadlineTime FROM Task t " +
+            "WHERE t.userOwnerId = :userId AND t.deadlineTime < :until " +
+            "AND t.taskStatus <> org.example.models.TaskStatus.DONE " +
+            "ORDER BY t.deadlineTime ASC")
+    List<TaskView> findOpenDeadlineViewsBefore(@Param("userId") Long userId, @Param("until") Instant until);
+
+    // Точечные обновления одним UPDATE: проверка владельца в WHERE, version увеличивается для optimistic locking.
+    // Возвращают число измененных строк: 0 - задачи нет или она чужая.
+    @Modifying
+    @Query("UPDATE Task t SET t.taskStatus = :status, t.updatedAt = :now, t.version = t.version + 1 " +
+            "WHERE t.id = :id AND t.userOwnerId = :userId")
+    int updateStatus(@Param("id") Long id, @Param("userId") Long userId,
+                     @Param("status") TaskStatus status, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Task t SET t.deadlineTime = :deadline, t.updatedAt = :now, t.version = t.version + 1 " +
+            "WHERE t.id = :id AND t.userOwnerId = :userId")
+    int updateDeadline(@Param("id") Long id, @Param("userId") Long userId,
+                       @Param("deadline") Instant deadline, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Task t SET t.name = :name, t.updatedAt = :now, t.version = t.version + 1 " +
+            "WHERE t.id = :id AND t.userOwnerId = :userId")
+    int updateName(@Param("id") Long id, @Param("userId") Long userId,
+                   @Param("name") String name, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Task t SET t.description = :description, t.updatedAt = :now, t.version = t.version + 1 " +
+            "WHERE t.id = :id AND t.userOwnerId = :userId")
+    int updateDescription(@Param("id") Long id, @Param("userId") Long userId,
+                          @Param("description") String description, @Param("now") LocalDateTime now);
+
+    // Массовые операции над выбранными задачами: весь список id - одним запросом, владелец проверяется в WHERE
+    @Query("SELECT t.id FROM Task t WHERE t.userOwnerId = :userId AND t.id IN :ids")
+    List<Long> findOwnedIds(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE Task t SET t.taskStatus = :status, t.updatedAt = :now, t.version = t.version + 1 " +
+            "WHERE t.id IN :ids AND t.userOwnerId = :userId")
+    int updateStatusAll(@Param("ids") Collection<Long> ids, @Param("userId") Long userId,
+                        @Param("status") TaskStatus status, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM Task t WHERE t.id IN :ids AND t.userOwnerId = :userId")
+    int deleteOwned(@Param("ids") Collection<Long> ids, @Param("userId") Long userId);
+
+    // выгрузка всех задач пользователя: читается курсором по 1000 строк, только внутри транзакции
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT t.id AS id, t.name AS name, t.description AS description, t.taskStatus AS taskStatus, " +
+            "t.category AS category, t.deadlineTime AS deadlineTime, t.createdAt AS createdAt FROM Task t " +
+            "WHERE t.userOwnerId = :userId ORDER BY t.createdAt DESC, t.id DESC")
+    Stream<TaskExportView> streamExportByUser(@Param("userId") Long userId);
+
+    // напоминания о дедлайнах: выборка по всем пользователям, читается курсором
+    Optional<TaskReminderView> findReminderById(Long id);
+    List<TaskReminderView> findRemindersByIdIn(Collection<Long> ids);
+
+    // напоминания, уже отправленные о текущем дедлайне задачи, не выбираются
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT t.id AS id, t.userOwnerId AS userOwnerId, t.name AS name, t.taskStatus AS taskStatus, " +
+            "t.deadlineTime AS deadlineTime FROM Task t " +
+            "WHERE t.deadlineTime >= :from AND t.deadlineTime < :until AND t.taskStatus <> :excluded " +
+            "AND NOT EXISTS (SELECT s FROM SentReminder s WHERE s.taskId = t.id AND s.deadlineTime = t.deadlineTime)")
+    Stream<TaskReminderView> streamRemindersByDeadline(@Param("from") Instant from,
+                                                       @Param("until") Instant until,
+                                                       @Param("excluded") TaskStatus excluded);
+
+    // дедлайн копируется из самой строки tasks, чтобы отметка совпадала с ним без преобразований
+    @Modifying
+    @Query(value = "INSERT INTO sent_reminders (task_id, deadline_time) " +
+            "SELECT id, deadline_time FROM tasks WHERE id IN (:ids) AND deadline_time IS NOT NULL " +
+            "ON CONFLICT (task_id) DO UPDATE SET deadline_time = EXCLUDED.deadline_time", nativeQuery = true)
+    int markRemindersSent(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,9 @@
+package org.example.repo;
+
+import org.example.models.UserSettings;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UserSettingsRepository extends JpaRepository<UserSettings, Long> {
+}
@@ -0,0 +1,166 @@
+package org.example.search;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Стеммер Портера для русского языка (алгоритм Snowball, snowballstem.org/algorithms/russian).
+ * Отрезает окончания, чтобы "задача", "задачи" и "задачу" попадали в один терм индекса.
+ * Ожидает слово в нижнем регистре с "ё", уже замененной на "е"; слова без кириллицы не меняет.
+ */
+final class RussianStemmer {
+    private static final String VOWELS = "аеиоуыэюя";
+
+    private static final String[] PERFECTIVE_GERUND_1 = sorted("в", "вши", "вшись");
+    private static final String[] PERFECTIVE_GERUND_2 = sorted("ив", "ивши", "ившись", "ыв", "ывши", "ывшись");
+    private static final String[] ADJECTIVE = sorted("ее", "ие", "ые", "ое", "ими", "ыми", "ей", "ий", "ый", "ой",
+            "ем", "им", "ым", "ом", "его", "ого", "ему", "ому", "их", "ых", "ую", "юю", "ая", "яя", "ою", "ею");
+    private static final String[] PARTICIPLE_1 = sorted("ем", "нн", "вш", "ющ", "щ");
+    private static final String[] PARTICIPLE_2 = sorted("ивш", "ывш", "ующ");
+    private static final String[] REFLEXIVE = sorted("ся", "сь");
+    private static final String[] VERB_1 = sorted("ла", "на", "ете", "йте", "ли", "й", "л", "ем", "н", "ло", "но",
+            "ет", "ют", "ны", "ть", "ешь", "нно");
+    private static final String[] VERB_2 = sorted("ила", "ыла", "ена", "ейте", "уйте", "ите", "или", "ыли", "ей",
+            "уй", "ил", "ыл", "им", "ым", "ен", "ило", "ыло", "ено", "ят", "ует", "уют", "ит", "ыт", "ены", "ить",
+            "ыть", "ишь", "ую", "ю");
+    private static final String[] NOUN = sorted("а", "ев", "ов", "ие", "ье", "е", "иями", "ями", "ами", "еи", "ии",
+            "и", "ией", "ей", "ой", "ий", "й", "иям", "ям", "ием", "ем", "ам", "ом", "о", "у", "ах", "иях", "ях", "ы",
+            "ь", "ию", "ью", "ю", "ия", "ья", "я");
+    private static final String[] DERIVATIONAL = sorted("ост", "ость");
+    private static final String[] SUPERLATIVE = sorted("ейш", "ейше");
+
+    private RussianStemmer() {
+    }
+
+    static String stem(String word) {
+        int rv = regionAfterVowel(word, 0);
+        if (rv >= word.length()) {
+            return word;
+        }
+        int r2 = regionAfterNonVowel(word, regionAfterNonVowel(word, 0));
+
+        StringBuilder w = new StringBuilder(word);
+
+        // шаг 1
+        if (!removeGroup(w, rv, PERFECTIVE_GERUND_1, PERFECTIVE_GERUND_2)) {
+            remove(w, rv, REFLEXIVE);
+            if (removeAdjectival(w, rv) == 0
+                    && !removeGroup(w, rv, VERB_1, VERB_2)) {
+                remove(w, rv, NOUN);
+            }
+        }
+
+        // шаг 2
+        if (w.length() > rv && w.charAt(w.length() - 1) == 'и') {
+            w.setLength(w.length() - 1);
+        }
+
+        // шаг 3
+        remove(w, r2, DERIVATIONAL);
+
+        // шаг 4
+        if (endsWith(w, rv, "нн")) {
+            w.setLength(w.length() - 1);
+        } else if (remove(w, rv, SUPERLATIVE)) {
+            if (endsWith(w, rv, "нн")) {
+                w.setLength(w.length() - 1);
+            }
+        } else if (endsWith(w, rv, "ь")) {
+            w.setLength(w.length() - 1);
+        }
+        return w.toString();
+    }
+
+    // прилагательное с необязательным причастием перед ним: "читающая" -> "чита"
+    private static int removeAdjectival(StringBuilder w, int rv) {
+        int before = w.length();
+        if (!remove(w, rv, ADJECTIVE)) {
+            return 0;
+        }
+        removeGroup(w, rv, PARTICIPLE_1, PARTICIPLE_2);
+        return before - w.length();
+    }
+
+    /**
+     * Окончания первой группы снимаются, только если перед ними "а" или "я"; второй - всегда.
+     * Из обеих групп выбирается самое длинное совпадение.
+     */
+    private static boolean removeGroup(StringBuilder w, int rv, String[] afterAOrYa, String[] plain) {
+        String first = longestMatch(w, rv, afterAOrYa);
+        if (first != null) {
+            int at = w.length() - first.length() - 1;
+            if (at < rv || (w.charAt(at) != 'а' && w.charAt(at) != 'я')) {
+                first = null;
+            }
+        }
+        String second = longestMatch(w, rv, plain);
+        String match = first == null ? second : second == null || first.length() >= second.length() ? first : second;
+        if (match == null) {
+            return false;
+        }
+        w.setLength(w.length() - match.length());
+        return true;
+    }
+
+    private static boolean remove(StringBuilder w, int region, String[] suffixes) {
+        String match = longestMatch(w, region, suffixes);
+        if (match == null) {
+            return false;
+        }
+        w.setLength(w.length() - match.length());
+        return true;
+    }
+
+    private static String longestMatch(StringBuilder w, int region, String[] suffixes) {
+        for (String suffix : suffixes) {
+            if (endsWith(w, region, suffix)) {
+                return suffix;
+            }
+        }
+        return null;
+    }
+
+    private static boolean endsWith(StringBuilder w, int region, String suffix) {
+        int start = w.length() - suffix.length();
+        if (start < region) {
+            return false;
+        }
+        for (int i = 0; i < suffix.length(); i++) {
+            if (w.charAt(start + i) != suffix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // начало региона: позиция после первой гласной начиная с from
+    private static int regionAfterVowel(String word, int from) {
+        for (int i = from; i < word.length(); i++) {
+            if (isVowel(word.charAt(i))) {
+                return i + 1;
+            }
+        }
+        return word.length();
+    }
+
+    // R1/R2: позиция после первой согласной, которая идет за гласной, начиная с from
+    private static int regionAfterNonVowel(String word, int from) {
+        for (int i = from + 1; i < word.length(); i++) {
+            if (!isVowel(word.charAt(i)) && isVowel(word.charAt(i - 1))) {
+                return i + 1;
+            }
+        }
+        return word.length();
+    }
+
+    private static boolean isVowel(char c) {
+        return VOWELS.indexOf(c) >= 0;
+    }
+
+    // длинные окончания проверяются первыми
+    private static String[] sorted(String... suffixes) {
+        String[] copy = suffixes.clone();
+        Arrays.sort(copy, Comparator.comparingInt(String::length).reversed());
+        return copy;
+    }
+}
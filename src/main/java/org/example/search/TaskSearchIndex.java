@@ -0,0 +1,412 @@
+package org.example.search;
+
+import org.example.models.TaskStatus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Инвертированный индекс задач по словам из названия и описания, отдельный для каждого пользователя.
+ * <p>
+ * Пользователь ищет только среди своих задач, поэтому индекс разбит на разделы по userOwnerId:
+ * поиск трогает один небольшой раздел, и его статистика (число задач, средняя длина) - тоже своя.
+ * Ранжирование - BM25, слова из названия весят {@link #NAME_WEIGHT} раза больше слов из описания.
+ * <p>
+ * Память ограничена {@code budgetBytes} (оценка по размерам объектов, а не точный замер): при превышении
+ * выбрасываются давно не использованные разделы. Выброшенный или еще не загруженный раздел
+ * {@link #isLoaded не загружен} - его нужно заново {@link #load загрузить} из базы.
+ * Без зависимостей от Spring, чтобы индекс можно было гонять в JMH-бенчмарках.
+ */
+public final class TaskSearchIndex {
+    static final int NAME_WEIGHT = 3;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // примерные размеры объектов на 64-битной JVM со сжатыми указателями
+    private static final int POSTING_BYTES = 72;      // HashMap.Node + Long + Posting
+    private static final int TERM_BYTES = 120;        // HashMap.Node + String + вложенная HashMap
+    private static final int DOCUMENT_BYTES = 160;    // HashMap.Node + Long + Document + массивы термов
+
+    private final long budgetBytes;
+    private final AtomicLong usedBytes = new AtomicLong();
+    private final LinkedHashMap<Long, Partition> partitions = new LinkedHashMap<>(16, 0.75f, true);
+    private long evictions;
+
+    public TaskSearchIndex(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * Задача в том виде, в каком ее видит индекс.
+     */
+    public static final class Document {
+        final long taskId;
+        final String name;
+        final String description;
+        final TaskStatus status;
+
+        public Document(long taskId, String name, String description, TaskStatus status) {
+            this.taskId = taskId;
+            this.name = name;
+            this.description = description;
+            this.status = status;
+        }
+    }
+
+    public static final class Hit {
+        private final long taskId;
+        private final String name;
+        private final TaskStatus status;
+        private final double score;
+
+        Hit(long taskId, String name, TaskStatus status, double score) {
+            this.taskId = taskId;
+            this.name = name;
+            this.status = status;
+            this.score = score;
+        }
+
+        public long getTaskId() { return taskId; }
+        public String getName() { return name; }
+        public TaskStatus getStatus() { return status; }
+        public double getScore() { return score; }
+    }
+
+    public static final class Page {
+        private final List<Hit> hits;
+        private final int total;
+        private final int offset;
+        private final int limit;
+
+        Page(List<Hit> hits, int total, int offset, int limit) {
+            this.hits = hits;
+            this.total = total;
+            this.offset = offset;
+            this.limit = limit;
+        }
+
+        public List<Hit> getHits() { return hits; }
+        public int getTotal() { return total; }
+        public int getOffset() { return offset; }
+        public int getLimit() { return limit; }
+        public boolean hasPrevious() { return offset > 0; }
+        public boolean hasNext() { return offset + hits.size() < total; }
+    }
+
+    public boolean isLoaded(Long userId) {
+        synchronized (partitions) {
+            return partitions.containsKey(userId);
+        }
+    }
+
+    /**
+     * Заменяет раздел пользователя задачами из базы.
+     */
+    public void load(Long userId, Collection<Document> documents) {
+        Partition partition = new Partition();
+        for (Document document : documents) {
+            partition.put(document);
+        }
+        Partition previous;
+        synchronized (partitions) {
+            previous = partitions.put(userId, partition);
+        }
+        long freed = previous == null ? 0 : previous.evict();
+        usedBytes.addAndGet(partition.bytes - freed);
+        evictOverBudget(userId);
+    }
+
+    /**
+     * Добавляет или обновляет задачу. Если раздел пользователя не загружен, ничего не делает:
+     * при загрузке задача все равно прочитается из базы.
+     */
+    public void put(Long userId, Document document) {
+        Partition partition = partition(userId);
+        if (partition == null) {
+            return;
+        }
+        long delta;
+        synchronized (partition) {
+            if (partition.evicted) {
+                return;
+            }
+            long before = partition.bytes;
+            partition.put(document);
+            delta = partition.bytes - before;
+        }
+        usedBytes.addAndGet(delta);
+        evictOverBudget(userId);
+    }
+
+    public void remove(Long userId, long taskId) {
+        Partition partition = partition(userId);
+        if (partition == null) {
+            return;
+        }
+        long delta;
+        synchronized (partition) {
+            if (partition.evicted) {
+                return;
+            }
+            long before = partition.bytes;
+            partition.remove(taskId);
+            delta = partition.bytes - before;
+        }
+        usedBytes.addAndGet(delta);
+    }
+
+    /**
+     * Выгружает разделы пользователей, подходящих под условие. Это не вытеснение по памяти
+     * и в {@link #getEvictionCount} не считается.
+     *
+     * @return число выгруженных разделов
+     */
+    public int unloadIf(Predicate<Long> userIds) {
+        List<Partition> unloaded = new ArrayList<>();
+        synchronized (partitions) {
+            Iterator<Map.Entry<Long, Partition>> it = partitions.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Long, Partition> entry = it.next();
+                if (userIds.test(entry.getKey())) {
+                    it.remove();
+                    unloaded.add(entry.getValue());
+                }
+            }
+        }
+        for (Partition partition : unloaded) {
+            usedBytes.addAndGet(-partition.evict());
+        }
+        return unloaded.size();
+    }
+
+    /**
+     * @return страница результатов по убыванию релевантности (при равной - сначала новые задачи)
+     * или null, если раздел пользователя не загружен
+     */
+    public Page search(Long userId, String query, int offset, int limit) {
+        Partition partition = partition(userId);
+        if (partition == null) {
+            return null;
+        }
+        Set<String> terms = new LinkedHashSet<>(TextAnalyzer.terms(query));
+        synchronized (partition) {
+            return partition.evicted ? null : partition.search(terms, offset, limit);
+        }
+    }
+
+    public long getUsedBytes() { return usedBytes.get(); }
+    public long getBudgetBytes() { return budgetBytes; }
+
+    public int getPartitionCount() {
+        synchronized (partitions) {
+            return partitions.size();
+        }
+    }
+
+    public long getEvictionCount() {
+        synchronized (partitions) {
+            return evictions;
+        }
+    }
+
+    private Partition partition(Long userId) {
+        synchronized (partitions) {
+            return partitions.get(userId);
+        }
+    }
+
+    // раздел, в который только что писали, не выбрасывается, даже если он один больше бюджета
+    private void evictOverBudget(Long keep) {
+        if (usedBytes.get() <= budgetBytes) {
+            return;
+        }
+        List<Partition> victims = new ArrayList<>();
+        synchronized (partitions) {
+            long projected = usedBytes.get();
+            Iterator<Map.Entry<Long, Partition>> eldest = partitions.entrySet().iterator();
+            while (projected > budgetBytes && eldest.hasNext()) {
+                Map.Entry<Long, Partition> entry = eldest.next();
+                if (entry.getKey().equals(keep)) {
+                    continue;
+                }
+                eldest.remove();
+                victims.add(entry.getValue());
+                projected -= entry.getValue().bytes;
+                evictions++;
+            }
+        }
+        for (Partition victim : victims) {
+            usedBytes.addAndGet(-victim.evict());
+        }
+    }
+
+    /**
+     * Раздел одного пользователя. Все поля меняются под монитором самого раздела.
+     */
+    private static final class Partition {
+        final Map<String, Map<Long, Posting>> postings = new HashMap<>();
+        final Map<Long, Entry> documents = new HashMap<>();
+        long totalLength;
+        long bytes;
+        boolean evicted;
+        // номер текущего поиска: по нему Entry.score отличает свежую сумму от оставшейся с прошлого раза
+        int searchEpoch;
+
+        void put(Document document) {
+            remove(document.taskId);
+
+            Map<String, Integer> frequencies = new HashMap<>();
+            for (String term : TextAnalyzer.terms(document.name)) {
+                frequencies.merge(term, NAME_WEIGHT, Integer::sum);
+            }
+            for (String term : TextAnalyzer.terms(document.description)) {
+                frequencies.merge(term, 1, Integer::sum);
+            }
+
+            String[] terms = frequencies.keySet().toArray(new String[0]);
+            int length = 0;
+            for (int frequency : frequencies.values()) {
+                length += frequency;
+            }
+            Entry entry = new Entry(document.taskId, document.name, document.status, terms, length);
+            for (String term : terms) {
+                Map<Long, Posting> posting = postings.get(term);
+                if (posting == null) {
+                    posting = new HashMap<>(4);
+                    postings.put(term, posting);
+                    bytes += TERM_BYTES + 2L * term.length();
+                }
+                posting.put(document.taskId, new Posting(entry, frequencies.get(term)));
+                bytes += POSTING_BYTES;
+            }
+            documents.put(document.taskId, entry);
+            totalLength += length;
+            bytes += DOCUMENT_BYTES + 2L * (document.name == null ? 0 : document.name.length()) + 4L * terms.length;
+        }
+
+        void remove(long taskId) {
+            Entry entry = documents.remove(taskId);
+            if (entry == null) {
+                return;
+            }
+            for (String term : entry.terms) {
+                Map<Long, Posting> posting = postings.get(term);
+                posting.remove(taskId);
+                bytes -= POSTING_BYTES;
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                    bytes -= TERM_BYTES + 2L * term.length();
+                }
+            }
+            totalLength -= entry.length;
+            bytes -= DOCUMENT_BYTES + 2L * (entry.name == null ? 0 : entry.name.length()) + 4L * entry.terms.length;
+        }
+
+        Page search(Set<String> terms, int offset, int limit) {
+            int count = documents.size();
+            if (count == 0 || terms.isEmpty()) {
+                return new Page(Collections.emptyList(), 0, offset, limit);
+            }
+            double averageLength = totalLength / (double) count;
+            int epoch = ++searchEpoch;
+            // суммы копятся прямо в Entry (поиск идет под монитором раздела), без Map<Long, Double> на каждый запрос
+            List<Entry> matched = new ArrayList<>();
+            for (String term : terms) {
+                Map<Long, Posting> posting = postings.get(term);
+                if (posting == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (count - posting.size() + 0.5) / (posting.size() + 0.5));
+                for (Posting match : posting.values()) {
+                    Entry entry = match.entry;
+                    if (entry.scoreEpoch != epoch) {
+                        entry.scoreEpoch = epoch;
+                        entry.score = 0;
+                        matched.add(entry);
+                    }
+                    double norm = K1 * (1 - B + B * entry.length / averageLength);
+                    entry.score += idf * match.frequency * (K1 + 1) / (match.frequency + norm);
+                }
+            }
+
+            // сортировать все совпадения незачем: нужны только первые offset + limit
+            int wanted = (int) Math.min((long) offset + limit, matched.size());
+            if (wanted <= offset) {
+                return new Page(Collections.emptyList(), matched.size(), offset, limit);
+            }
+            PriorityQueue<Entry> top = new PriorityQueue<>(wanted, (a, b) -> -compareByRank(a, b));
+            for (Entry entry : matched) {
+                if (top.size() < wanted) {
+                    top.add(entry);
+                } else if (compareByRank(entry, top.peek()) < 0) {
+                    top.poll();
+                    top.add(entry);
+                }
+            }
+            Hit[] ranked = new Hit[top.size()];
+            for (int i = ranked.length - 1; i >= 0; i--) {
+                Entry entry = top.poll();
+                ranked[i] = new Hit(entry.taskId, entry.name, entry.status, entry.score);
+            }
+            List<Hit> hits = new ArrayList<>(ranked.length - offset);
+            for (int i = offset; i < ranked.length; i++) {
+                hits.add(ranked[i]);
+            }
+            return new Page(hits, matched.size(), offset, limit);
+        }
+
+        // выше - релевантнее; при равной релевантности выше более новая задача
+        private static int compareByRank(Entry a, Entry b) {
+            int byScore = Double.compare(b.score, a.score);
+            return byScore != 0 ? byScore : Long.compare(b.taskId, a.taskId);
+        }
+
+        long evict() {
+            synchronized (this) {
+                evicted = true;
+                return bytes;
+            }
+        }
+    }
+
+    private static final class Posting {
+        final Entry entry;
+        // взвешенная частота терма в задаче
+        final int frequency;
+
+        Posting(Entry entry, int frequency) {
+            this.entry = entry;
+            this.frequency = frequency;
+        }
+    }
+
+    private static final class Entry {
+        final long taskId;
+        final String name;
+        final TaskStatus status;
+        final String[] terms;
+        final int length;
+        // сумма BM25 в поиске номер scoreEpoch
+        int scoreEpoch;
+        double score;
+
+        Entry(long taskId, String name, TaskStatus status, String[] terms, int length) {
+            this.taskId = taskId;
+            this.name = name;
+            this.status = status;
+            this.terms = terms;
+            this.length = length;
+        }
+    }
+}
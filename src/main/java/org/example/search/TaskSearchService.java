@@ -0,0 +1,230 @@
+package org.example.search;
+
+import org.example.cluster.ClusterMembership;
+import org.example.cluster.MembershipChangedEvent;
+import org.example.models.TaskSearchView;
+import org.example.repo.TaskRepository;
+import org.example.services.TaskChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Поиск по задачам пользователя (/search) поверх {@link TaskSearchIndex}.
+ * <p>
+ * При старте индекс заполняется из базы пачками пользователей, пока не кончится memory-budget-mb;
+ * разделы остальных пользователей загружаются при первом поиске. Изменения задач приходят через
+ * {@link TaskChangedEvent} после коммита: измененные задачи перечитываются по id, удаленные снимаются.
+ * <p>
+ * Загрузка раздела и применение событий одного пользователя идут под одной блокировкой (из {@code STRIPES}),
+ * поэтому событие либо попадет в уже загруженный раздел, либо будет прочитано загрузкой из базы.
+ * <p>
+ * В кластере при старте загружаются только пользователи этого узла, а после смены состава выгружаются
+ * разделы тех, кто перешел к другим узлам: их изменения сюда больше не приходят.
+ */
+@Service
+public class TaskSearchService {
+    private static final Logger log = LoggerFactory.getLogger(TaskSearchService.class);
+    private static final int STRIPES = 64;
+    // последние запросы для кнопок листания результатов
+    private static final int MAX_REMEMBERED_QUERIES = 10_000;
+
+    private final TaskRepository taskRepository;
+    private final TaskSearchIndex index;
+    private final ClusterMembership membership;
+    private final int rebuildChunk;
+    private final boolean rebuildOnStart;
+    private final Object[] stripes = new Object[STRIPES];
+    private final ExecutorService rebuild = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "search-index-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<Long, String> lastQueries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+            return size() > MAX_REMEMBERED_QUERIES;
+        }
+    };
+
+    public TaskSearchService(
+            TaskRepository taskRepository,
+            ObjectProvider<ClusterMembership> membership,
+            @Value("${telegram.search.memory-budget-mb:64}") long memoryBudgetMb,
+            @Value("${telegram.search.rebuild-on-start:true}") boolean rebuildOnStart,
+            @Value("${telegram.search.rebuild-chunk:500}") int rebuildChunk) {
+        this.taskRepository = taskRepository;
+        this.index = new TaskSearchIndex(memoryBudgetMb * 1024 * 1024);
+        this.membership = membership.getIfAvailable();
+        this.rebuildOnStart = rebuildOnStart;
+        this.rebuildChunk = rebuildChunk;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+    }
+
+    /**
+     * @return страница результатов; offset за пределами результатов дает пустую страницу
+     */
+    public TaskSearchIndex.Page search(Long userId, String query, int offset, int limit) {
+        synchronized (lastQueries) {
+            lastQueries.put(userId, query);
+        }
+        TaskSearchIndex.Page page = index.search(userId, query, offset, limit);
+        // раздел могут выбросить между загрузкой и поиском, если память занята другими - тогда еще попытка
+        for (int attempt = 0; page == null && attempt < 3; attempt++) {
+            synchronized (stripe(userId)) {
+                if (!index.isLoaded(userId)) {
+                    index.load(userId, documents(taskRepository.findSearchViewsByUserOwnerId(userId)));
+                }
+            }
+            page = index.search(userId, query, offset, limit);
+        }
+        if (page == null) {
+            throw new IllegalStateException("Search partition of user " + userId + " keeps being evicted");
+        }
+        return page;
+    }
+
+    /**
+     * @return последний запрос пользователя или null, если он уже забыт
+     */
+    public String lastQuery(Long userId) {
+        synchronized (lastQueries) {
+            return lastQueries.get(userId);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChanged(TaskChangedEvent event) {
+        Long userId = event.getUserId();
+        synchronized (stripe(userId)) {
+            if (!index.isLoaded(userId)) {
+                return;
+            }
+            if (event.getType() == TaskChangedEvent.Type.DELETED) {
+                event.getTaskIds().forEach(id -> index.remove(userId, id));
+                return;
+            }
+            Set<Long> missing = new HashSet<>(event.getTaskIds());
+            for (TaskSearchView task : taskRepository.findSearchViewsByIdIn(event.getTaskIds())) {
+                missing.remove(task.getId());
+                index.put(userId, document(task));
+            }
+            missing.forEach(id -> index.remove(userId, id));
+        }
+    }
+
+    // под всеми блокировками: пачка, которую грузят по старому составу, не вернет чужие разделы после выгрузки
+    @EventListener
+    public void onMembershipChanged(MembershipChangedEvent event) {
+        int unloaded = lockAll(0, () -> index.unloadIf(userId -> !event.isLocal(userId)));
+        log.info("Cluster membership changed: {} search partitions unloaded", unloaded);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (rebuildOnStart) {
+            rebuild.execute(this::rebuildSafely);
+        }
+    }
+
+    public long getUsedBytes() { return index.getUsedBytes(); }
+    public int getPartitionCount() { return index.getPartitionCount(); }
+    public long getEvictionCount() { return index.getEvictionCount(); }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuild.shutdownNow();
+    }
+
+    private void rebuildSafely() {
+        long started = System.nanoTime();
+        int users = 0;
+        try {
+            long after = Long.MIN_VALUE;
+            // бюджет заполняется не до конца, чтобы для поиска новых пользователей не пришлось сразу выбрасывать старых
+            while (index.getUsedBytes() < index.getBudgetBytes() * 9 / 10 && !Thread.currentThread().isInterrupted()) {
+                List<Long> userIds = taskRepository.findOwnerIdsAfter(after, PageRequest.of(0, rebuildChunk));
+                if (userIds.isEmpty()) {
+                    break;
+                }
+                users += loadChunk(userIds);
+                after = userIds.get(userIds.size() - 1);
+            }
+            log.info("Search index: {} users loaded in {} ms, ~{} KB",
+                    users, (System.nanoTime() - started) / 1_000_000, index.getUsedBytes() / 1024);
+        } catch (Exception e) {
+            // остальные разделы загрузятся при первом поиске
+            log.error("Search index rebuild stopped after {} users", users, e);
+        }
+    }
+
+    // на время запроса пачки берутся все блокировки: события этих пользователей подождут и применятся после
+    private int loadChunk(List<Long> userIds) {
+        return lockAll(0, () -> {
+            List<Long> local = userIds.stream().filter(this::isLocal).collect(Collectors.toList());
+            if (local.isEmpty()) {
+                return 0;
+            }
+            Map<Long, List<TaskSearchView>> byUser = new HashMap<>();
+            for (TaskSearchView task : taskRepository.findSearchViewsByUserOwnerIdIn(local)) {
+                byUser.computeIfAbsent(task.getUserOwnerId(), k -> new ArrayList<>()).add(task);
+            }
+            for (Long userId : local) {
+                if (!index.isLoaded(userId)) {
+                    index.load(userId, documents(byUser.getOrDefault(userId, List.of())));
+                }
+            }
+            return local.size();
+        });
+    }
+
+    private <T> T lockAll(int from, Supplier<T> action) {
+        if (from == STRIPES) {
+            return action.get();
+        }
+        synchronized (stripes[from]) {
+            return lockAll(from + 1, action);
+        }
+    }
+
+    private boolean isLocal(Long userId) {
+        return membership == null || membership.isLocal(userId);
+    }
+
+    private Object stripe(Long userId) {
+        return stripes[Math.floorMod(userId.hashCode(), STRIPES)];
+    }
+
+    private static List<TaskSearchIndex.Document> documents(List<TaskSearchView> tasks) {
+        List<TaskSearchIndex.Document> documents = new ArrayList<>(tasks.size());
+        for (TaskSearchView task : tasks) {
+            documents.add(document(task));
+        }
+        return documents;
+    }
+
+    private static TaskSearchIndex.Document document(TaskSearchView task) {
+        return new TaskSearchIndex.Document(task.getId(), task.getName(), task.getDescription(), task.getTaskStatus());
+    }
+}
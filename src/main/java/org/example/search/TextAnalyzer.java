@@ -0,0 +1,42 @@
+package org.example.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Разбивает текст на термы индекса: слова из букв и цифр в нижнем регистре, "ё" -> "е",
+ * русские слова - через {@link RussianStemmer}. Запрос и задачи проходят через один и тот же анализ.
+ */
+final class TextAnalyzer {
+    // длиннее в названиях задач не бывает, а мусор вроде base64 не раздувает словарь
+    private static final int MAX_TOKEN_LENGTH = 40;
+
+    private TextAnalyzer() {
+    }
+
+    static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean letter = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                if (i - start <= MAX_TOKEN_LENGTH) {
+                    terms.add(term(text.substring(start, i)));
+                }
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    private static String term(String token) {
+        String word = token.toLowerCase(Locale.ROOT).replace('ё', 'е');
+        return RussianStemmer.stem(word);
+    }
+}
@@ -0,0 +1,127 @@
+package org.example.services;
+
+import org.example.models.Task;
+import org.example.models.TaskStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Асинхронные варианты методов {@link TaskService} для обработчиков, которым есть чем заняться,
+ * пока идет запрос к базе. Синхронные методы TaskService остаются как есть; здесь каждый вызов
+ * уходит через прокси TaskService (транзакции, метрики, лимиты) на отдельный ограниченный пул.
+ * <p>
+ * Future завершается с TimeoutException через {@code timeout-ms} и с RejectedExecutionException,
+ * если очередь пула заполнена. Отмена future или таймаут прерывают поток с запросом,
+ * а запрос, который еще стоит в очереди, не выполняется вовсе.
+ * <p>
+ * Изменения (update*) без таймаута: прерывание не отменяет уже отправленный UPDATE, и он закоммитится,
+ * а пользователь увидел бы ошибку. Их future завершается, только когда транзакция закончилась,
+ * и результат всегда настоящий.
+ */
+@Service
+public class AsyncTaskService {
+    private final TaskService taskService;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMs;
+
+    public AsyncTaskService(
+            TaskService taskService,
+            @Value("${telegram.db-executor.threads:8}") int threads,
+            @Value("${telegram.db-executor.queue-capacity:500}") int queueCapacity,
+            @Value("${telegram.db-executor.timeout-ms:5000}") long timeoutMs) {
+        this.taskService = taskService;
+        this.timeoutMs = timeoutMs;
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+            Thread thread = new Thread(r, "task-db-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public CompletableFuture<List<Task>> getTaskListByUserAsync(Long userId) {
+        return submit(() -> taskService.getTaskListByUser(userId));
+    }
+
+    public CompletableFuture<Optional<Task>> getTaskByIdAsync(Long taskId) {
+        return submit(() -> taskService.getTaskById(taskId));
+    }
+
+    public CompletableFuture<TaskPage> getFirstTaskPageAsync(Long userId, int size) {
+        return submit(() -> taskService.getFirstTaskPage(userId, size));
+    }
+
+    public CompletableFuture<TaskPage> getTaskPageAfterAsync(Long userId, TaskCursor cursor, int size) {
+        return submit(() -> taskService.getTaskPageAfter(userId, cursor, size));
+    }
+
+    public CompletableFuture<TaskPage> getTaskPageBeforeAsync(Long userId, TaskCursor cursor, int size) {
+        return submit(() -> taskService.getTaskPageBefore(userId, cursor, size));
+    }
+
+    public CompletableFuture<Boolean> updateTaskStatusAsync(Long taskId, Long userId, TaskStatus newStatus) {
+        return execute(() -> taskService.updateTaskStatus(taskId, userId, newStatus));
+    }
+
+    public int getQueueLength() { return executor.getQueue().size(); }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task = enqueue(call, result);
+        if (task == null) {
+            return result;
+        }
+        result.orTimeout(timeoutMs, TimeUnit.MILLISECONDS).whenComplete((value, error) -> {
+            if (error instanceof TimeoutException || error instanceof CancellationException) {
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    // без таймаута и отмены - для изменений
+    private <T> CompletableFuture<T> execute(Supplier<T> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        enqueue(call, result);
+        return result;
+    }
+
+    /**
+     * @return задача в пуле или null, если очередь заполнена (тогда result уже завершен с ошибкой)
+     */
+    private <T> Future<?> enqueue(Supplier<T> call, CompletableFuture<T> result) {
+        try {
+            return executor.submit(() -> {
+                try {
+                    result.complete(call.get());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+            return null;
+        }
+    }
+}
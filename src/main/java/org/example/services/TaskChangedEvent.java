@@ -0,0 +1,42 @@
+package org.example.services;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Публикуется TaskService после каждого изменения задачи. Несет только идентификаторы:
+ * слушателям, которым нужны данные, дешевле перечитать строку по id, чем тащить ее в событии.
+ * Массовая операция публикует одно событие на всю пачку задач.
+ */
+public class TaskChangedEvent {
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    private final Long userId;
+    private final List<Long> taskIds;
+    private final Type type;
+
+    public TaskChangedEvent(Long userId, Long taskId, Type type) {
+        this(userId, Collections.singletonList(taskId), type);
+    }
+
+    public TaskChangedEvent(Long userId, List<Long> taskIds, Type type) {
+        this.userId = userId;
+        this.taskIds = taskIds;
+        this.type = type;
+    }
+
+    public Long getUserId() { return userId; }
+    public Type getType() { return type; }
+
+    /**
+     * @return id задачи, если событие про одну задачу, иначе первый id пачки
+     */
+    public Long getTaskId() { return taskIds.get(0); }
+
+    public List<Long> getTaskIds() { return taskIds; }
+    public boolean isBulk() { return taskIds.size() > 1; }
+}
@@ -0,0 +1,48 @@
+package org.example.services;
+
+import org.example.models.Task;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Позиция в списке задач пользователя, отсортированном по (createdAt desc, id desc).
+ * Время хранится в микросекундах - это точность timestamp в Postgres, так что сравнение в запросе точное.
+ */
+public final class TaskCursor {
+    private final LocalDateTime createdAt;
+    private final Long id;
+
+    public TaskCursor(LocalDateTime createdAt, Long id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    public static TaskCursor of(Task task) {
+        return new TaskCursor(task.getCreatedAt(), task.getId());
+    }
+
+    public static TaskCursor parse(String value) {
+        int separator = value.indexOf(':');
+        long micros = Long.parseLong(value.substring(0, separator));
+        long id = Long.parseLong(value.substring(separator + 1));
+        return ofMicros(micros, id);
+    }
+
+    public static TaskCursor ofMicros(long micros, long id) {
+        LocalDateTime createdAt = LocalDateTime.ofEpochSecond(
+                Math.floorDiv(micros, 1_000_000L), (int) Math.floorMod(micros, 1_000_000L) * 1000, ZoneOffset.UTC);
+        return new TaskCursor(createdAt, id);
+    }
+
+    public String asString() {
+        return toMicros() + ":" + id;
+    }
+
+    public long toMicros() {
+        return createdAt.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + createdAt.getNano() / 1000;
+    }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public Long getId() { return id; }
+}
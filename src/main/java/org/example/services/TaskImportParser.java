@@ -0,0 +1,118 @@
+package org.example.services;
+
+import org.example.models.Category;
+import org.example.models.Task;
+import org.example.models.TaskStatus;
+import org.example.time.DeadlineFormatter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Разбор списка задач для импорта: одна задача на строку, поля через {@code |}:
+ * <pre>
+ * название | описание | 25.12.2025 15:30
+ * </pre>
+ * Описание и дедлайн необязательны. Пустые строки и строки, начинающиеся с {@code #}, пропускаются.
+ * Ошибочные строки не прерывают разбор, а попадают в {@link Result#getErrors()}.
+ */
+public final class TaskImportParser {
+    public static final int MAX_TASKS = 1000;
+    private static final int MAX_ERRORS = 10;
+    // размер колонок name/description в tasks
+    private static final int MAX_FIELD_LENGTH = 255;
+
+    private TaskImportParser() {
+    }
+
+    public static Result parse(String text, Long userId, ZoneId zone) {
+        try {
+            return parse(new StringReader(text), userId, zone);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static Result parse(Reader input, Long userId, ZoneId zone) throws IOException {
+        Result result = new Result();
+        BufferedReader reader = input instanceof BufferedReader ? (BufferedReader) input : new BufferedReader(input);
+        Instant now = Instant.now();
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            if (result.tasks.size() == MAX_TASKS) {
+                result.truncated = true;
+                break;
+            }
+
+            String[] fields = line.split("\\|", 3);
+            String name = fields[0].trim();
+            String description = fields.length > 1 ? fields[1].trim() : "";
+            String deadlineText = fields.length > 2 ? fields[2].trim() : "";
+
+            if (name.isEmpty()) {
+                result.error(lineNumber, "нет названия");
+                continue;
+            }
+            if (name.length() > MAX_FIELD_LENGTH || description.length() > MAX_FIELD_LENGTH) {
+                result.error(lineNumber, "название или описание длиннее " + MAX_FIELD_LENGTH + " символов");
+                continue;
+            }
+            Instant deadline = null;
+            if (!deadlineText.isEmpty()) {
+                deadline = DeadlineFormatter.parse(deadlineText, zone);
+                if (deadline == null) {
+                    result.error(lineNumber, "неверный дедлайн '" + deadlineText + "'");
+                    continue;
+                }
+                if (deadline.isBefore(now)) {
+                    result.error(lineNumber, "дедлайн в прошлом");
+                    continue;
+                }
+            }
+
+            result.tasks.add(new Task(name, description.isEmpty() ? null : description, userId,
+                    TaskStatus.BACKLOG, deadline, Category.ANALYTICS));
+        }
+        return result;
+    }
+
+    public static final class Result {
+        private final List<Task> tasks = new ArrayList<>();
+        private final List<String> errors = new ArrayList<>();
+        private int errorCount;
+        private boolean truncated;
+
+        public List<Task> getTasks() { return tasks; }
+
+        /**
+         * @return первые несколько ошибок вида "строка 3: ..."; всего ошибок - {@link #getErrorCount()}
+         */
+        public List<String> getErrors() { return errors; }
+        public int getErrorCount() { return errorCount; }
+
+        /**
+         * @return true, если строк больше {@link #MAX_TASKS} и остаток не разбирался
+         */
+        public boolean isTruncated() { return truncated; }
+
+        private void error(int lineNumber, String message) {
+            errorCount++;
+            if (errors.size() < MAX_ERRORS) {
+                errors.add("строка " + lineNumber + ": " + message);
+            }
+        }
+    }
+}
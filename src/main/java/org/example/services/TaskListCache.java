@@ -0,0 +1,191 @@
+package org.example.services;
+
+import org.example.cluster.MembershipChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Кэш списков задач по пользователям. Для каждого пользователя хранятся разные представления
+ * (все задачи, по статусу, по категории), и все они сбрасываются разом при любом изменении его задач.
+ * <p>
+ * Сброс идет по {@link TaskChangedEvent} после коммита, а не внутри транзакции: иначе читатель, успевший
+ * между сбросом и коммитом, положил бы в кэш еще не измененные строки. Чтение, начатое до коммита,
+ * свой результат не положит - сброс заменяет запись пользователя, и устаревший список отбрасывается.
+ * <p>
+ * Изменяемые значения (сущности) хранятся копиями: в кэш кладется копия загруженного, а каждому читателю
+ * отдается своя копия, так что ни сессия Hibernate, ни вызывающий код не меняют закэшированные данные.
+ * <p>
+ * В кластере после смены состава выбрасываются списки пользователей, которые теперь принадлежат другим узлам:
+ * их изменения идут туда, и при возвращении пользователя здесь остался бы устаревший список.
+ * <p>
+ * Размер ограничен суммарным числом задач во всех закэшированных списках (max-weight);
+ * при переполнении вытесняются пользователи, к которым дольше всего не обращались.
+ */
+@Component
+public class TaskListCache {
+    private final boolean enabled;
+    private final long maxWeight;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<Long, UserEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public TaskListCache(
+            @Value("${task.cache.enabled:true}") boolean enabled,
+            @Value("${task.cache.max-weight:100000}") long maxWeight) {
+        this.enabled = enabled;
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Для неизменяемых значений - проекций, которые отдаются читателям как есть.
+     */
+    public <T> List<T> get(Long userId, String view, Supplier<List<T>> loader) {
+        return get(userId, view, loader, null);
+    }
+
+    /**
+     * Для изменяемых значений: в кэш кладутся копии загруженного, на каждое попадание отдаются новые копии.
+     *
+     * @param copy делает отсоединенную копию элемента; null - отдавать как есть
+     */
+    public <T> List<T> get(Long userId, String view, Supplier<List<T>> loader, UnaryOperator<T> copy) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        UserEntry entry;
+        lock.lock();
+        try {
+            entry = entries.get(userId);
+            if (entry == null) {
+                entry = new UserEntry();
+                entries.put(userId, entry);
+                weight += entry.weight;
+                evictOverweight();
+            }
+            @SuppressWarnings("unchecked")
+            List<T> cached = (List<T>) entry.views.get(view);
+            if (cached != null) {
+                hits.increment();
+                return copy == null ? cached : copyOf(cached, copy);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        misses.increment();
+        List<T> result = loader.get();
+        List<T> loaded = copy == null ? Collections.unmodifiableList(result) : copyOf(result, copy);
+
+        lock.lock();
+        try {
+            // если пока мы ходили в базу список инвалидировали, entry уже другой - не кладем устаревшие данные
+            if (entries.get(userId) == entry && entry.views.put(view, loaded) == null) {
+                int added = loaded.size() + 1;
+                entry.weight += added;
+                weight += added;
+                evictOverweight();
+            }
+        } finally {
+            lock.unlock();
+        }
+        // загруженное отдается этому читателю, в кэше остаются копии
+        return copy == null ? loaded : Collections.unmodifiableList(result);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChanged(TaskChangedEvent event) {
+        invalidate(event.getUserId());
+    }
+
+    @EventListener
+    public void onMembershipChanged(MembershipChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        lock.lock();
+        try {
+            Iterator<Map.Entry<Long, UserEntry>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Long, UserEntry> entry = it.next();
+                if (!event.isLocal(entry.getKey())) {
+                    weight -= entry.getValue().weight;
+                    it.remove();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidate(Long userId) {
+        if (!enabled || userId == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            UserEntry removed = entries.remove(userId);
+            if (removed != null) {
+                weight -= removed.weight;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isEnabled() { return enabled; }
+    public long getHitCount() { return hits.sum(); }
+    public long getMissCount() { return misses.sum(); }
+    public long getEvictionCount() { return evictions.sum(); }
+
+    public long getWeight() {
+        lock.lock();
+        try {
+            return weight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static <T> List<T> copyOf(List<T> list, UnaryOperator<T> copy) {
+        List<T> copies = new ArrayList<>(list.size());
+        for (T item : list) {
+            copies.add(copy.apply(item));
+        }
+        return Collections.unmodifiableList(copies);
+    }
+
+    private void evictOverweight() {
+        Iterator<UserEntry> it = entries.values().iterator();
+        while (weight > maxWeight && it.hasNext()) {
+            UserEntry eldest = it.next();
+            weight -= eldest.weight;
+            it.remove();
+            evictions.increment();
+        }
+    }
+
+    private static class UserEntry {
+        final Map<String, List<?>> views = new HashMap<>();
+        long weight = 1;
+    }
+}
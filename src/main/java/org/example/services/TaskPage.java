@@ -0,0 +1,28 @@
+package org.example.services;
+
+import org.example.models.Task;
+
+import java.util.List;
+
+/**
+ * Страница списка задач. Курсоры первой и последней задачи используются для кнопок "назад"/"вперед".
+ */
+public class TaskPage {
+    private final List<Task> tasks;
+    private final boolean hasPrevious;
+    private final boolean hasNext;
+
+    public TaskPage(List<Task> tasks, boolean hasPrevious, boolean hasNext) {
+        this.tasks = tasks;
+        this.hasPrevious = hasPrevious;
+        this.hasNext = hasNext;
+    }
+
+    public List<Task> getTasks() { return tasks; }
+    public boolean hasPrevious() { return hasPrevious; }
+    public boolean hasNext() { return hasNext; }
+    public boolean isEmpty() { return tasks.isEmpty(); }
+
+    public TaskCursor firstCursor() { return TaskCursor.of(tasks.get(0)); }
+    public TaskCursor lastCursor() { return TaskCursor.of(tasks.get(tasks.size() - 1)); }
+}
@@ -3,20 +3,35 @@ package org.example.services;
 import org.example.models.Category;
 import org.example.models.Task;
 import org.example.models.TaskStatus;
+import org.example.models.TaskView;
 import org.example.repo.TaskRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Date;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 
 @Service
 public class TaskService {
     private final TaskRepository taskRepository;
+    private final TaskListCache taskListCache;
+    private final ApplicationEventPublisher eventPublisher;
 
-    TaskService(TaskRepository taskRepository){
+    TaskService(TaskRepository taskRepository, TaskListCache taskListCache, ApplicationEventPublisher eventPublisher){
         this.taskRepository = taskRepository;
+        this.taskListCache = taskListCache;
+        this.eventPublisher = eventPublisher;
     }
 
     public Optional<Task> getTaskById(Long taskId) {
@@ -24,55 +39,193 @@ public class TaskService {
     }
 
 
-    public Task updateTaskStatus(Long taskId, TaskStatus newStatus){
-        Optional<Task> taskOpt = taskRepository.findById(taskId);
-        if (taskOpt.isPresent()) {
-            Task task = taskOpt.get();
-            task.setTaskStatus(newStatus);
-            return taskRepository.save(task);
+    @Transactional
+    public boolean updateTaskStatus(Long taskId, Long userId, TaskStatus newStatus){
+        return onUpdated(userId, taskId, taskRepository.updateStatus(taskId, userId, newStatus, LocalDateTime.now()));
+    }
+
+    @Transactional
+    public boolean updateTaskName(Long taskId, Long userId, String name){
+        return onUpdated(userId, taskId, taskRepository.updateName(taskId, userId, name, LocalDateTime.now()));
+    }
+
+    @Transactional
+    public boolean updateTaskDescription(Long taskId, Long userId, String description){
+        return onUpdated(userId, taskId, taskRepository.updateDescription(taskId, userId, description, LocalDateTime.now()));
+    }
+
+    @Transactional
+    public boolean updateTaskDeadline(Long taskId, Long userId, Instant newDeadline){
+        return onUpdated(userId, taskId, taskRepository.updateDeadline(taskId, userId, newDeadline, LocalDateTime.now()));
+    }
+
+    private boolean onUpdated(Long userId, Long taskId, int updatedRows) {
+        if (updatedRows == 0) {
+            return false;
+        }
+        changed(userId, taskId, TaskChangedEvent.Type.UPDATED);
+        return true;
+    }
+
+    // кэш списков сбрасывается по этому же событию после коммита
+    private void changed(Long userId, Long taskId, TaskChangedEvent.Type type) {
+        eventPublisher.publishEvent(new TaskChangedEvent(userId, taskId, type));
+    }
+
+    /*
+     * Массовые операции над выбранными задачами: один SELECT, отсекающий чужие и уже удаленные id,
+     * и один UPDATE/DELETE на всю пачку. Возвращают число затронутых задач.
+     */
+
+    @Transactional
+    public int completeAll(Long userId, Collection<Long> taskIds) {
+        return moveAll(userId, taskIds, TaskStatus.DONE);
+    }
+
+    @Transactional
+    public int moveAll(Long userId, Collection<Long> taskIds, TaskStatus status) {
+        List<Long> owned = ownedIds(userId, taskIds);
+        if (owned.isEmpty()) {
+            return 0;
         }
-        return null;
+        int updated = taskRepository.updateStatusAll(owned, userId, status, LocalDateTime.now());
+        changedAll(userId, owned, TaskChangedEvent.Type.UPDATED);
+        return updated;
     }
+
+    @Transactional
+    public int deleteAll(Long userId, Collection<Long> taskIds) {
+        List<Long> owned = ownedIds(userId, taskIds);
+        if (owned.isEmpty()) {
+            return 0;
+        }
+        int deleted = taskRepository.deleteOwned(owned, userId);
+        changedAll(userId, owned, TaskChangedEvent.Type.DELETED);
+        return deleted;
+    }
+
+    private List<Long> ownedIds(Long userId, Collection<Long> taskIds) {
+        return taskIds.isEmpty() ? Collections.emptyList() : taskRepository.findOwnedIds(userId, taskIds);
+    }
+
+    private void changedAll(Long userId, List<Long> taskIds, TaskChangedEvent.Type type) {
+        eventPublisher.publishEvent(new TaskChangedEvent(userId, taskIds, type));
+    }
+
     public List<Task> getTaskListByUser(Long userId){
-        return taskRepository.findByUserOwnerId(userId);
+        return taskListCache.get(userId, "all", () -> taskRepository.findByUserOwnerId(userId), Task::copy);
     }
+
+    public TaskPage getFirstTaskPage(Long userId, int size) {
+        List<Task> rows = taskListCache.get(userId, "page:first:" + size,
+                () -> taskRepository.findByUserOwnerIdOrderByCreatedAtDescIdDesc(userId, PageRequest.of(0, size + 1)),
+                Task::copy);
+        return new TaskPage(head(rows, size), false, rows.size() > size);
+    }
+
+    // Страница после курсора (дальше к старым задачам)
+    public TaskPage getTaskPageAfter(Long userId, TaskCursor cursor, int size) {
+        List<Task> rows = taskListCache.get(userId, "page:after:" + cursor.asString() + ":" + size,
+                () -> taskRepository.findPageAfter(userId, cursor.getCreatedAt(), cursor.getId(), PageRequest.of(0, size + 1)),
+                Task::copy);
+        return new TaskPage(head(rows, size), true, rows.size() > size);
+    }
+
+    // Страница перед курсором (ближе к новым задачам)
+    public TaskPage getTaskPageBefore(Long userId, TaskCursor cursor, int size) {
+        List<Task> rows = taskListCache.get(userId, "page:before:" + cursor.asString() + ":" + size,
+                () -> taskRepository.findPageBefore(userId, cursor.getCreatedAt(), cursor.getId(), PageRequest.of(0, size + 1)),
+                Task::copy);
+        List<Task> tasks = new ArrayList<>(head(rows, size));
+        Collections.reverse(tasks);
+        return new TaskPage(tasks, rows.size() > size, true);
+    }
+
+    private static List<Task> head(List<Task> rows, int size) {
+        return rows.size() > size ? rows.subList(0, size) : rows;
+    }
+
+    @Transactional
     public boolean deleteTask(Long taskId) {
-        if (taskRepository.existsById(taskId)) {
-            taskRepository.deleteById(taskId);
+        Optional<Task> taskOpt = taskRepository.findById(taskId);
+        if (taskOpt.isPresent()) {
+            taskRepository.delete(taskOpt.get());
+            changed(taskOpt.get().getUserOwnerId(), taskId, TaskChangedEvent.Type.DELETED);
             return true;
         }
         return false;
     }
     // Задачи с дедлайном в ближайшие 3 дня
     public List<Task> getTasksWithDeadlineApproaching(Long userId) {
-        Date threeDaysLater = new Date(System.currentTimeMillis() + 3 * 24 * 60 * 60 * 1000);
+        Instant threeDaysLater = Instant.now().plus(Duration.ofDays(3));
         return taskRepository.findByUserOwnerIdAndDeadlineTimeBefore(userId, threeDaysLater);
     }
 
-    public Task updateTaskDeadline(Long taskId, Date newDeadline){
-        Optional<Task> taskOpt = taskRepository.findById(taskId);
-        if (taskOpt.isPresent()) {
-            Task task = taskOpt.get();
-            task.setDeadlineTime(newDeadline);
-            return taskRepository.save(task);
-        }
-        return null;
+    // Незавершенные задачи с дедлайном раньше now + window, включая просроченные, по возрастанию дедлайна
+    public List<TaskView> getUpcomingDeadlines(Long userId, Duration window) {
+        Instant until = Instant.now().plus(window);
+        return taskRepository.findOpenDeadlineViewsBefore(userId, until);
+    }
+
+    public List<TaskView> getOverdueTasks(Long userId) {
+        return taskRepository.findOpenDeadlineViewsBefore(userId, Instant.now());
+    }
+
+    // не зависит от числа задач: счетчики уже в user_task_stats, просроченные - по частичному индексу открытых задач
+    @Transactional(readOnly = true)
+    public TaskStats getTaskStats(Long userId) {
+        return new TaskStats(taskRepository.findStatsRows(userId), taskRepository.countOverdue(userId, Instant.now()));
+    }
+
+    public List<TaskView> getTaskViewsByStatus(Long userId, TaskStatus status) {
+        return taskListCache.get(userId, "status-view:" + status,
+                () -> taskRepository.findViewsByUserOwnerIdAndTaskStatus(userId, status));
+    }
+
+    public List<TaskView> getTaskViewsByCategory(Long userId, Category category) {
+        return taskListCache.get(userId, "category-view:" + category,
+                () -> taskRepository.findViewsByUserOwnerIdAndCategory(userId, category));
     }
 
     public List<Task> getTaskByUserIdAndStatus(Long userId, TaskStatus status){
-        return taskRepository.findByUserOwnerIdAndTaskStatus(userId,status);
+        return taskListCache.get(userId, "status:" + status,
+                () -> taskRepository.findByUserOwnerIdAndTaskStatus(userId, status), Task::copy);
     }
 
     public List<Task> getTaskByUserIdAndCategory(Long userId, Category category){
-        return taskRepository.findByUserOwnerIdAndCategory(userId,category);
+        return taskListCache.get(userId, "category:" + category,
+                () -> taskRepository.findByUserOwnerIdAndCategory(userId, category), Task::copy);
     }
 
+    @Transactional
     public Task updateTask(Task task) {
-        return taskRepository.save(task);
+        Task saved = taskRepository.save(task);
+        changed(saved.getUserOwnerId(), saved.getId(), TaskChangedEvent.Type.UPDATED);
+        return saved;
+    }
+    /**
+     * Создает пачку новых задач в одной транзакции. Id берутся из пула последовательности без обращения
+     * к базе на каждую задачу, а INSERT уходят JDBC-пачками по hibernate.jdbc.batch_size.
+     */
+    @Transactional
+    public List<Task> createTasks(List<Task> tasks) {
+        if (tasks.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Task> saved = taskRepository.saveAll(tasks);
+        Map<Long, List<Long>> idsByUser = new LinkedHashMap<>();
+        for (Task task : saved) {
+            idsByUser.computeIfAbsent(task.getUserOwnerId(), userId -> new ArrayList<>()).add(task.getId());
+        }
+        idsByUser.forEach((userId, ids) -> changedAll(userId, ids, TaskChangedEvent.Type.CREATED));
+        return saved;
     }
-    public Task createTask(String name, String description, Long userOwnerId, TaskStatus status, Date date, Category category){
-        Task task = new Task(name,description,userOwnerId,status,date, category);
-        return taskRepository.save(task);
+
+    @Transactional
+    public Task createTask(String name, String description, Long userOwnerId, TaskStatus status, Instant date, Category category){
+        Task task = taskRepository.save(new Task(name,description,userOwnerId,status,date, category));
+        changed(task.getUserOwnerId(), task.getId(), TaskChangedEvent.Type.CREATED);
+        return task;
     }
 
 }
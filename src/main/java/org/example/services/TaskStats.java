@@ -0,0 +1,76 @@
+package org.example.services;
+
+import org.example.models.Category;
+import org.example.models.TaskStatsRow;
+import org.example.models.TaskStatus;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Статистика задач пользователя: сколько задач в каждом статусе и категории, сколько просрочено,
+ * доля выполненных и среднее timeAmount по задачам, где оно указано.
+ */
+public final class TaskStats {
+    private final Map<TaskStatus, Long> byStatus = new EnumMap<>(TaskStatus.class);
+    private final Map<Category, Long> byCategory = new EnumMap<>(Category.class);
+    private final long total;
+    private final long overdue;
+    private final Double averageTimeAmount;
+
+    TaskStats(List<TaskStatsRow> rows, long overdue) {
+        long total = 0;
+        double timeAmountSum = 0;
+        long timeAmountCount = 0;
+        for (TaskStatsRow row : rows) {
+            long count = row.getTaskCount();
+            total += count;
+            timeAmountSum += row.getTimeAmountSum();
+            timeAmountCount += row.getTimeAmountCount();
+
+            TaskStatus status = status(row.getTaskStatus());
+            if (status != null) {
+                byStatus.merge(status, count, Long::sum);
+            }
+            int category = row.getCategory();
+            if (category >= 0 && category < Category.values().length) {
+                byCategory.merge(Category.values()[category], count, Long::sum);
+            }
+        }
+        this.total = total;
+        this.overdue = overdue;
+        this.averageTimeAmount = timeAmountCount == 0 ? null : timeAmountSum / timeAmountCount;
+    }
+
+    public long getTotal() { return total; }
+    public long getOverdue() { return overdue; }
+
+    public long getCount(TaskStatus status) { return byStatus.getOrDefault(status, 0L); }
+    public long getCount(Category category) { return byCategory.getOrDefault(category, 0L); }
+
+    public Map<TaskStatus, Long> getByStatus() { return Collections.unmodifiableMap(byStatus); }
+    public Map<Category, Long> getByCategory() { return Collections.unmodifiableMap(byCategory); }
+
+    /**
+     * @return доля задач в статусе DONE от 0 до 1; 0, если задач нет
+     */
+    public double getCompletionRate() {
+        return total == 0 ? 0 : getCount(TaskStatus.DONE) / (double) total;
+    }
+
+    /**
+     * @return null, если ни у одной задачи не указано timeAmount
+     */
+    public Double getAverageTimeAmount() { return averageTimeAmount; }
+
+    private static TaskStatus status(String name) {
+        for (TaskStatus status : TaskStatus.values()) {
+            if (status.name().equals(name)) {
+                return status;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,88 @@
+package org.example.services;
+
+import org.example.cluster.MembershipChangedEvent;
+import org.example.models.UserSettings;
+import org.example.repo.UserSettingsRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DateTimeException;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Часовые пояса пользователей. Пояс нужен при каждом выводе дедлайна, поэтому он кэшируется
+ * в памяти (LRU на max-size пользователей); в базу - только при промахе и при смене пояса.
+ * В кластере пояс меняется на узле-владельце, поэтому при смене состава пояса чужих теперь
+ * пользователей выбрасываются.
+ */
+@Service
+public class UserZoneService {
+    private final UserSettingsRepository userSettingsRepository;
+    private final ZoneId defaultZone;
+    private final Map<Long, ZoneId> zones;
+
+    UserZoneService(UserSettingsRepository userSettingsRepository,
+                    @Value("${telegram.time-zone.default:}") String defaultZone,
+                    @Value("${telegram.time-zone.cache-size:100000}") int cacheSize) {
+        this.userSettingsRepository = userSettingsRepository;
+        this.defaultZone = defaultZone.isEmpty() ? ZoneId.systemDefault() : ZoneId.of(defaultZone);
+        this.zones = new LinkedHashMap<Long, ZoneId>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, ZoneId> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    public ZoneId getZone(Long userId) {
+        synchronized (zones) {
+            ZoneId zone = zones.get(userId);
+            if (zone != null) {
+                return zone;
+            }
+        }
+
+        ZoneId zone = userSettingsRepository.findById(userId)
+                .map(UserSettings::getTimeZone)
+                .map(this::toZoneOrDefault)
+                .orElse(defaultZone);
+        synchronized (zones) {
+            zones.putIfAbsent(userId, zone);
+        }
+        return zone;
+    }
+
+    /**
+     * @throws DateTimeException если пояс не распознан
+     */
+    @Transactional
+    public ZoneId setZone(Long userId, String zoneId) {
+        ZoneId zone = ZoneId.of(zoneId.trim());
+        UserSettings settings = userSettingsRepository.findById(userId).orElseGet(() -> new UserSettings(userId));
+        settings.setTimeZone(zone.getId());
+        userSettingsRepository.save(settings);
+        synchronized (zones) {
+            zones.put(userId, zone);
+        }
+        return zone;
+    }
+
+    @EventListener
+    public void onMembershipChanged(MembershipChangedEvent event) {
+        synchronized (zones) {
+            zones.keySet().removeIf(userId -> !event.isLocal(userId));
+        }
+    }
+
+    private ZoneId toZoneOrDefault(String zoneId) {
+        try {
+            return ZoneId.of(zoneId);
+        } catch (DateTimeException e) {
+            return defaultZone;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.example.time;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+
+/**
+ * Разбор и вывод дедлайнов в формате {@code dd.MM.yyyy HH:mm} в часовом поясе пользователя.
+ * <p>
+ * Класс без состояния, его можно звать из любых потоков. Основной формат разбирается вручную
+ * по фиксированным позициям символов, без регулярного выражения и DateTimeFormatter;
+ * все остальное (например, {@code 5.3.2026 9:00}) уходит в строгий DateTimeFormatter.
+ */
+public final class DeadlineFormatter {
+    public static final String PATTERN = "dd.MM.yyyy HH:mm";
+
+    private static final DateTimeFormatter RELAXED =
+            DateTimeFormatter.ofPattern("d.M.uuuu H:mm").withResolverStyle(ResolverStyle.STRICT);
+
+    private DeadlineFormatter() {
+    }
+
+    public static String format(Instant deadline, ZoneId zone) {
+        return appendTo(new StringBuilder(16), deadline, zone).toString();
+    }
+
+    public static StringBuilder appendTo(StringBuilder out, Instant deadline, ZoneId zone) {
+        LocalDateTime time = LocalDateTime.ofInstant(deadline, zone);
+        appendTwoDigits(out, time.getDayOfMonth()).append('.');
+        appendTwoDigits(out, time.getMonthValue()).append('.');
+        int year = time.getYear();
+        if (year >= 1000 && year <= 9999) {
+            out.append(year);
+        } else {
+            out.append(String.format("%04d", year));
+        }
+        out.append(' ');
+        appendTwoDigits(out, time.getHour()).append(':');
+        return appendTwoDigits(out, time.getMinute());
+    }
+
+    /**
+     * @return момент времени или null, если строка не похожа на дату или такой даты нет (31.02)
+     */
+    public static Instant parse(String input, ZoneId zone) {
+        if (input == null) {
+            return null;
+        }
+        String text = input.trim();
+        LocalDateTime time = text.length() == PATTERN.length() ? parseFixed(text) : null;
+        if (time == null) {
+            try {
+                time = LocalDateTime.parse(text, RELAXED);
+            } catch (DateTimeParseException e) {
+                return null;
+            }
+        }
+        // в переход на летнее время несуществующий час сдвигается вперед
+        return time.atZone(zone).toInstant();
+    }
+
+    private static LocalDateTime parseFixed(String text) {
+        if (text.charAt(2) != '.' || text.charAt(5) != '.' || text.charAt(10) != ' ' || text.charAt(13) != ':') {
+            return null;
+        }
+        int day = twoDigits(text, 0);
+        int month = twoDigits(text, 3);
+        int century = twoDigits(text, 6);
+        int yearOfCentury = twoDigits(text, 8);
+        int hour = twoDigits(text, 11);
+        int minute = twoDigits(text, 14);
+        if ((day | month | century | yearOfCentury | hour | minute) < 0) {
+            return null;
+        }
+        try {
+            return LocalDateTime.of(century * 100 + yearOfCentury, month, day, hour, minute);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    // -1, если в позиции не две цифры
+    private static int twoDigits(String text, int offset) {
+        int high = text.charAt(offset) - '0';
+        int low = text.charAt(offset + 1) - '0';
+        if (high < 0 || high > 9 || low < 0 || low > 9) {
+            return -1;
+        }
+        return high * 10 + low;
+    }
+
+    private static StringBuilder appendTwoDigits(StringBuilder out, int value) {
+        return out.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+}
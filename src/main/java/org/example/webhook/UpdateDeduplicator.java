@@ -0,0 +1,39 @@
+package org.example.webhook;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Помнит последние update_id, чтобы повторная доставка того же апдейта (Telegram повторяет
+ * запрос, если не получил ответ вовремя) не обрабатывалась дважды.
+ */
+@Component
+public class UpdateDeduplicator {
+    private final Map<Integer, Boolean> seen;
+
+    public UpdateDeduplicator(@Value("${telegram.webhook.dedup-capacity:100000}") int capacity) {
+        this.seen = new LinkedHashMap<Integer, Boolean>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Boolean> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * @return true, если апдейт пришел впервые
+     */
+    public synchronized boolean markSeen(Integer updateId) {
+        return seen.put(updateId, Boolean.TRUE) == null;
+    }
+
+    /**
+     * Забыть апдейт, который не удалось принять, чтобы его повторная доставка прошла.
+     */
+    public synchronized void forget(Integer updateId) {
+        seen.remove(updateId);
+    }
+}
@@ -0,0 +1,42 @@
+package org.example.webhook;
+
+import org.example.TelegramBot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+/**
+ * Локальный прием апдейта из HTTP: отсев дубликатов по update_id и постановка в очередь диспетчера.
+ * Если очередь заполнена, update_id забывается, чтобы повторная доставка не отбросилась как дубликат.
+ */
+@Component
+public class UpdateIngress {
+    private static final Logger log = LoggerFactory.getLogger(UpdateIngress.class);
+
+    private final TelegramBot bot;
+    private final UpdateDeduplicator deduplicator;
+
+    public UpdateIngress(TelegramBot bot, UpdateDeduplicator deduplicator) {
+        this.bot = bot;
+        this.deduplicator = deduplicator;
+    }
+
+    /**
+     * @return false, если апдейт не принят и его нужно доставить повторно
+     */
+    public boolean accept(Update update) {
+        Integer updateId = update.getUpdateId();
+        if (updateId != null && !deduplicator.markSeen(updateId)) {
+            return true;
+        }
+        if (!bot.offerUpdate(update)) {
+            if (updateId != null) {
+                deduplicator.forget(updateId);
+            }
+            log.warn("Dispatcher queue is full, update {} rejected", updateId);
+            return false;
+        }
+        return true;
+    }
+}
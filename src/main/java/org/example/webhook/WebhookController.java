@@ -0,0 +1,92 @@
+package org.example.webhook;
+
+import org.example.TelegramBot;
+import org.example.cluster.ClusterClient;
+import org.example.cluster.ClusterMembership;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.regex.Pattern;
+
+/**
+ * Прием апдейтов в режиме webhook.
+ * <p>
+ * Обработчик не ждет обработки апдейта: он только кладет его в очередь диспетчера и сразу отвечает 200.
+ * Если очередь заполнена, отвечаем 503 - Telegram повторит доставку позже.
+ * В кластере апдейт пользователя, которым владеет другой узел, пересылается туда,
+ * и ответ Telegram зависит от того, принял ли его владелец.
+ * <p>
+ * Без секрета любой POST на публичный адрес выглядел бы как апдейт от Telegram от имени любого
+ * пользователя, поэтому telegram.webhook.secret обязателен: без него приложение не стартует.
+ * Telegram присылает секрет в заголовке, заданном при setWebhook (см. {@link WebhookRegistrar}).
+ */
+@RestController
+@ConditionalOnProperty(name = "telegram.bot.mode", havingValue = "webhook")
+public class WebhookController {
+    private static final String SECRET_HEADER = "X-Telegram-Bot-Api-Secret-Token";
+    // ограничения Bot API на secret_token
+    private static final Pattern SECRET_FORMAT = Pattern.compile("[A-Za-z0-9_-]{1,256}");
+
+    private final TelegramBot bot;
+    private final UpdateIngress ingress;
+    private final ClusterMembership membership;
+    private final ClusterClient clusterClient;
+    private final byte[] secret;
+
+    public WebhookController(
+            TelegramBot bot,
+            UpdateIngress ingress,
+            ObjectProvider<ClusterMembership> membership,
+            ObjectProvider<ClusterClient> clusterClient,
+            @Value("${telegram.webhook.secret:}") String secret) {
+        this.bot = bot;
+        this.ingress = ingress;
+        this.membership = membership.getIfAvailable();
+        this.clusterClient = clusterClient.getIfAvailable();
+        this.secret = requireSecret(secret).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @PostMapping("${telegram.webhook.path:/webhook}")
+    public Mono<ResponseEntity<Void>> onUpdate(
+            @RequestHeader(name = SECRET_HEADER, required = false) String token,
+            @RequestBody Update update) {
+        if (token == null || !MessageDigest.isEqual(secret, token.getBytes(StandardCharsets.UTF_8))) {
+            return Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).<Void>build());
+        }
+
+        if (membership != null) {
+            Long userId = bot.getUserId(update);
+            if (userId != null && !membership.isLocal(userId)) {
+                return clusterClient.forwardUpdate(membership.ownerOf(userId), update).map(WebhookController::status);
+            }
+        }
+        return Mono.just(status(ingress.accept(update)));
+    }
+
+    static String requireSecret(String secret) {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException("telegram.webhook.secret (WEBHOOK_SECRET) must be set in webhook mode");
+        }
+        if (!SECRET_FORMAT.matcher(secret).matches()) {
+            throw new IllegalStateException("telegram.webhook.secret must be 1-256 characters of A-Z, a-z, 0-9, _ and -");
+        }
+        return secret;
+    }
+
+    static ResponseEntity<Void> status(boolean accepted) {
+        return accepted
+                ? ResponseEntity.ok().build()
+                : ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+    }
+}
@@ -0,0 +1,57 @@
+package org.example.webhook;
+
+import org.example.TelegramBot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.updates.SetWebhook;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+
+/**
+ * Регистрирует webhook в Telegram при старте приложения.
+ * Если telegram.webhook.url пуст, считаем, что webhook настроен снаружи (например, при деплое);
+ * тогда secret_token там нужно задать тот же, что в telegram.webhook.secret.
+ */
+@Component
+@ConditionalOnProperty(name = "telegram.bot.mode", havingValue = "webhook")
+public class WebhookRegistrar {
+    private static final Logger log = LoggerFactory.getLogger(WebhookRegistrar.class);
+
+    private final TelegramBot bot;
+    private final String url;
+    private final String secret;
+    private final int maxConnections;
+
+    public WebhookRegistrar(
+            TelegramBot bot,
+            @Value("${telegram.webhook.url:}") String url,
+            @Value("${telegram.webhook.secret:}") String secret,
+            @Value("${telegram.webhook.max-connections:40}") int maxConnections) {
+        this.bot = bot;
+        this.url = url;
+        this.secret = WebhookController.requireSecret(secret);
+        this.maxConnections = maxConnections;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void register() {
+        if (url.isEmpty()) {
+            log.info("telegram.webhook.url is empty, skipping webhook registration");
+            return;
+        }
+        SetWebhook setWebhook = new SetWebhook();
+        setWebhook.setUrl(url);
+        setWebhook.setMaxConnections(maxConnections);
+        setWebhook.setSecretToken(secret);
+        try {
+            bot.execute(setWebhook);
+            log.info("Webhook registered at {}", url);
+        } catch (TelegramApiException e) {
+            log.error("Failed to register webhook", e);
+        }
+    }
+}
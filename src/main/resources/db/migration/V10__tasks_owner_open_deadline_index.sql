@@ -0,0 +1,4 @@
+-- Счетчик просроченных на экране статистики: только незавершенные задачи с дедлайном,
+-- COUNT обходится сканированием этого небольшого индекса
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_tasks_owner_open_deadline ON tasks (user_owner_id, deadline_time)
+    WHERE deadline_time IS NOT NULL AND task_status <> 'DONE';
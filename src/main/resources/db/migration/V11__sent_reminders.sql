@@ -0,0 +1,6 @@
+-- Отправленные напоминания: после рестарта узел не шлет повторно то, что уже ушло.
+-- deadline_time - дедлайн, о котором напомнили; после переноса дедлайна напоминание нужно снова.
+CREATE TABLE IF NOT EXISTS sent_reminders (
+    task_id       BIGINT PRIMARY KEY REFERENCES tasks (id) ON DELETE CASCADE,
+    deadline_time TIMESTAMP NOT NULL
+);
@@ -0,0 +1,14 @@
+-- Схема, которую раньше создавал hibernate ddl-auto: update.
+-- На существующих базах эта миграция пропускается через baseline-on-migrate.
+CREATE TABLE IF NOT EXISTS tasks (
+    id            BIGSERIAL PRIMARY KEY,
+    task_status   VARCHAR(255),
+    time_amount   DOUBLE PRECISION,
+    name          VARCHAR(255),
+    description   VARCHAR(255),
+    user_owner_id BIGINT,
+    category      INTEGER,
+    deadline_time TIMESTAMP,
+    created_at    TIMESTAMP,
+    updated_at    TIMESTAMP
+);
@@ -0,0 +1,7 @@
+CREATE TABLE IF NOT EXISTS conversation_state (
+    user_id    BIGINT PRIMARY KEY,
+    payload    TEXT      NOT NULL,
+    updated_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_conversation_state_updated_at ON conversation_state (updated_at);
@@ -0,0 +1,7 @@
+-- Индексы под запросы TaskRepository: все они фильтруют по владельцу и дальше по статусу,
+-- категории, дедлайну или сортируют по дате создания.
+-- CONCURRENTLY, чтобы не блокировать запись в большую таблицу; flyway выполнит файл вне транзакции.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_tasks_owner_status ON tasks (user_owner_id, task_status);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_tasks_owner_category ON tasks (user_owner_id, category);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_tasks_owner_deadline ON tasks (user_owner_id, deadline_time);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_tasks_owner_created ON tasks (user_owner_id, created_at DESC);
@@ -0,0 +1,4 @@
+-- Keyset-пагинация сортирует по (created_at desc, id desc): добавляем id в индекс,
+-- чтобы страница читалась из индекса без сортировки.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_tasks_owner_created_id ON tasks (user_owner_id, created_at DESC, id DESC);
+DROP INDEX CONCURRENTLY IF EXISTS idx_tasks_owner_created;
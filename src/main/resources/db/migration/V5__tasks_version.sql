@@ -0,0 +1,2 @@
+-- Версия строки для optimistic locking (@Version в Task)
+ALTER TABLE tasks ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
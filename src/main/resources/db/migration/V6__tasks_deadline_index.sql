@@ -0,0 +1,2 @@
+-- Планировщик напоминаний выбирает дедлайны в окне по всем пользователям
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_tasks_deadline ON tasks (deadline_time) WHERE deadline_time IS NOT NULL;
@@ -0,0 +1,6 @@
+-- Часовой пояс пользователя (IANA id или смещение вида +03:00); нет строки - пояс по умолчанию
+CREATE TABLE IF NOT EXISTS user_settings (
+    user_id    BIGINT PRIMARY KEY,
+    time_zone  VARCHAR(64),
+    updated_at TIMESTAMP NOT NULL
+);
@@ -0,0 +1,5 @@
+-- Id задач из последовательности с шагом 50 (pooled-оптимизатор Hibernate, allocationSize = 50 в Task):
+-- узел берет диапазон из 50 id одним nextval, и вставки можно отправлять пачками.
+-- Последовательность сдвигается за текущий максимум, чтобы новые диапазоны не пересекались со старыми id.
+ALTER SEQUENCE tasks_id_seq INCREMENT BY 50;
+SELECT setval('tasks_id_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM tasks));
@@ -0,0 +1,63 @@
+-- Счетчики задач пользователя по (статус, категория) для экрана статистики.
+-- Ведутся триггером в той же транзакции, что и изменение tasks, поэтому учитывают и массовые
+-- UPDATE/DELETE, и пакетные INSERT. Пустой статус хранится как '', пустая категория - как -1.
+CREATE TABLE IF NOT EXISTS user_task_stats (
+    user_id           BIGINT           NOT NULL,
+    task_status       VARCHAR(255)     NOT NULL,
+    category          INTEGER          NOT NULL,
+    task_count        BIGINT           NOT NULL,
+    time_amount_sum   DOUBLE PRECISION NOT NULL,
+    time_amount_count BIGINT           NOT NULL,
+    PRIMARY KEY (user_id, task_status, category)
+);
+
+CREATE OR REPLACE FUNCTION user_task_stats_add(p_user BIGINT, p_status VARCHAR, p_category INTEGER,
+                                               p_time_amount DOUBLE PRECISION, p_sign INTEGER) RETURNS void AS $$
+BEGIN
+    IF p_user IS NULL THEN
+        RETURN;
+    END IF;
+    INSERT INTO user_task_stats AS s (user_id, task_status, category, task_count, time_amount_sum, time_amount_count)
+    VALUES (p_user, COALESCE(p_status, ''), COALESCE(p_category, -1), p_sign,
+            COALESCE(p_time_amount, 0) * p_sign, CASE WHEN p_time_amount IS NULL THEN 0 ELSE p_sign END)
+    ON CONFLICT (user_id, task_status, category) DO UPDATE
+        SET task_count        = s.task_count + EXCLUDED.task_count,
+            time_amount_sum   = s.time_amount_sum + EXCLUDED.time_amount_sum,
+            time_amount_count = s.time_amount_count + EXCLUDED.time_amount_count;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION tasks_user_stats() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'UPDATE'
+            AND NEW.user_owner_id IS NOT DISTINCT FROM OLD.user_owner_id
+            AND NEW.task_status IS NOT DISTINCT FROM OLD.task_status
+            AND NEW.category IS NOT DISTINCT FROM OLD.category
+            AND NEW.time_amount IS NOT DISTINCT FROM OLD.time_amount THEN
+        RETURN NULL;
+    END IF;
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        PERFORM user_task_stats_add(OLD.user_owner_id, OLD.task_status, OLD.category, OLD.time_amount, -1);
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        PERFORM user_task_stats_add(NEW.user_owner_id, NEW.task_status, NEW.category, NEW.time_amount, 1);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- запись в tasks ждет конца миграции, чтобы между заполнением и триггером ничего не потерялось
+LOCK TABLE tasks IN SHARE ROW EXCLUSIVE MODE;
+
+DROP TRIGGER IF EXISTS tasks_user_stats ON tasks;
+CREATE TRIGGER tasks_user_stats
+    AFTER INSERT OR DELETE OR UPDATE OF user_owner_id, task_status, category, time_amount ON tasks
+    FOR EACH ROW EXECUTE PROCEDURE tasks_user_stats();
+
+DELETE FROM user_task_stats;
+INSERT INTO user_task_stats (user_id, task_status, category, task_count, time_amount_sum, time_amount_count)
+SELECT user_owner_id, COALESCE(task_status, ''), COALESCE(category, -1),
+       COUNT(*), COALESCE(SUM(time_amount), 0), COUNT(time_amount)
+FROM tasks
+WHERE user_owner_id IS NOT NULL
+GROUP BY user_owner_id, COALESCE(task_status, ''), COALESCE(category, -1);
@@ -0,0 +1,109 @@
+package org.example.callback;
+
+import org.example.models.TaskStatus;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CallbackCodecTest {
+
+    @Test
+    void everyActionSurvivesRoundTrip() {
+        for (CallbackAction action : CallbackAction.values()) {
+            CallbackData data = CallbackCodec.decode(CallbackCodec.encode(action, 42, 7));
+
+            assertData(data, action, 42, 7);
+        }
+    }
+
+    @Test
+    void extremeValuesSurviveRoundTrip() {
+        long[] values = {0, 1, -1, 127, 128, Long.MAX_VALUE, Long.MIN_VALUE};
+        for (long id : values) {
+            for (long arg : values) {
+                String encoded = CallbackCodec.encode(CallbackAction.PAGE_NEXT, id, arg);
+
+                assertData(CallbackCodec.decode(encoded), CallbackAction.PAGE_NEXT, id, arg);
+                assertThat(encoded.getBytes(StandardCharsets.UTF_8)).hasSizeLessThanOrEqualTo(64);
+            }
+        }
+    }
+
+    @Test
+    void statusIsEncodedByItsStableCode() {
+        for (TaskStatus status : TaskStatus.values()) {
+            CallbackData data = CallbackCodec.decode(CallbackCodec.encode(CallbackAction.SET_STATUS, 5, status));
+
+            assertThat(data.getStatus()).isEqualTo(status);
+        }
+    }
+
+    @Test
+    void encodingIsUnpaddedBase64UrlStartingWithTheVersion() {
+        String encoded = CallbackCodec.encode(CallbackAction.SEARCH_PAGE, 123_456_789, 40);
+
+        assertThat(encoded).startsWith("A").doesNotContain("=");
+        byte[] bytes = Base64.getUrlDecoder().decode(encoded);
+        assertThat(bytes[0]).isEqualTo((byte) CallbackCodec.VERSION);
+        assertThat(bytes[1]).isEqualTo((byte) CallbackAction.SEARCH_PAGE.code);
+    }
+
+    @Test
+    void legacyTextButtonsAreStillParsed() {
+        assertData(CallbackCodec.decode("complete_42"), CallbackAction.COMPLETE, 42, 0);
+        assertData(CallbackCodec.decode("info_7"), CallbackAction.INFO, 7, 0);
+        assertData(CallbackCodec.decode("page_next_1700000000000000:15"),
+                CallbackAction.PAGE_NEXT, 15, 1_700_000_000_000_000L);
+        assertData(CallbackCodec.decode("back_to_main"), CallbackAction.BACK_TO_MAIN, 0, 0);
+
+        CallbackData status = CallbackCodec.decode("status_9_IN_PROGRESS");
+        assertData(status, CallbackAction.SET_STATUS, 9, CallbackData.statusCode(TaskStatus.IN_PROGRESS));
+        assertThat(status.getStatus()).isEqualTo(TaskStatus.IN_PROGRESS);
+    }
+
+    @Test
+    void malformedLegacyButtonsAreRejected() {
+        assertThat(CallbackCodec.decode("complete_")).isNull();
+        assertThat(CallbackCodec.decode("complete_abc")).isNull();
+        assertThat(CallbackCodec.decode("status_9")).isNull();
+        assertThat(CallbackCodec.decode("status_9_UNKNOWN")).isNull();
+        assertThat(CallbackCodec.decode("page_prev_123")).isNull();
+        assertThat(CallbackCodec.decode("something_else")).isNull();
+    }
+
+    @Test
+    void malformedCompactDataIsRejected() {
+        assertThat(CallbackCodec.decode(null)).isNull();
+        assertThat(CallbackCodec.decode("")).isNull();
+        // обрезанные строки: не хватает байта действия или varint оборван посередине
+        assertThat(CallbackCodec.decode("AQ")).isNull();
+        assertThat(CallbackCodec.decode(CallbackCodec.encode(CallbackAction.INFO, 1L << 40).substring(0, 5))).isNull();
+        // символы вне base64url
+        assertThat(CallbackCodec.decode("AQ+AAA")).isNull();
+        assertThat(CallbackCodec.decode("AQЖAAA")).isNull();
+        // другая версия формата, неизвестные коды действия, varint длиннее 64 бит
+        assertThat(CallbackCodec.decode(base64(2, 1, 0, 0))).isNull();
+        assertThat(CallbackCodec.decode(base64(1, 0, 0, 0))).isNull();
+        assertThat(CallbackCodec.decode(base64(1, 31, 0, 0))).isNull();
+        assertThat(CallbackCodec.decode(base64(1, 1, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0)))
+                .isNull();
+    }
+
+    private static void assertData(CallbackData data, CallbackAction action, long id, long arg) {
+        assertThat(data).isNotNull();
+        assertThat(data.getAction()).isEqualTo(action);
+        assertThat(data.getId()).isEqualTo(id);
+        assertThat(data.getArg()).isEqualTo(arg);
+    }
+
+    private static String base64(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,85 @@
+package org.example.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConsistentHashRingTest {
+    private static final int VIRTUAL_NODES = 160;
+    private static final int KEYS = 100_000;
+
+    private final ConsistentHashRing three = new ConsistentHashRing(Arrays.asList("a", "b", "c"), VIRTUAL_NODES);
+
+    @Test
+    void sequentialKeysAreSpreadEvenly() {
+        Map<String, Integer> counts = new HashMap<>();
+        for (long key = 1; key <= KEYS; key++) {
+            counts.merge(three.ownerOf(key), 1, Integer::sum);
+        }
+
+        assertThat(counts).containsOnlyKeys("a", "b", "c");
+        // при 160 виртуальных узлах доля узла отличается от 1/3 на единицы процентов
+        counts.values().forEach(count -> assertThat(count).isBetween(KEYS / 4, KEYS * 5 / 12));
+    }
+
+    @Test
+    void ringDoesNotDependOnNodeOrder() {
+        ConsistentHashRing reversed = new ConsistentHashRing(Arrays.asList("c", "b", "a"), VIRTUAL_NODES);
+
+        for (long key = 1; key <= 10_000; key++) {
+            assertThat(reversed.ownerOf(key)).isEqualTo(three.ownerOf(key));
+        }
+    }
+
+    @Test
+    void addingNodeMovesAboutAQuarterOfKeysAndOnlyToTheNewNode() {
+        ConsistentHashRing four = new ConsistentHashRing(Arrays.asList("a", "b", "c", "d"), VIRTUAL_NODES);
+
+        int moved = 0;
+        for (long key = 1; key <= KEYS; key++) {
+            String before = three.ownerOf(key);
+            String after = four.ownerOf(key);
+            if (!before.equals(after)) {
+                assertThat(after).isEqualTo("d");
+                moved++;
+            }
+        }
+        assertThat(moved).isBetween(KEYS / 6, KEYS / 3);
+    }
+
+    @Test
+    void removingNodeMovesOnlyItsKeys() {
+        ConsistentHashRing two = new ConsistentHashRing(Arrays.asList("a", "c"), VIRTUAL_NODES);
+
+        for (long key = 1; key <= KEYS; key++) {
+            String before = three.ownerOf(key);
+            if (!before.equals("b")) {
+                assertThat(two.ownerOf(key)).isEqualTo(before);
+            }
+        }
+    }
+
+    @Test
+    void singleNodeOwnsEverything() {
+        ConsistentHashRing one = new ConsistentHashRing(Collections.singletonList("a"), VIRTUAL_NODES);
+
+        assertThat(one.ownerOf(Long.MIN_VALUE)).isEqualTo("a");
+        assertThat(one.ownerOf(0)).isEqualTo("a");
+        assertThat(one.ownerOf(Long.MAX_VALUE)).isEqualTo("a");
+    }
+
+    @Test
+    void emptyClusterIsRejected() {
+        List<String> none = Collections.emptyList();
+
+        assertThatThrownBy(() -> new ConsistentHashRing(none, VIRTUAL_NODES))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
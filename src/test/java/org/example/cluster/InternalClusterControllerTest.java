@@ -0,0 +1,54 @@
+package org.example.cluster;
+
+import org.example.webhook.UpdateIngress;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InternalClusterControllerTest {
+    private static final String SECRET = "cluster-secret";
+
+    private final UpdateIngress ingress = mock(UpdateIngress.class);
+    private final ClusterMembership membership = mock(ClusterMembership.class);
+
+    @Test
+    void acceptsForwardedUpdateWithTheSecret() {
+        when(ingress.accept(any())).thenReturn(true);
+
+        assertThat(controller(SECRET).onForwardedUpdate(SECRET, new Update()).getStatusCode())
+                .isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void rejectsRequestsWithoutTheSecret() {
+        InternalClusterController controller = controller(SECRET);
+
+        assertThat(controller.onForwardedUpdate(null, new Update()).getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(controller.onForwardedUpdate("wrong", new Update()).getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(controller.onConversations("", Map.of()).getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(controller.onMembership(null, Map.of("evil", "http://evil.example")).block().getStatusCode())
+                .isEqualTo(HttpStatus.UNAUTHORIZED);
+        verify(ingress, never()).accept(any());
+        verify(membership, never()).update(any());
+    }
+
+    @Test
+    void refusesToStartWithoutSecret() {
+        assertThatThrownBy(() -> controller("")).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> controller(" ")).isInstanceOf(IllegalStateException.class);
+    }
+
+    private InternalClusterController controller(String secret) {
+        return new InternalClusterController(ingress, null, membership, null, secret);
+    }
+}
@@ -0,0 +1,119 @@
+package org.example.load;
+
+import org.example.cluster.ConsistentHashRing;
+import org.example.cluster.ConversationRebalancer;
+import org.example.conversation.Conversation;
+import org.example.conversation.ConversationStateStore;
+import org.example.conversation.InMemoryConversationStateStore;
+import org.example.conversation.UserState;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Прогон шардирования на нескольких узлах в одном процессе: у каждого узла свое хранилище диалогов,
+ * перенос между ними идет напрямую, без HTTP. Печатает равномерность распределения и долю
+ * переехавших пользователей при добавлении и удалении узла; завершается с кодом 1, если после
+ * переноса диалог оказался не у владельца или потерялся.
+ * <pre>
+ * java ClusterHarness [узлов] [пользователей]
+ * </pre>
+ */
+public class ClusterHarness {
+    private static final int VIRTUAL_NODES = 128;
+
+    public static void main(String[] args) {
+        int nodeCount = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int users = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+
+        Map<String, ConversationStateStore> nodes = new LinkedHashMap<>();
+        for (int i = 1; i <= nodeCount; i++) {
+            nodes.put("node-" + i, newStore(users));
+        }
+        ConsistentHashRing ring = new ConsistentHashRing(nodes.keySet(), VIRTUAL_NODES);
+        for (long userId = 1; userId <= users; userId++) {
+            Conversation conversation = new Conversation();
+            conversation.setState(UserState.ADDING_TASK_NAME);
+            nodes.get(ring.ownerOf(userId)).put(userId, conversation);
+        }
+        printDistribution("initial", nodes, users);
+
+        String joined = "node-" + (nodeCount + 1);
+        nodes.put(joined, newStore(users));
+        ring = rebalance("join " + joined, nodes, new ConsistentHashRing(nodes.keySet(), VIRTUAL_NODES), users);
+
+        List<String> names = new ArrayList<>(nodes.keySet());
+        String left = names.get(0);
+        // уходящий узел сначала отдает свои диалоги по новому кольцу без себя
+        ConsistentHashRing withoutLeft = new ConsistentHashRing(names.subList(1, names.size()), VIRTUAL_NODES);
+        long moved = move(nodes, left, withoutLeft);
+        nodes.remove(left);
+        System.out.printf("leave %s: moved %d (%.1f%%)%n", left, moved, 100.0 * moved / users);
+        printDistribution("after leave", nodes, users);
+
+        boolean consistent = verify(nodes, withoutLeft, users);
+        nodes.values().forEach(store -> ((InMemoryConversationStateStore) store).shutdown());
+        if (!consistent) {
+            System.exit(1);
+        }
+    }
+
+    private static ConsistentHashRing rebalance(
+            String label, Map<String, ConversationStateStore> nodes, ConsistentHashRing ring, int users) {
+        long moved = 0;
+        for (String node : new ArrayList<>(nodes.keySet())) {
+            moved += move(nodes, node, ring);
+        }
+        System.out.printf("%s: moved %d (%.1f%%), expected about %.1f%%%n",
+                label, moved, 100.0 * moved / users, 100.0 / nodes.size());
+        printDistribution("after " + label, nodes, users);
+        return ring;
+    }
+
+    private static long move(Map<String, ConversationStateStore> nodes, String from, ConsistentHashRing ring) {
+        ConversationStateStore source = nodes.get(from);
+        long moved = 0;
+        for (Map.Entry<String, Map<Long, Conversation>> move : ConversationRebalancer.plan(source, ring, from).entrySet()) {
+            ConversationStateStore target = nodes.get(move.getKey());
+            for (Map.Entry<Long, Conversation> entry : move.getValue().entrySet()) {
+                target.put(entry.getKey(), entry.getValue());
+                source.release(entry.getKey());
+                moved++;
+            }
+        }
+        return moved;
+    }
+
+    private static boolean verify(Map<String, ConversationStateStore> nodes, ConsistentHashRing ring, int users) {
+        int misplaced = 0;
+        for (long userId = 1; userId <= users; userId++) {
+            for (Map.Entry<String, ConversationStateStore> node : nodes.entrySet()) {
+                boolean present = node.getValue().get(userId) != null;
+                boolean owner = node.getKey().equals(ring.ownerOf(userId));
+                if (present != owner) {
+                    misplaced++;
+                }
+            }
+        }
+        System.out.println(misplaced == 0 ? "consistent: every conversation is on its owner" : "misplaced: " + misplaced);
+        return misplaced == 0;
+    }
+
+    private static void printDistribution(String label, Map<String, ConversationStateStore> nodes, int users) {
+        double average = (double) users / nodes.size();
+        int max = 0;
+        StringBuilder sizes = new StringBuilder();
+        for (Map.Entry<String, ConversationStateStore> node : nodes.entrySet()) {
+            int size = node.getValue().size();
+            max = Math.max(max, size);
+            sizes.append(' ').append(node.getKey()).append('=').append(size);
+        }
+        System.out.printf("%s:%s, max/avg=%.3f%n", label, sizes, max / average);
+    }
+
+    private static ConversationStateStore newStore(int users) {
+        return new InMemoryConversationStateStore(users * 2, 60);
+    }
+}
@@ -0,0 +1,93 @@
+package org.example.load;
+
+import org.example.dispatch.ConcurrencyLimit;
+import org.example.dispatch.UpdateDispatcher;
+import org.example.dispatch.VirtualThreads;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Пропускная способность и память диспетчера апдейтов в режимах platform и virtual
+ * при 10 000 одновременно пишущих пользователях.
+ * <p>
+ * Обработчик имитирует типичный апдейт: запрос к базе под лимитом db ({@code -Dmode.db-ms}, {@code -Dmode.db-permits})
+ * и синхронный вызов Bot API под лимитом telegram ({@code -Dmode.http-ms}, {@code -Dmode.http-permits}),
+ * оба - блокирующим ожиданием. Spring и база не поднимаются: меряется только модель потоков.
+ * Режим virtual прогоняется, только если JVM его поддерживает (JDK 21+).
+ * <p>
+ * Память - максимум занятой кучи за прогон (опрос раз в 10 мс) и пиковое число живых платформенных потоков;
+ * стеки платформенных потоков в куче не видны, поэтому для них показательнее второе число.
+ */
+public class DispatcherModeHarness {
+
+    public static void main(String[] args) throws Exception {
+        int users = Integer.getInteger("mode.users", 10_000);
+        int updatesPerUser = Integer.getInteger("mode.updates", 5);
+        int workers = Integer.getInteger("mode.platform-workers", 200);
+
+        run("platform", users, updatesPerUser, workers);
+        System.gc();
+        if (VirtualThreads.isAvailable()) {
+            run("virtual", users, updatesPerUser, workers);
+        } else {
+            System.out.println("virtual: skipped, needs JDK 21+ (running " + System.getProperty("java.version") + ")");
+        }
+    }
+
+    private static void run(String mode, int users, int updatesPerUser, int workers) throws InterruptedException {
+        long dbMillis = Long.getLong("mode.db-ms", 2);
+        long httpMillis = Long.getLong("mode.http-ms", 50);
+        ConcurrencyLimit db = new ConcurrencyLimit("db", Integer.getInteger("mode.db-permits", 20));
+        ConcurrencyLimit telegram = new ConcurrencyLimit("telegram", Integer.getInteger("mode.http-permits", 1000));
+
+        int total = users * updatesPerUser;
+        UpdateDispatcher dispatcher = new UpdateDispatcher(workers, total, 60_000, mode);
+        LatencyHistogram latencies = new LatencyHistogram();
+        CountDownLatch done = new CountDownLatch(total);
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        threads.resetPeakThreadCount();
+        LongAccumulator peakHeap = new LongAccumulator(Long::max, 0);
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> peakHeap.accumulate(memory.getHeapMemoryUsage().getUsed()),
+                0, 10, TimeUnit.MILLISECONDS);
+
+        long started = System.nanoTime();
+        for (int update = 0; update < updatesPerUser; update++) {
+            for (long user = 0; user < users; user++) {
+                long enqueued = System.nanoTime();
+                dispatcher.dispatch(user, () -> {
+                    try {
+                        db.call(() -> sleep(dbMillis));
+                        telegram.call(() -> sleep(httpMillis));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    latencies.record(System.nanoTime() - enqueued);
+                    done.countDown();
+                });
+            }
+        }
+        done.await();
+        double elapsed = (System.nanoTime() - started) / 1e9;
+        sampler.shutdownNow();
+
+        System.out.printf("%-8s %8.0f updates/s  p50 %7.1f ms  p99 %7.1f ms  peak heap %5d MB  peak threads %5d%n",
+                mode, total / elapsed, latencies.percentile(0.5), latencies.percentile(0.99),
+                peakHeap.get() / (1024 * 1024), threads.getPeakThreadCount());
+        dispatcher.shutdown();
+    }
+
+    private static Void sleep(long millis) throws InterruptedException {
+        Thread.sleep(millis);
+        return null;
+    }
+}
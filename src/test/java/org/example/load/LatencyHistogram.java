@@ -0,0 +1,49 @@
+package org.example.load;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Гистограмма задержек с логарифмическими корзинами (~3% точности) от 1 мкс до нескольких минут.
+ * Запись без блокировок, можно звать из многих потоков.
+ */
+class LatencyHistogram {
+    private static final double BASE = 1.03;
+    private final AtomicLong[] buckets = new AtomicLong[650];
+    private final LongAdder count = new LongAdder();
+
+    LatencyHistogram() {
+        Arrays.setAll(buckets, i -> new AtomicLong());
+    }
+
+    void record(long nanos) {
+        double micros = Math.max(1, nanos / 1000.0);
+        int bucket = (int) Math.min(buckets.length - 1, Math.log(micros) / Math.log(BASE));
+        buckets[bucket].incrementAndGet();
+        count.increment();
+    }
+
+    long count() {
+        return count.sum();
+    }
+
+    /**
+     * @return верхняя граница корзины перцентиля, в миллисекундах
+     */
+    double percentile(double p) {
+        long total = 0;
+        for (AtomicLong bucket : buckets) {
+            total += bucket.get();
+        }
+        long rank = (long) Math.ceil(p * total);
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i].get();
+            if (seen >= rank && seen > 0) {
+                return Math.pow(BASE, i + 1) / 1000.0;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,280 @@
+package org.example.load;
+
+import org.example.Main;
+import org.example.TelegramBot;
+import org.example.callback.CallbackAction;
+import org.example.callback.CallbackCodec;
+import org.example.dispatch.UpdateDispatcher;
+import org.example.outbound.OutboundMessageSender;
+import org.example.services.TaskService;
+import org.example.time.DeadlineFormatter;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.telegram.telegrambots.meta.api.methods.ActionType;
+import org.telegram.telegrambots.meta.api.methods.send.SendChatAction;
+import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
+import org.telegram.telegrambots.meta.api.objects.Chat;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.api.objects.User;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Сквозной нагрузочный прогон: поднимает контекст Spring целиком, с заглушкой Telegram API
+ * ({@link StubTelegramApi}) и встроенной H2 вместо Postgres, и прогоняет тысячи пользователей
+ * через типичные сценарии: /start, добавление задачи, список, редактирование дедлайна, выполнение.
+ * <p>
+ * Апдейты идут через {@code TelegramBot.onUpdateReceived}, как из long polling. У сценария две задержки:
+ * <ul>
+ *     <li>handled - диспетчер обработал все его апдейты: после них в очередь того же пользователя ставится
+ *     метка, а очередь пользователя разбирается строго по порядку;</li>
+ *     <li>reply - ответы бота доставлены в API: после метки в исходящую очередь того же чата ставится
+ *     SendChatAction, а чат отправляет по одному сообщению, дождавшись ответа на предыдущее.</li>
+ * </ul>
+ * Пользователь начинает следующий сценарий, только когда получил ответы на предыдущий, и пороги SLO
+ * проверяются по reply. Метки доставки видны в статистике заглушки как sendchataction.
+ * <p>
+ * Параметры - системные свойства (-Dload.users=5000 и т.д., см. {@link #main}). Если перцентиль
+ * какого-то сценария хуже порога SLO, пропускная способность ниже минимальной или исходящая очередь
+ * не опустела за минуту после прогона, процесс завершается с кодом 1.
+ */
+public class LoadTestHarness {
+    private static final String[] FLOWS = {"start", "add", "list", "edit-deadline", "complete"};
+
+    private final TelegramBot bot;
+    private final UpdateDispatcher dispatcher;
+    private final TaskService taskService;
+    private final OutboundMessageSender outbound;
+    private final AtomicInteger updateIds = new AtomicInteger();
+    private final Map<String, LatencyHistogram> handled = new LinkedHashMap<>();
+    private final Map<String, LatencyHistogram> replied = new LinkedHashMap<>();
+    private final LongAdder failedFlows = new LongAdder();
+
+    LoadTestHarness(ConfigurableApplicationContext context) {
+        this.bot = context.getBean(TelegramBot.class);
+        this.dispatcher = context.getBean(UpdateDispatcher.class);
+        this.taskService = context.getBean(TaskService.class);
+        this.outbound = context.getBean(OutboundMessageSender.class);
+        for (String flow : FLOWS) {
+            handled.put(flow, new LatencyHistogram());
+            replied.put(flow, new LatencyHistogram());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int users = Integer.getInteger("load.users", 2000);
+        int concurrency = Integer.getInteger("load.concurrency", 200);
+        String db = System.getProperty("load.db", "mem");
+        long stubLatency = Long.getLong("stub.latency-ms", 20);
+        double rateLimitFraction = Double.parseDouble(System.getProperty("stub.rate-limit-fraction", "0.01"));
+
+        boolean breached;
+        try (StubTelegramApi stub = new StubTelegramApi(stubLatency, rateLimitFraction);
+             ConfigurableApplicationContext context = start(stub, db)) {
+            LoadTestHarness harness = new LoadTestHarness(context);
+
+            long started = System.nanoTime();
+            harness.run(users, concurrency);
+            double elapsed = (System.nanoTime() - started) / 1e9;
+
+            OutboundMessageSender outbound = harness.outbound;
+            long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+            while (outbound.getQueueDepth() > 0 && System.nanoTime() < drainDeadline) {
+                Thread.sleep(100);
+            }
+
+            breached = harness.report(elapsed, outbound.getQueueDepth());
+            System.out.printf("outbound: sent=%d failed=%d retried=%d coalesced=%d avg=%.1fms max=%dms%n",
+                    outbound.getSentCount(), outbound.getFailedCount(), outbound.getRetriedCount(),
+                    outbound.getCoalescedCount(), outbound.getAverageLatencyMillis(), outbound.getMaxLatencyMillis());
+            System.out.printf("stub api: %s, 429 responses=%d%n", stub.callCounts(), stub.rateLimitedCount());
+        }
+        System.exit(breached ? 1 : 0);
+    }
+
+    private static ConfigurableApplicationContext start(StubTelegramApi stub, String db) {
+        String url = db.equals("file")
+                ? "jdbc:h2:file:./target/loadtest-db;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE"
+                : "jdbc:h2:mem:loadtest;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        // аргументы командной строки перекрывают application.yml, а .properties() задает лишь значения по умолчанию
+        return new SpringApplicationBuilder(Main.class).run(
+                "--telegrambots.enabled=false",
+                "--spring.main.web-application-type=none",
+                "--telegram.bot.token=load-test",
+                "--telegram.bot.name=load_test_bot",
+                "--telegram.bot.base-url=" + stub.baseUrl(),
+                "--telegram.outbound.global-rate=" + System.getProperty("load.global-rate", "100000"),
+                "--telegram.outbound.per-chat-rate=" + System.getProperty("load.per-chat-rate", "1000"),
+                "--telegram.outbound.per-chat-burst=" + System.getProperty("load.per-chat-burst", "1000"),
+                "--telegram.conversation.store=memory",
+                "--spring.datasource.url=" + url,
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                // миграции написаны под Postgres (CONCURRENTLY, частичные индексы) - схему строит Hibernate
+                "--spring.flyway.enabled=false",
+                "--spring.jpa.hibernate.ddl-auto=create",
+                "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN");
+    }
+
+    void run(int users, int concurrency) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+        AtomicInteger next = new AtomicInteger();
+        for (int i = 0; i < concurrency; i++) {
+            pool.execute(() -> {
+                int user;
+                while ((user = next.getAndIncrement()) < users) {
+                    try {
+                        runUser(1_000_000L + user);
+                    } catch (Exception e) {
+                        failedFlows.increment();
+                    }
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.HOURS);
+    }
+
+    private void runUser(long userId) throws Exception {
+        String deadline = DeadlineFormatter.format(Instant.now().plus(Duration.ofDays(2)), ZoneId.systemDefault());
+        String newDeadline = DeadlineFormatter.format(Instant.now().plus(Duration.ofDays(5)), ZoneId.systemDefault());
+
+        flow("start", userId, text(userId, "/start"));
+        flow("add", userId,
+                text(userId, "📝 Добавить задачу"),
+                text(userId, "Задача " + userId),
+                text(userId, "Описание задачи"),
+                text(userId, deadline));
+        flow("list", userId, text(userId, "📋 Мои задачи"));
+
+        long taskId = taskService.getFirstTaskPage(userId, 1).getTasks().get(0).getId();
+        flow("edit-deadline", userId,
+                callback(userId, CallbackCodec.encode(CallbackAction.EDIT, taskId)),
+                text(userId, "Задача " + userId + " (изм.)"),
+                text(userId, "Новое описание"),
+                text(userId, newDeadline));
+        flow("complete", userId, callback(userId, CallbackCodec.encode(CallbackAction.COMPLETE, taskId)));
+    }
+
+    private void flow(String name, long userId, Update... updates) throws Exception {
+        long started = System.nanoTime();
+        for (Update update : updates) {
+            bot.onUpdateReceived(update);
+        }
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        if (!dispatcher.dispatch(userId, () -> done.complete(null))) {
+            throw new IllegalStateException("Dispatcher rejected the flow marker");
+        }
+        done.get(60, TimeUnit.SECONDS);
+        handled.get(name).record(System.nanoTime() - started);
+
+        // своя ошибка метки не важна: она завершается после всех ответов сценария, доставленных или нет
+        SendChatAction delivered = new SendChatAction();
+        delivered.setChatId(String.valueOf(userId));
+        delivered.setAction(ActionType.TYPING);
+        outbound.send(delivered.getChatId(), delivered).handle((result, error) -> null).get(60, TimeUnit.SECONDS);
+        replied.get(name).record(System.nanoTime() - started);
+    }
+
+    private Update text(long userId, String text) {
+        Message message = new Message();
+        message.setMessageId(updateIds.get());
+        message.setDate((int) (System.currentTimeMillis() / 1000));
+        message.setFrom(new User(userId, "load", false));
+        message.setChat(new Chat(userId, "private"));
+        message.setText(text);
+
+        Update update = new Update();
+        update.setUpdateId(updateIds.incrementAndGet());
+        update.setMessage(message);
+        return update;
+    }
+
+    private Update callback(long userId, String data) {
+        Message message = new Message();
+        message.setMessageId(updateIds.get());
+        message.setDate((int) (System.currentTimeMillis() / 1000));
+        message.setChat(new Chat(userId, "private"));
+
+        CallbackQuery query = new CallbackQuery();
+        query.setId("cb-" + updateIds.get());
+        query.setFrom(new User(userId, "load", false));
+        query.setMessage(message);
+        query.setData(data);
+
+        Update update = new Update();
+        update.setUpdateId(updateIds.incrementAndGet());
+        update.setCallbackQuery(query);
+        return update;
+    }
+
+    /**
+     * @param undelivered сообщений в исходящей очереди после ожидания ее разбора
+     * @return true, если нарушен хотя бы один порог SLO
+     */
+    boolean report(double elapsedSeconds, int undelivered) {
+        double defaultP99 = Double.parseDouble(System.getProperty("slo.p99-ms", "500"));
+        double defaultP999 = Double.parseDouble(System.getProperty("slo.p999-ms", "2000"));
+        double minThroughput = Double.parseDouble(System.getProperty("slo.min-flows-per-sec", "0"));
+
+        boolean breached = false;
+        long flows = 0;
+        System.out.printf("%-14s %8s %10s %10s %10s %10s %10s %10s%n", "flow", "count",
+                "handled p50", "p99", "p999", "reply p50", "p99", "p999");
+        for (Map.Entry<String, LatencyHistogram> entry : replied.entrySet()) {
+            String flow = entry.getKey();
+            LatencyHistogram histogram = entry.getValue();
+            LatencyHistogram handledHistogram = handled.get(flow);
+            double p99 = histogram.percentile(0.99);
+            double p999 = histogram.percentile(0.999);
+            flows += histogram.count();
+            System.out.printf("%-14s %8d %10.1f %10.1f %10.1f %10.1f %10.1f %10.1f%n", flow, histogram.count(),
+                    handledHistogram.percentile(0.5), handledHistogram.percentile(0.99),
+                    handledHistogram.percentile(0.999), histogram.percentile(0.5), p99, p999);
+
+            double p99Limit = Double.parseDouble(System.getProperty("slo." + flow + ".p99-ms", String.valueOf(defaultP99)));
+            double p999Limit = Double.parseDouble(System.getProperty("slo." + flow + ".p999-ms", String.valueOf(defaultP999)));
+            if (p99 > p99Limit) {
+                System.out.printf("SLO BREACH: %s reply p99 %.1fms > %.1fms%n", flow, p99, p99Limit);
+                breached = true;
+            }
+            if (p999 > p999Limit) {
+                System.out.printf("SLO BREACH: %s reply p999 %.1fms > %.1fms%n", flow, p999, p999Limit);
+                breached = true;
+            }
+        }
+
+        double throughput = flows / elapsedSeconds;
+        System.out.printf("throughput: %.0f flows/s, %.0f updates/s over %.1fs, failed flows: %d%n",
+                throughput, updateIds.get() / elapsedSeconds, elapsedSeconds, failedFlows.sum());
+        if (throughput < minThroughput) {
+            System.out.printf("SLO BREACH: throughput %.0f flows/s < %.0f%n", throughput, minThroughput);
+            breached = true;
+        }
+        if (failedFlows.sum() > 0) {
+            System.out.println("SLO BREACH: some flows failed");
+            breached = true;
+        }
+        if (undelivered > 0) {
+            System.out.printf("SLO BREACH: %d messages still in the outbound queue%n", undelivered);
+            breached = true;
+        }
+        return breached;
+    }
+}
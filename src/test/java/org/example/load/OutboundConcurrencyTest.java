@@ -0,0 +1,40 @@
+package org.example.load;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.outbound.OutboundMessageSender;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Исходящие сообщения разных чатов уходят параллельно, по {@code telegram.outbound.threads} запросов сразу:
+ * пул соединений HTTP-клиента не должен пропускать меньше.
+ */
+class OutboundConcurrencyTest {
+    private static final int THREADS = 8;
+    private static final int CHATS = 2 * THREADS;
+
+    @Test
+    void sendsAsManyRequestsAtOnceAsThereAreThreads() throws Exception {
+        try (StubTelegramApi stub = new StubTelegramApi(100, 0)) {
+            OutboundMessageSender sender = new OutboundMessageSender(new SimpleMeterRegistry(), "test-token",
+                    stub.baseUrl(), THREADS, 1000, 1000, 1000, 1);
+            try {
+                CompletableFuture<?>[] sent = new CompletableFuture<?>[CHATS];
+                for (int chat = 0; chat < CHATS; chat++) {
+                    sent[chat] = sender.send(new SendMessage(String.valueOf(chat + 1), "сообщение"));
+                }
+                CompletableFuture.allOf(sent).get(10, TimeUnit.SECONDS);
+
+                assertThat(stub.maxInFlight()).isEqualTo(THREADS);
+                assertThat(sender.getSentCount()).isEqualTo(CHATS);
+            } finally {
+                sender.shutdown();
+            }
+        }
+    }
+}
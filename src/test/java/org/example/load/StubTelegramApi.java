@@ -0,0 +1,153 @@
+package org.example.load;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Заглушка Telegram Bot API на встроенном HTTP-сервере JDK. Бот ходит в нее через telegram.bot.base-url.
+ * <p>
+ * Каждый вызов считается по имени метода, отвечает с заданной задержкой, а заданная доля
+ * запросов получает 429 с retry_after, как при превышении лимитов настоящего API.
+ */
+class StubTelegramApi implements AutoCloseable {
+    private static final Pattern CHAT_ID = Pattern.compile("\"chat_id\"\\s*:\\s*\"?(-?\\d+)");
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final long latencyMillis;
+    private final double rateLimitFraction;
+
+    private final Map<String, LongAdder> calls = new ConcurrentHashMap<>();
+    private final LongAdder rateLimited = new LongAdder();
+    private final AtomicInteger messageIds = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    StubTelegramApi(long latencyMillis, double rateLimitFraction) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.rateLimitFraction = rateLimitFraction;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        this.executor = Executors.newFixedThreadPool(64, r -> {
+            Thread thread = new Thread(r, "stub-telegram-api");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    /**
+     * Значение для telegram.bot.base-url: клиент дописывает к нему токен и имя метода.
+     */
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/bot";
+    }
+
+    Map<String, Long> callCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        calls.forEach((method, count) -> counts.put(method, count.sum()));
+        return counts;
+    }
+
+    long rateLimitedCount() {
+        return rateLimited.sum();
+    }
+
+    // наибольшее число запросов, которые обрабатывались одновременно
+    int maxInFlight() {
+        return maxInFlight.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String method = path.substring(path.lastIndexOf('/') + 1);
+        String body;
+        try (InputStream in = exchange.getRequestBody()) {
+            body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        calls.computeIfAbsent(method, m -> new LongAdder()).increment();
+
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            sleepAround(latencyMillis);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (!method.equals("answercallbackquery") && random.nextDouble() < rateLimitFraction) {
+            rateLimited.increment();
+            respond(exchange, 429, "{\"ok\":false,\"error_code\":429,"
+                    + "\"description\":\"Too Many Requests: retry after 1\",\"parameters\":{\"retry_after\":1}}");
+            return;
+        }
+
+        switch (method) {
+            case "sendmessage":
+            case "editmessagetext":
+            case "senddocument":
+                respond(exchange, 200, "{\"ok\":true,\"result\":" + message(chatId(body)) + "}");
+                break;
+            case "getme":
+                respond(exchange, 200, "{\"ok\":true,\"result\":{\"id\":1,\"is_bot\":true,\"first_name\":\"stub\",\"username\":\"stub_bot\"}}");
+                break;
+            default:
+                respond(exchange, 200, "{\"ok\":true,\"result\":true}");
+        }
+    }
+
+    private String message(long chatId) {
+        return "{\"message_id\":" + messageIds.incrementAndGet()
+                + ",\"date\":" + System.currentTimeMillis() / 1000
+                + ",\"chat\":{\"id\":" + chatId + ",\"type\":\"private\"}}";
+    }
+
+    private static long chatId(String body) {
+        Matcher matcher = CHAT_ID.matcher(body);
+        return matcher.find() ? Long.parseLong(matcher.group(1)) : 0;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // задержка +-50% вокруг заданной
+    private static void sleepAround(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis / 2 + ThreadLocalRandom.current().nextLong(millis + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package org.example.load;
+
+import org.example.Main;
+import org.example.models.Category;
+import org.example.models.Task;
+import org.example.models.TaskStatus;
+import org.example.services.TaskService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Скорость вставки задач: по одной через {@code createTask} (как при добавлении из бота)
+ * и пачками через {@code createTasks} (импорт).
+ * <p>
+ * По умолчанию - встроенная H2. Цифры, сравнимые с продом, дает Postgres:
+ * {@code -Dinsert.db-url=jdbc:postgresql://localhost:5432/tg_task_manager?reWriteBatchedInserts=true}
+ * (схему тогда накатывает Flyway). {@code -Dinsert.batch-size=1} выключает JDBC batching и показывает его вклад.
+ * Цифры "до" перехода на последовательность - строка createTask при {@code GenerationType.IDENTITY} в Task.
+ * Напоминания выключены, чтобы мерить только вставку.
+ */
+public class TaskInsertHarness {
+    private static final int USERS = 100;
+
+    public static void main(String[] args) {
+        int tasks = Integer.getInteger("insert.tasks", 20_000);
+        int chunk = Integer.getInteger("insert.chunk", 500);
+
+        try (ConfigurableApplicationContext context = start()) {
+            TaskService taskService = context.getBean(TaskService.class);
+
+            // прогрев JIT и пула соединений
+            insertOneByOne(taskService, 2_000);
+            insertInChunks(taskService, 2_000, chunk);
+
+            long started = System.nanoTime();
+            insertOneByOne(taskService, tasks);
+            report("createTask x" + tasks, tasks, System.nanoTime() - started);
+
+            started = System.nanoTime();
+            insertInChunks(taskService, tasks, chunk);
+            report("createTasks by " + chunk, tasks, System.nanoTime() - started);
+        }
+    }
+
+    private static void insertOneByOne(TaskService taskService, int count) {
+        for (int i = 0; i < count; i++) {
+            taskService.createTask("Задача " + i, "описание", (long) (i % USERS), TaskStatus.BACKLOG, null, Category.ANALYTICS);
+        }
+    }
+
+    // импорт всегда идет от одного пользователя, поэтому пачка - задачи одного userId
+    private static void insertInChunks(TaskService taskService, int count, int chunk) {
+        for (int from = 0, batch = 0; from < count; from += chunk, batch++) {
+            long userId = batch % USERS;
+            List<Task> tasks = new ArrayList<>(chunk);
+            for (int i = from; i < Math.min(count, from + chunk); i++) {
+                tasks.add(new Task("Задача " + i, "описание", userId, TaskStatus.BACKLOG, null, Category.ANALYTICS));
+            }
+            taskService.createTasks(tasks);
+        }
+    }
+
+    private static void report(String name, int count, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("%-22s %8.2f s %10.0f inserts/s%n", name, seconds, count / seconds);
+    }
+
+    private static ConfigurableApplicationContext start() {
+        String url = System.getProperty("insert.db-url", "");
+        List<String> properties = new ArrayList<>(List.of(
+                "telegrambots.enabled=false",
+                "spring.main.web-application-type=none",
+                "telegram.bot.token=insert-test",
+                "telegram.bot.name=insert_test_bot",
+                "telegram.conversation.store=memory",
+                "telegram.reminders.enabled=false",
+                "spring.jpa.properties.hibernate.jdbc.batch_size=" + System.getProperty("insert.batch-size", "50"),
+                "spring.jpa.show-sql=false",
+                "logging.level.org.hibernate.SQL=WARN",
+                "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN"));
+        if (url.startsWith("jdbc:postgresql:")) {
+            properties.add("spring.datasource.url=" + url);
+            properties.add("spring.datasource.username=" + System.getProperty("insert.db-user", "postgres"));
+            properties.add("spring.datasource.password=" + System.getProperty("insert.db-password", "password"));
+        } else {
+            // миграции написаны под Postgres - схему строит Hibernate, как в LoadTestHarness
+            properties.addAll(List.of(
+                    "spring.datasource.url=jdbc:h2:mem:inserttest;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                    "spring.datasource.driver-class-name=org.h2.Driver",
+                    "spring.datasource.username=sa",
+                    "spring.datasource.password=",
+                    "spring.flyway.enabled=false",
+                    "spring.jpa.hibernate.ddl-auto=create",
+                    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"));
+        }
+        // аргументы командной строки перекрывают application.yml, а .properties() задает лишь значения по умолчанию
+        return new SpringApplicationBuilder(Main.class)
+                .run(properties.stream().map(property -> "--" + property).toArray(String[]::new));
+    }
+}
@@ -0,0 +1,95 @@
+package org.example.load;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Генератор нагрузки на webhook: шлет синтетические апдейты с текстом и печатает пропускную
+ * способность и перцентили задержки ответа. Не тест - запускается вручную против поднятого бота:
+ * <pre>
+ * java WebhookLoadGenerator http://localhost:8080/webhook [секунд] [параллельность] [пользователей] secret
+ * </pre>
+ * secret - значение WEBHOOK_SECRET бота: без него webhook отвечает 401.
+ * Бот для этого стоит запускать с telegram.webhook.url пустым и BOT_API_URL на заглушку,
+ * иначе ответы пользователям уйдут в настоящий Telegram.
+ */
+public class WebhookLoadGenerator {
+
+    public static void main(String[] args) throws Exception {
+        URI target = URI.create(args.length > 0 ? args[0] : "http://localhost:8080/webhook");
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        int concurrency = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+        int users = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+        String secret = args.length > 4 ? args[4] : "";
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        Semaphore inFlight = new Semaphore(concurrency);
+        AtomicInteger updateIds = new AtomicInteger(1);
+        LongAdder ok = new LongAdder();
+        LongAdder rejected = new LongAdder();
+        LongAdder errors = new LongAdder();
+        LatencyHistogram latencies = new LatencyHistogram();
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        long started = System.nanoTime();
+        while (System.nanoTime() < deadline) {
+            inFlight.acquire();
+            int updateId = updateIds.getAndIncrement();
+            long userId = 100_000 + updateId % users;
+            HttpRequest.Builder request = HttpRequest.newBuilder(target)
+                    .timeout(Duration.ofSeconds(10))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(updateJson(updateId, userId)));
+            if (!secret.isEmpty()) {
+                request.header("X-Telegram-Bot-Api-Secret-Token", secret);
+            }
+
+            long sentAt = System.nanoTime();
+            CompletableFuture<HttpResponse<Void>> response =
+                    client.sendAsync(request.build(), HttpResponse.BodyHandlers.discarding());
+            response.whenComplete((r, e) -> {
+                latencies.record(System.nanoTime() - sentAt);
+                if (e != null) {
+                    errors.increment();
+                } else if (r.statusCode() == 200) {
+                    ok.increment();
+                } else if (r.statusCode() == 503) {
+                    rejected.increment();
+                } else {
+                    errors.increment();
+                }
+                inFlight.release();
+            });
+        }
+        inFlight.acquire(concurrency);
+        double elapsed = (System.nanoTime() - started) / 1e9;
+
+        long total = ok.sum() + rejected.sum() + errors.sum();
+        System.out.printf("requests: %d in %.1fs, %.0f req/s%n", total, elapsed, total / elapsed);
+        System.out.printf("accepted: %d (%.0f/s), rejected 503: %d, errors: %d%n",
+                ok.sum(), ok.sum() / elapsed, rejected.sum(), errors.sum());
+        System.out.printf("latency ms: p50=%.2f p99=%.2f p999=%.2f max=%.2f%n",
+                latencies.percentile(0.50), latencies.percentile(0.99),
+                latencies.percentile(0.999), latencies.percentile(1.0));
+    }
+
+    private static String updateJson(int updateId, long userId) {
+        return "{\"update_id\":" + updateId + ",\"message\":{"
+                + "\"message_id\":" + updateId + ","
+                + "\"date\":" + System.currentTimeMillis() / 1000 + ","
+                + "\"from\":{\"id\":" + userId + ",\"is_bot\":false,\"first_name\":\"load\"},"
+                + "\"chat\":{\"id\":" + userId + ",\"type\":\"private\"},"
+                + "\"text\":\"📋 Мои задачи\"}}";
+    }
+}
@@ -0,0 +1,70 @@
+package org.example.outbound;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private long now = 1_000 * SECOND;
+    // 10 токенов в секунду, запас 3
+    private final TokenBucket bucket = new TokenBucket(10, 3, () -> now);
+
+    @Test
+    void fullBurstIsAvailableRightAway() {
+        assertThat(bucket.tryAcquire()).isZero();
+        assertThat(bucket.tryAcquire()).isZero();
+        assertThat(bucket.tryAcquire()).isZero();
+        assertThat(bucket.tryAcquire()).isEqualTo(SECOND / 10);
+    }
+
+    @Test
+    void refillsAtTheConfiguredRate() {
+        drain();
+
+        now += SECOND / 10;
+        assertThat(bucket.tryAcquire()).isZero();
+        assertThat(bucket.tryAcquire()).isPositive();
+    }
+
+    @Test
+    void waitShrinksWithPartialRefill() {
+        drain();
+
+        now += SECOND / 40;
+        assertThat(bucket.tryAcquire()).isEqualTo(SECOND / 10 - SECOND / 40);
+    }
+
+    @Test
+    void idleTimeDoesNotAccumulateMoreThanTheBurst() {
+        drain();
+
+        now += 60 * SECOND;
+        for (int i = 0; i < 3; i++) {
+            assertThat(bucket.tryAcquire()).isZero();
+        }
+        assertThat(bucket.tryAcquire()).isPositive();
+    }
+
+    @Test
+    void deniedAttemptDoesNotConsumeATokenInAdvance() {
+        drain();
+
+        // частые отказы не должны отодвигать следующий токен
+        for (int i = 0; i < 5; i++) {
+            now += SECOND / 100;
+            bucket.tryAcquire();
+        }
+        now += SECOND / 20;
+        assertThat(bucket.tryAcquire()).isZero();
+    }
+
+    private void drain() {
+        while (bucket.tryAcquire() == 0) {
+            // забираем весь запас
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package org.example.reminders;
+
+import org.example.cluster.ClusterMembership;
+import org.example.cluster.MembershipChangedEvent;
+import org.example.models.TaskReminderView;
+import org.example.models.TaskStatus;
+import org.example.outbound.OutboundMessageSender;
+import org.example.repo.TaskRepository;
+import org.example.services.TaskChangedEvent;
+import org.example.services.UserZoneService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntSupplier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DeadlineReminderSchedulerTest {
+    private final TaskRepository repository = mock(TaskRepository.class);
+    private final ClusterMembership membership = mock(ClusterMembership.class);
+    private final Set<Long> localUsers = ConcurrentHashMap.newKeySet();
+    private DeadlineReminderScheduler scheduler;
+
+    @AfterEach
+    void stop() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void schedulesOnlyRemindersOfLocalUsersAndReloadsOnMembershipChange() throws InterruptedException {
+        Instant deadline = Instant.now().plus(2, ChronoUnit.HOURS);
+        when(repository.streamRemindersByDeadline(any(), any(), any()))
+                .thenAnswer(invocation -> Stream.of(reminder(1, 101, deadline), reminder(2, 202, deadline)));
+        when(membership.isLocal(anyLong()))
+                .thenAnswer(invocation -> localUsers.contains(invocation.<Long>getArgument(0)));
+        localUsers.add(101L);
+
+        scheduler = scheduler();
+        scheduler.start();
+        awaitScheduled(1, scheduler::getScheduledCount);
+
+        // пользователь 202 переехал на этот узел, 101 ушел
+        localUsers.clear();
+        localUsers.add(202L);
+        scheduler.onMembershipChanged(new MembershipChangedEvent("a", null));
+        awaitScheduled(1, scheduler::getScheduledCount);
+
+        localUsers.add(101L);
+        scheduler.onMembershipChanged(new MembershipChangedEvent("a", null));
+        awaitScheduled(2, scheduler::getScheduledCount);
+
+        localUsers.clear();
+        scheduler.onMembershipChanged(new MembershipChangedEvent("a", null));
+        awaitScheduled(0, scheduler::getScheduledCount);
+    }
+
+    @Test
+    void changeCommittedWhileWindowIsLoadingIsNotLost() throws InterruptedException {
+        TaskReminderView moved = reminder(1, 101, Instant.now().plus(2, ChronoUnit.HOURS));
+        when(membership.isLocal(anyLong())).thenReturn(true);
+        when(repository.findReminderById(1L)).thenReturn(Optional.of(moved));
+        // запрос окна читает снимок до коммита, а событие о коммите приходит, пока запрос идет
+        when(repository.streamRemindersByDeadline(any(), any(), any())).thenAnswer(invocation -> {
+            scheduler.onTaskChanged(new TaskChangedEvent(101L, 1L, TaskChangedEvent.Type.UPDATED));
+            return Stream.empty();
+        });
+
+        scheduler = scheduler();
+        scheduler.start();
+        awaitScheduled(1, scheduler::getScheduledCount);
+    }
+
+    @SuppressWarnings("unchecked")
+    private DeadlineReminderScheduler scheduler() {
+        TransactionTemplate transactions = mock(TransactionTemplate.class);
+        when(transactions.execute(any())).thenAnswer(
+                invocation -> invocation.<TransactionCallback<Object>>getArgument(0).doInTransaction(null));
+        ObjectProvider<ClusterMembership> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(membership);
+        return new DeadlineReminderScheduler(repository, transactions, mock(OutboundMessageSender.class),
+                mock(UserZoneService.class), provider, 60, 50, 24);
+    }
+
+    // перезагрузка идет в потоке колеса; ждем, пока число напоминаний придет к ожидаемому и не изменится
+    private static void awaitScheduled(int expected, IntSupplier scheduled) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (scheduled.getAsInt() != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(100);
+        assertThat(scheduled.getAsInt()).isEqualTo(expected);
+    }
+
+    private static TaskReminderView reminder(long id, long userId, Instant deadline) {
+        return new TaskReminderView() {
+            @Override public Long getId() { return id; }
+            @Override public Long getUserOwnerId() { return userId; }
+            @Override public String getName() { return "задача " + id; }
+            @Override public TaskStatus getTaskStatus() { return TaskStatus.BACKLOG; }
+            @Override public Instant getDeadlineTime() { return deadline; }
+        };
+    }
+}
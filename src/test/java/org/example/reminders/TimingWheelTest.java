@@ -0,0 +1,96 @@
+package org.example.reminders;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelTest {
+    // 8 корзин по 100 мс: один оборот колеса - 800 мс
+    private final TimingWheel<String> wheel = new TimingWheel<>(100, 8, 0);
+
+    @Test
+    void firesOnTheTickOfItsTime() {
+        wheel.schedule(1, 250, "a");
+
+        assertThat(wheel.advance(199)).isEmpty();
+        assertThat(wheel.advance(250)).containsExactly("a");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void timerFurtherThanOneRevolutionWaitsForItsOwnTick() {
+        // тик 10 лежит в той же корзине, что и тик 2
+        wheel.schedule(1, 1000, "later");
+        wheel.schedule(2, 200, "now");
+
+        assertThat(wheel.advance(250)).containsExactly("now");
+        assertThat(wheel.advance(999)).isEmpty();
+        assertThat(wheel.contains(1)).isTrue();
+        assertThat(wheel.advance(1000)).containsExactly("later");
+    }
+
+    @Test
+    void advanceAcrossSeveralRevolutionsFiresEverythingDue() {
+        wheel.schedule(1, 150, "a");
+        wheel.schedule(2, 900, "b");
+        wheel.schedule(3, 2500, "c");
+        wheel.schedule(4, 5000, "d");
+
+        assertThat(wheel.advance(3000)).containsExactlyInAnyOrder("a", "b", "c");
+        assertThat(wheel.size()).isEqualTo(1);
+    }
+
+    @Test
+    void overdueTimerFiresOnTheNextTick() {
+        wheel.advance(500);
+        wheel.schedule(1, 100, "late");
+
+        assertThat(wheel.advance(599)).isEmpty();
+        assertThat(wheel.advance(600)).containsExactly("late");
+    }
+
+    @Test
+    void cancelRemovesTimer() {
+        wheel.schedule(1, 300, "a");
+
+        assertThat(wheel.cancel(1)).isTrue();
+        assertThat(wheel.cancel(1)).isFalse();
+        assertThat(wheel.contains(1)).isFalse();
+        assertThat(wheel.advance(1000)).isEmpty();
+    }
+
+    @Test
+    void cancelInTheMiddleOfABucketKeepsTheOthers() {
+        wheel.schedule(1, 300, "a");
+        wheel.schedule(2, 300, "b");
+        wheel.schedule(3, 300, "c");
+        // тик 11 в той же корзине, что и тик 3
+        wheel.schedule(4, 1100, "d");
+
+        wheel.cancel(2);
+
+        assertThat(wheel.advance(300)).containsExactlyInAnyOrder("a", "c");
+        assertThat(wheel.advance(1100)).containsExactly("d");
+    }
+
+    @Test
+    void scheduleWithTheSameKeyReplacesTimer() {
+        wheel.schedule(1, 200, "old");
+        wheel.schedule(1, 500, "new");
+
+        assertThat(wheel.size()).isEqualTo(1);
+        assertThat(wheel.advance(300)).isEmpty();
+        assertThat(wheel.advance(500)).containsExactly("new");
+    }
+
+    @Test
+    void removeIfDropsMatchingTimersOnly() {
+        wheel.schedule(1, 300, "keep");
+        wheel.schedule(2, 300, "drop");
+        wheel.schedule(3, 1100, "drop");
+
+        assertThat(wheel.removeIf("drop"::equals)).isEqualTo(2);
+        assertThat(wheel.size()).isEqualTo(1);
+        assertThat(wheel.advance(2000)).containsExactly("keep");
+    }
+}
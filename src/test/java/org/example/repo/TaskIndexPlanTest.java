@@ -0,0 +1,196 @@
+package org.example.repo;
+
+import org.example.models.Category;
+import org.example.models.TaskStatus;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.StringJoiner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Планы запросов TaskRepository на схеме, которую накатывает Flyway: поиск задач пользователя
+ * должен идти по составным индексам idx_tasks_owner_*, а не сканированием всей таблицы.
+ * <p>
+ * Планируется тот SQL, который Hibernate действительно отправил для метода репозитория, с параметрами:
+ * он готовится через PREPARE и разбирается EXPLAIN EXECUTE с {@code plan_cache_mode = force_generic_plan},
+ * то есть в общем плане, который не знает значений параметров (как после нескольких выполнений
+ * prepared statement драйвером). Условие, которое индекс проверяет только для литерала,
+ * в таком плане индекс не выберет.
+ * <p>
+ * Таблица заполняется так, чтобы у владельца была малая доля строк: на почти пустой таблице
+ * планировщик честно выбрал бы seq scan. Без Docker тест пропускается.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class TaskIndexPlanTest {
+    private static final int OWNERS = 400;
+    private static final int TASKS = 20_000;
+    private static final long OWNER = 42;
+    private static final Instant DEADLINE = Instant.parse("2025-12-10T00:00:00Z");
+    private static final LocalDateTime CREATED = LocalDateTime.of(2025, 1, 10, 0, 0);
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:14-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        LastStatement lastStatement() {
+            return new LastStatement();
+        }
+
+        @Bean
+        HibernatePropertiesCustomizer statementInspector(LastStatement lastStatement) {
+            return properties -> properties.put("hibernate.session_factory.statement_inspector", lastStatement);
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private TaskRepository repository;
+
+    @Autowired
+    private LastStatement lastStatement;
+
+    // тест идет в транзакции, которая откатывается; ANALYZE видит строки своей транзакции
+    @BeforeEach
+    void fillTasks() {
+        jdbc.update("INSERT INTO tasks (id, task_status, name, description, user_owner_id, category, " +
+                "deadline_time, created_at, updated_at, version) " +
+                "SELECT g, (ARRAY['BACKLOG', 'IN_PROGRESS', 'DONE'])[g % 3 + 1], 'задача ' || g, NULL, g % " + OWNERS + ", " +
+                "g % 3, CASE WHEN g % 3 = 0 THEN NULL ELSE TIMESTAMP '2025-12-01' + g * INTERVAL '1 minute' END, " +
+                "TIMESTAMP '2025-01-01' + g * INTERVAL '1 minute', TIMESTAMP '2025-01-01', 0 " +
+                "FROM generate_series(1, " + TASKS + ") g");
+        jdbc.execute("ANALYZE tasks");
+        jdbc.execute("SET LOCAL plan_cache_mode = force_generic_plan");
+    }
+
+    @Test
+    void ownerAndStatusUseOwnerStatusIndex() {
+        repository.findViewsByUserOwnerIdAndTaskStatus(OWNER, TaskStatus.IN_PROGRESS);
+        assertPlanUses("idx_tasks_owner_status", OWNER, TaskStatus.IN_PROGRESS);
+
+        repository.findByUserOwnerIdAndTaskStatus(OWNER, TaskStatus.IN_PROGRESS);
+        assertPlanUses("idx_tasks_owner_status", OWNER, TaskStatus.IN_PROGRESS);
+    }
+
+    @Test
+    void ownerAndCategoryUseOwnerCategoryIndex() {
+        repository.findViewsByUserOwnerIdAndCategory(OWNER, Category.DEVELOPMENT);
+        assertPlanUses("idx_tasks_owner_category", OWNER, Category.DEVELOPMENT.ordinal());
+    }
+
+    @Test
+    void ownerAndDeadlineUseOwnerDeadlineIndex() {
+        repository.findByUserOwnerIdAndDeadlineTimeBefore(OWNER, DEADLINE);
+        assertPlanUses("idx_tasks_owner_deadline", OWNER, DEADLINE);
+    }
+
+    @Test
+    void openDeadlinesUseOwnerOpenDeadlineIndex() {
+        repository.countOverdue(OWNER, DEADLINE);
+        assertPlanUses("idx_tasks_owner_open_deadline", OWNER, DEADLINE);
+
+        repository.findOpenDeadlineViewsBefore(OWNER, DEADLINE);
+        assertPlanUses("idx_tasks_owner_open_deadline", OWNER, DEADLINE);
+    }
+
+    @Test
+    void pagesUseOwnerCreatedIndex() {
+        repository.findByUserOwnerIdOrderByCreatedAtDescIdDesc(OWNER, PageRequest.of(0, 9));
+        assertPlanUses("idx_tasks_owner_created_id", OWNER, 9);
+
+        // createdAt в запросе дважды - и параметр в SQL тоже
+        repository.findPageAfter(OWNER, CREATED, 5000L, PageRequest.of(0, 9));
+        assertPlanUses("idx_tasks_owner_created_id", OWNER, CREATED, CREATED, 5000, 9);
+    }
+
+    /**
+     * @param parameters значения параметров последнего запроса в порядке их появления в SQL
+     */
+    private void assertPlanUses(String index, Object... parameters) {
+        String sql = lastStatement.get();
+        String prepared = numberParameters(sql);
+        jdbc.execute("PREPARE plan_query AS " + prepared);
+        try {
+            StringJoiner values = new StringJoiner(", ", "(", ")");
+            for (Object parameter : parameters) {
+                values.add("'" + parameter + "'");
+            }
+            List<String> plan = jdbc.queryForList("EXPLAIN EXECUTE plan_query" + values, String.class);
+            assertThat(String.join("\n", plan))
+                    .as("generic plan of %s", sql)
+                    .contains(index)
+                    .doesNotContain("Seq Scan on tasks");
+        } finally {
+            jdbc.execute("DEALLOCATE plan_query");
+        }
+    }
+
+    // JDBC-параметры ? в параметры PREPARE $1, $2, ...
+    private static String numberParameters(String sql) {
+        StringBuilder numbered = new StringBuilder(sql.length() + 16);
+        int next = 1;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '?') {
+                numbered.append('$').append(next++);
+            } else {
+                numbered.append(c);
+            }
+        }
+        return numbered.toString();
+    }
+
+    /**
+     * Запоминает последний SELECT по tasks, который Hibernate отправил в базу.
+     */
+    static class LastStatement implements StatementInspector {
+        private volatile String sql;
+
+        @Override
+        public String inspect(String sql) {
+            if (sql.toLowerCase().startsWith("select") && sql.contains(" tasks ")) {
+                this.sql = sql;
+            }
+            return sql;
+        }
+
+        // каждый запрос проверяется один раз: следующая проверка ждет нового вызова репозитория
+        String get() {
+            String last = sql;
+            sql = null;
+            assertThat(last).as("SQL of the repository call").isNotNull();
+            return last;
+        }
+    }
+}
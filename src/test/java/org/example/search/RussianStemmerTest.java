@@ -0,0 +1,43 @@
+package org.example.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RussianStemmerTest {
+
+    @Test
+    void nounFormsShareOneStem() {
+        assertThat(RussianStemmer.stem("задача")).isEqualTo("задач");
+        assertThat(RussianStemmer.stem("задачи")).isEqualTo("задач");
+        assertThat(RussianStemmer.stem("задачу")).isEqualTo("задач");
+        assertThat(RussianStemmer.stem("задачами")).isEqualTo("задач");
+    }
+
+    @Test
+    void adjectivesAndSuperlativesLoseTheirEndings() {
+        assertThat(RussianStemmer.stem("квартального")).isEqualTo("квартальн");
+        assertThat(RussianStemmer.stem("квартальный")).isEqualTo("квартальн");
+        assertThat(RussianStemmer.stem("красивейший")).isEqualTo("красив");
+    }
+
+    @Test
+    void verbsLoseTheirEndings() {
+        assertThat(RussianStemmer.stem("подготовить")).isEqualTo("подготов");
+        assertThat(RussianStemmer.stem("делаешь")).isEqualTo("дела");
+    }
+
+    @Test
+    void derivationalSuffixIsRemovedOnlyInR2() {
+        // "ост" в "важност" не попадает в R2 и остается
+        assertThat(RussianStemmer.stem("важности")).isEqualTo("важност");
+        assertThat(RussianStemmer.stem("вероятность")).isEqualTo("вероятн");
+    }
+
+    @Test
+    void wordsWithoutCyrillicOrVowelsAreKept() {
+        assertThat(RussianStemmer.stem("report")).isEqualTo("report");
+        assertThat(RussianStemmer.stem("2026")).isEqualTo("2026");
+        assertThat(RussianStemmer.stem("вкл")).isEqualTo("вкл");
+    }
+}
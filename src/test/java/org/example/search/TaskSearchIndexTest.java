@@ -0,0 +1,188 @@
+package org.example.search;
+
+import org.example.models.TaskStatus;
+import org.example.search.TaskSearchIndex.Document;
+import org.example.search.TaskSearchIndex.Hit;
+import org.example.search.TaskSearchIndex.Page;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TaskSearchIndexTest {
+    private static final long USER = 1L;
+
+    private final TaskSearchIndex index = new TaskSearchIndex(Long.MAX_VALUE);
+
+    @Test
+    void nameMatchOutranksDescriptionMatch() {
+        index.load(USER, Arrays.asList(
+                document(1, "Созвон с командой", "подготовить отчет к созвону"),
+                document(2, "Квартальный отчет", "собрать цифры"),
+                document(3, "Купить молоко", null)));
+
+        assertThat(ids(index.search(USER, "отчет", 0, 10))).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void rareTermWeighsMoreThanCommonOne() {
+        index.load(USER, Arrays.asList(
+                document(1, "отчет по продажам", null),
+                document(2, "отчет по складу", null),
+                document(3, "отчет по бюджету", null),
+                document(4, "бюджет отдела", null)));
+
+        // "отчет" есть в трех задачах из четырех, "бюджет" - в двух; задача 3 совпадает по обоим
+        assertThat(ids(index.search(USER, "отчет бюджет", 0, 10))).containsExactly(3L, 4L, 2L, 1L);
+    }
+
+    @Test
+    void queryIsStemmedLikeTasks() {
+        index.load(USER, Arrays.asList(
+                document(1, "Разобрать задачи", null),
+                document(2, "Квартального плана нет", null)));
+
+        assertThat(ids(index.search(USER, "задачами", 0, 10))).containsExactly(1L);
+        assertThat(ids(index.search(USER, "КВАРТАЛЬНЫЙ", 0, 10))).containsExactly(2L);
+        assertThat(index.search(USER, "молоко", 0, 10).getTotal()).isZero();
+        assertThat(index.search(USER, "!!!", 0, 10).getHits()).isEmpty();
+    }
+
+    @Test
+    void equalScoresListNewerTasksFirst() {
+        index.load(USER, Arrays.asList(
+                document(5, "звонок", null),
+                document(9, "звонок", null),
+                document(7, "звонок", null)));
+
+        assertThat(ids(index.search(USER, "звонок", 0, 10))).containsExactly(9L, 7L, 5L);
+    }
+
+    @Test
+    void pagesFollowTheRankingAndStopPastTheEnd() {
+        List<Document> documents = new ArrayList<>();
+        for (int id = 1; id <= 5; id++) {
+            documents.add(document(id, "задача " + id, null));
+        }
+        index.load(USER, documents);
+
+        Page first = index.search(USER, "задача", 0, 2);
+        Page second = index.search(USER, "задача", 2, 2);
+        Page last = index.search(USER, "задача", 4, 2);
+        assertThat(ids(first)).containsExactly(5L, 4L);
+        assertThat(ids(second)).containsExactly(3L, 2L);
+        assertThat(ids(last)).containsExactly(1L);
+        assertThat(first.hasPrevious()).isFalse();
+        assertThat(first.hasNext()).isTrue();
+        assertThat(last.hasPrevious()).isTrue();
+        assertThat(last.hasNext()).isFalse();
+
+        Page beyond = index.search(USER, "задача", 10, 2);
+        assertThat(beyond.getHits()).isEmpty();
+        assertThat(beyond.getTotal()).isEqualTo(5);
+        assertThat(beyond.hasNext()).isFalse();
+        assertThat(beyond.hasPrevious()).isTrue();
+    }
+
+    @Test
+    void putAndRemoveUpdateLoadedPartition() {
+        index.load(USER, Arrays.asList(document(1, "отчет", null)));
+
+        index.put(USER, document(2, "годовой отчет", null));
+        index.put(USER, document(1, "презентация", null));
+        assertThat(ids(index.search(USER, "отчет", 0, 10))).containsExactly(2L);
+        assertThat(ids(index.search(USER, "презентация", 0, 10))).containsExactly(1L);
+
+        index.remove(USER, 2);
+        assertThat(index.search(USER, "отчет", 0, 10).getTotal()).isZero();
+    }
+
+    @Test
+    void unloadedPartitionIsNotSearchedOrFilled() {
+        index.put(USER, document(1, "отчет", null));
+
+        assertThat(index.isLoaded(USER)).isFalse();
+        assertThat(index.search(USER, "отчет", 0, 10)).isNull();
+        assertThat(index.getUsedBytes()).isZero();
+    }
+
+    @Test
+    void usedBytesReturnToZeroWhenEverythingIsRemoved() {
+        index.load(USER, Arrays.asList(
+                document(1, "Квартальный отчет", "собрать цифры по продажам"),
+                document(2, "Отчет для налоговой", null)));
+        index.put(USER, document(3, "Созвон", "обсудить отчет"));
+        index.put(USER, document(1, "Квартальный отчет (итог)", "цифры собраны"));
+        assertThat(index.getUsedBytes()).isPositive();
+
+        index.remove(USER, 1);
+        index.remove(USER, 2);
+        index.remove(USER, 3);
+        assertThat(index.getUsedBytes()).isZero();
+
+        index.load(USER, Arrays.asList(document(4, "Новая задача", null)));
+        index.load(USER, new ArrayList<>());
+        assertThat(index.getUsedBytes()).isZero();
+    }
+
+    @Test
+    void leastRecentlyUsedPartitionIsEvictedOverBudget() {
+        long partitionBytes = bytesOfOnePartition();
+        TaskSearchIndex limited = new TaskSearchIndex(partitionBytes * 5 / 2);
+
+        limited.load(1L, partition());
+        limited.load(2L, partition());
+        // обращение к первому разделу делает второй самым давно не использованным
+        limited.search(1L, "отчет", 0, 10);
+        limited.load(3L, partition());
+
+        assertThat(limited.isLoaded(1L)).isTrue();
+        assertThat(limited.isLoaded(2L)).isFalse();
+        assertThat(limited.isLoaded(3L)).isTrue();
+        assertThat(limited.search(2L, "отчет", 0, 10)).isNull();
+        assertThat(limited.getEvictionCount()).isEqualTo(1);
+        assertThat(limited.getPartitionCount()).isEqualTo(2);
+        assertThat(limited.getUsedBytes()).isEqualTo(2 * partitionBytes);
+
+        // в выброшенный раздел изменения не пишутся, память не растет
+        limited.put(2L, document(100, "отчет", null));
+        assertThat(limited.getUsedBytes()).isEqualTo(2 * partitionBytes);
+    }
+
+    @Test
+    void partitionLargerThanBudgetIsKept() {
+        TaskSearchIndex tiny = new TaskSearchIndex(1);
+
+        tiny.load(1L, partition());
+        tiny.load(2L, partition());
+
+        assertThat(tiny.isLoaded(1L)).isFalse();
+        assertThat(tiny.isLoaded(2L)).isTrue();
+        assertThat(tiny.getEvictionCount()).isEqualTo(1);
+        assertThat(tiny.getUsedBytes()).isEqualTo(bytesOfOnePartition());
+    }
+
+    private static long bytesOfOnePartition() {
+        TaskSearchIndex unlimited = new TaskSearchIndex(Long.MAX_VALUE);
+        unlimited.load(USER, partition());
+        return unlimited.getUsedBytes();
+    }
+
+    private static List<Document> partition() {
+        return Arrays.asList(
+                document(1, "Квартальный отчет", "собрать цифры"),
+                document(2, "Созвон с командой", "обсудить отчет"));
+    }
+
+    private static Document document(long id, String name, String description) {
+        return new Document(id, name, description, TaskStatus.BACKLOG);
+    }
+
+    private static List<Long> ids(Page page) {
+        return page.getHits().stream().map(Hit::getTaskId).collect(Collectors.toList());
+    }
+}
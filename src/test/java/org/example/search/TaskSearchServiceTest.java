@@ -0,0 +1,106 @@
+package org.example.search;
+
+import org.example.cluster.ClusterMembership;
+import org.example.cluster.ConsistentHashRing;
+import org.example.cluster.MembershipChangedEvent;
+import org.example.models.TaskSearchView;
+import org.example.models.TaskStatus;
+import org.example.repo.TaskRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TaskSearchServiceTest {
+    private final TaskRepository repository = mock(TaskRepository.class);
+    private final ClusterMembership membership = mock(ClusterMembership.class);
+    private final MembershipChangedEvent twoNodes = new MembershipChangedEvent("a",
+            new ConsistentHashRing(Arrays.asList("a", "b"), 128));
+    private final long local = firstUser(true);
+    private final long remote = firstUser(false);
+    private TaskSearchService service;
+
+    @AfterEach
+    void stop() {
+        service.shutdown();
+    }
+
+    @Test
+    void rebuildLoadsOnlyLocalUsers() throws InterruptedException {
+        when(membership.isLocal(anyLong())).thenAnswer(invocation -> twoNodes.isLocal(invocation.getArgument(0)));
+        when(repository.findOwnerIdsAfter(eq(Long.MIN_VALUE), any())).thenReturn(Arrays.asList(local, remote));
+        when(repository.findOwnerIdsAfter(eq(Math.max(local, remote)), any())).thenReturn(Collections.emptyList());
+        when(repository.findSearchViewsByUserOwnerIdIn(anyCollection())).thenReturn(List.of(task(1, local)));
+        service = service();
+
+        service.start();
+        awaitPartitions(1);
+
+        verify(repository).findSearchViewsByUserOwnerIdIn(List.of(local));
+        verify(repository, never()).findSearchViewsByUserOwnerId(anyLong());
+        assertThat(service.search(local, "отчет", 0, 10).getTotal()).isEqualTo(1);
+    }
+
+    @Test
+    void membershipChangeUnloadsPartitionsOfOtherNodes() {
+        when(membership.isLocal(anyLong())).thenReturn(true);
+        when(repository.findSearchViewsByUserOwnerId(local)).thenReturn(List.of(task(1, local)));
+        when(repository.findSearchViewsByUserOwnerId(remote)).thenReturn(List.of(task(2, remote)));
+        service = service();
+        service.search(local, "отчет", 0, 10);
+        service.search(remote, "отчет", 0, 10);
+        long localBytes = service.getUsedBytes() / 2;
+
+        service.onMembershipChanged(twoNodes);
+
+        assertThat(service.getPartitionCount()).isEqualTo(1);
+        assertThat(service.getUsedBytes()).isEqualTo(localBytes);
+        assertThat(service.getEvictionCount()).isZero();
+    }
+
+    private TaskSearchService service() {
+        @SuppressWarnings("unchecked")
+        ObjectProvider<ClusterMembership> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(membership);
+        return new TaskSearchService(repository, provider, 64, true, 500);
+    }
+
+    private void awaitPartitions(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (service.getPartitionCount() != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(service.getPartitionCount()).isEqualTo(expected);
+    }
+
+    private long firstUser(boolean isLocal) {
+        long userId = 1;
+        while (twoNodes.isLocal(userId) != isLocal) {
+            userId++;
+        }
+        return userId;
+    }
+
+    private static TaskSearchView task(long id, long userId) {
+        return new TaskSearchView() {
+            @Override public Long getId() { return id; }
+            @Override public Long getUserOwnerId() { return userId; }
+            @Override public String getName() { return "Квартальный отчет"; }
+            @Override public String getDescription() { return null; }
+            @Override public TaskStatus getTaskStatus() { return TaskStatus.BACKLOG; }
+        };
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.services;
+
+import org.example.models.TaskStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AsyncTaskServiceTest {
+    private static final long TIMEOUT_MS = 100;
+
+    private final TaskService taskService = mock(TaskService.class);
+    private final AsyncTaskService async = new AsyncTaskService(taskService, 2, 10, TIMEOUT_MS);
+
+    @AfterEach
+    void stop() {
+        async.shutdown();
+    }
+
+    @Test
+    void slowReadTimesOut() {
+        when(taskService.getTaskListByUser(1L)).thenAnswer(invocation -> {
+            Thread.sleep(TIMEOUT_MS * 5);
+            return List.of();
+        });
+
+        assertThatThrownBy(() -> async.getTaskListByUserAsync(1L).get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(TimeoutException.class);
+    }
+
+    @Test
+    void slowUpdateReportsItsRealOutcome() throws Exception {
+        when(taskService.updateTaskStatus(10L, 1L, TaskStatus.DONE)).thenAnswer(invocation -> {
+            Thread.sleep(TIMEOUT_MS * 3);
+            return true;
+        });
+
+        assertThat(async.updateTaskStatusAsync(10L, 1L, TaskStatus.DONE).get(5, TimeUnit.SECONDS)).isTrue();
+    }
+}
@@ -0,0 +1,61 @@
+package org.example.services;
+
+import org.example.cluster.ConsistentHashRing;
+import org.example.cluster.MembershipChangedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TaskListCacheTest {
+    private final TaskListCache cache = new TaskListCache(true, 1000);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void secondReadIsServedFromCacheUntilInvalidated() {
+        assertThat(cache.get(1L, "all", loader("a", "b"))).containsExactly("a", "b");
+        assertThat(cache.get(1L, "all", loader("a", "b"))).containsExactly("a", "b");
+        assertThat(loads).hasValue(1);
+
+        cache.onTaskChanged(new TaskChangedEvent(1L, 10L, TaskChangedEvent.Type.UPDATED));
+        cache.get(1L, "all", loader("a", "b", "c"));
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void membershipChangeDropsUsersOwnedByOtherNodes() {
+        MembershipChangedEvent event = new MembershipChangedEvent("a",
+                new ConsistentHashRing(Arrays.asList("a", "b"), 128));
+        long local = firstUser(event, true);
+        long remote = firstUser(event, false);
+        cache.get(local, "all", loader("x"));
+        cache.get(remote, "all", loader("y", "z"));
+
+        cache.onMembershipChanged(event);
+
+        // запись пользователя весит 1 плюс по 1 на список и на каждую задачу
+        assertThat(cache.getWeight()).isEqualTo(3);
+        cache.get(local, "all", loader("x"));
+        cache.get(remote, "all", loader("y", "z"));
+        assertThat(loads).hasValue(3);
+    }
+
+    private Supplier<List<String>> loader(String... items) {
+        return () -> {
+            loads.incrementAndGet();
+            return Arrays.asList(items);
+        };
+    }
+
+    private static long firstUser(MembershipChangedEvent event, boolean local) {
+        long userId = 1;
+        while (event.isLocal(userId) != local) {
+            userId++;
+        }
+        return userId;
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.services;
+
+import org.example.cluster.ConsistentHashRing;
+import org.example.cluster.MembershipChangedEvent;
+import org.example.models.UserSettings;
+import org.example.repo.UserSettingsRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserZoneServiceTest {
+    private static final ZoneId MOSCOW = ZoneId.of("Europe/Moscow");
+
+    private final UserSettingsRepository repository = mock(UserSettingsRepository.class);
+    private final UserZoneService service = new UserZoneService(repository, "UTC", 100);
+
+    @Test
+    void membershipChangeDropsZonesOfUsersOwnedByOtherNodes() {
+        MembershipChangedEvent event = new MembershipChangedEvent("a",
+                new ConsistentHashRing(Arrays.asList("a", "b"), 128));
+        long local = firstUser(event, true);
+        long remote = firstUser(event, false);
+        when(repository.findById(any())).thenAnswer(invocation -> {
+            UserSettings settings = new UserSettings(invocation.getArgument(0));
+            settings.setTimeZone(MOSCOW.getId());
+            return Optional.of(settings);
+        });
+        service.getZone(local);
+        service.getZone(remote);
+
+        service.onMembershipChanged(event);
+
+        assertThat(service.getZone(local)).isEqualTo(MOSCOW);
+        assertThat(service.getZone(remote)).isEqualTo(MOSCOW);
+        verify(repository, times(1)).findById(local);
+        verify(repository, times(2)).findById(remote);
+    }
+
+    private static long firstUser(MembershipChangedEvent event, boolean local) {
+        long userId = 1;
+        while (event.isLocal(userId) != local) {
+            userId++;
+        }
+        return userId;
+    }
+}
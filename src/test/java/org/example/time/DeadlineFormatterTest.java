@@ -0,0 +1,90 @@
+package org.example.time;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeadlineFormatterTest {
+    private static final ZoneId UTC = ZoneOffset.UTC;
+    private static final ZoneId MOSCOW = ZoneId.of("Europe/Moscow");
+    private static final ZoneId BERLIN = ZoneId.of("Europe/Berlin");
+
+    @Test
+    void fastPathAgreesWithDateTimeFormatter() {
+        DateTimeFormatter reference = DateTimeFormatter.ofPattern(DeadlineFormatter.PATTERN);
+        LocalDateTime time = LocalDateTime.of(2023, 1, 1, 0, 0);
+        // шаг не кратен ни часу, ни суткам: перебираются все часы, минуты, дни и 29 февраля 2024
+        for (int i = 0; i < 20_000; i++) {
+            String text = reference.format(time);
+
+            assertThat(DeadlineFormatter.parse(text, UTC)).as(text).isEqualTo(time.toInstant(ZoneOffset.UTC));
+            assertThat(DeadlineFormatter.format(time.toInstant(ZoneOffset.UTC), UTC)).isEqualTo(text);
+            time = time.plusMinutes(127);
+        }
+    }
+
+    @Test
+    void otherLayoutsFallBackToStrictFormatter() {
+        Instant expected = LocalDateTime.of(2026, 3, 5, 9, 0).toInstant(ZoneOffset.UTC);
+
+        assertThat(DeadlineFormatter.parse("5.3.2026 9:00", UTC)).isEqualTo(expected);
+        assertThat(DeadlineFormatter.parse("05.3.2026 09:00", UTC)).isEqualTo(expected);
+        assertThat(DeadlineFormatter.parse("  05.03.2026 09:00 ", UTC)).isEqualTo(expected);
+    }
+
+    @Test
+    void nonExistentDatesAreRejectedOnBothPaths() {
+        assertThat(DeadlineFormatter.parse("31.02.2026 10:00", UTC)).isNull();
+        assertThat(DeadlineFormatter.parse("29.02.2025 10:00", UTC)).isNull();
+        assertThat(DeadlineFormatter.parse("29.2.2025 10:00", UTC)).isNull();
+        assertThat(DeadlineFormatter.parse("01.13.2026 10:00", UTC)).isNull();
+        assertThat(DeadlineFormatter.parse("01.01.2026 24:00", UTC)).isNull();
+        assertThat(DeadlineFormatter.parse("01.01.2026 10:60", UTC)).isNull();
+        assertThat(DeadlineFormatter.parse("29.02.2024 10:00", UTC)).isNotNull();
+    }
+
+    @Test
+    void garbageIsRejected() {
+        assertThat(DeadlineFormatter.parse(null, UTC)).isNull();
+        assertThat(DeadlineFormatter.parse("", UTC)).isNull();
+        assertThat(DeadlineFormatter.parse("завтра", UTC)).isNull();
+        assertThat(DeadlineFormatter.parse("ab.cd.efgh ij:kl", UTC)).isNull();
+        assertThat(DeadlineFormatter.parse("01-01-2026 10:00", UTC)).isNull();
+        assertThat(DeadlineFormatter.parse("01.01.2026T10:00", UTC)).isNull();
+        assertThat(DeadlineFormatter.parse("+1.01.2026 10:00", UTC)).isNull();
+    }
+
+    @Test
+    void localTimeIsReadAndWrittenInTheUserZone() {
+        Instant moscow = DeadlineFormatter.parse("01.07.2026 12:00", MOSCOW);
+
+        assertThat(moscow).isEqualTo(Instant.parse("2026-07-01T09:00:00Z"));
+        assertThat(DeadlineFormatter.format(moscow, MOSCOW)).isEqualTo("01.07.2026 12:00");
+        assertThat(DeadlineFormatter.format(moscow, BERLIN)).isEqualTo("01.07.2026 11:00");
+        assertThat(DeadlineFormatter.format(moscow, UTC)).isEqualTo("01.07.2026 09:00");
+    }
+
+    @Test
+    void hourSkippedBySummerTimeMovesForward() {
+        // 29.03.2026 в Берлине часы переводятся с 02:00 на 03:00
+        Instant instant = DeadlineFormatter.parse("29.03.2026 02:30", BERLIN);
+
+        assertThat(instant).isEqualTo(Instant.parse("2026-03-29T01:30:00Z"));
+        assertThat(DeadlineFormatter.format(instant, BERLIN)).isEqualTo("29.03.2026 03:30");
+    }
+
+    @Test
+    void yearBeforeOneThousandIsPadded() {
+        Instant instant = LocalDateTime.of(999, 1, 2, 3, 4).toInstant(ZoneOffset.UTC);
+
+        assertThat(DeadlineFormatter.format(instant, UTC)).isEqualTo("02.01.0999 03:04");
+        assertThat(DeadlineFormatter.appendTo(new StringBuilder("до "), instant, UTC))
+                .hasToString("до 02.01.0999 03:04");
+    }
+}
@@ -0,0 +1,58 @@
+package org.example.webhook;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WebhookControllerTest {
+    private static final String SECRET = "s3cret_token-1";
+
+    private final UpdateIngress ingress = mock(UpdateIngress.class);
+
+    @Test
+    void acceptsUpdateWithTheSecret() {
+        when(ingress.accept(any())).thenReturn(true);
+
+        assertThat(post(controller(SECRET), SECRET)).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void rejectsMissingOrWrongSecret() {
+        WebhookController controller = controller(SECRET);
+
+        assertThat(post(controller, null)).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(post(controller, "")).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(post(controller, SECRET + "x")).isEqualTo(HttpStatus.UNAUTHORIZED);
+        verify(ingress, never()).accept(any());
+    }
+
+    @Test
+    void refusesToStartWithoutSecret() {
+        assertThatThrownBy(() -> controller("")).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> controller("  ")).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void refusesSecretTelegramWouldReject() {
+        assertThatThrownBy(() -> controller("with space")).isInstanceOf(IllegalStateException.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private WebhookController controller(String secret) {
+        return new WebhookController(null, ingress,
+                mock(ObjectProvider.class), mock(ObjectProvider.class), secret);
+    }
+
+    private static HttpStatus post(WebhookController controller, String token) {
+        return controller.onUpdate(token, new Update()).block().getStatusCode();
+    }
+}